@@ -0,0 +1,17 @@
+package dev.riss.itemservicedb;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 벤치마크 전용 부트 설정
+ * ItemserviceDbApplication 은 @Import 로 Config 가 하나로 고정돼있으므로, 벤치마크에서는 이 클래스에 Config 를 골라서 붙여서 띄움
+ * (컴포넌트 스캔 x, web 도 안띄움)
+ *
+ * 루트 패키지(dev.riss.itemservicedb)에 둬야 함
+ * => 자동 구성 패키지 기준으로 @Entity, 스프링 데이터 JPA 레포지토리, MyBatis @Mapper 를 찾기 때문
+ */
+@Configuration
+@EnableAutoConfiguration
+public class BenchmarkApplication {
+}
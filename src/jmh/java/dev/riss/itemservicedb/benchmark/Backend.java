@@ -0,0 +1,37 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.config.*;
+
+/**
+ * 벤치마크 대상 DB 기술 (ItemserviceDbApplication 의 @Import 후보들과 1:1)
+ * 모두 ItemService 를 통해서 호출. V1 서비스는 ItemRepository 에 그대로 위임하므로 레포지토리 구현체 비교가 됨
+ */
+public enum Backend {
+
+    MEMORY(MemoryConfig.class, false),                      // MemoryItemRepository
+    COLUMNAR(ColumnarConfig.class, false),                  // ColumnarItemRepository
+    JDBC_TEMPLATE_V1(JdbcTemplateV1Config.class, true),     // JdbcTemplateItemRepositoryV1
+    JDBC_TEMPLATE_V2(JdbcTemplateV2Config.class, true),     // JdbcTemplateItemRepositoryV2
+    JDBC_TEMPLATE_V3(JdbcTemplateV3Config.class, true),     // JdbcTemplateItemRepositoryV3
+    MYBATIS(MyBatisConfig.class, true),                     // MybatisItemRepository
+    JPA(JpaConfig.class, true),                             // JpaItemRepositoryV1
+    SPRING_DATA_JPA(SpringDataJpaConfig.class, true),       // JpaItemRepositoryV2
+    QUERYDSL(QuerydslConfig.class, true),                   // JpaItemRepositoryV3
+    SERVICE_V2(V2Config.class, true);                       // ItemServiceV2 + ItemQueryRepositoryV2
+
+    private final Class<?> configClass;
+    private final boolean database;     // H2 에 데이터를 넣어야 하는지 (메모리 구현체는 레포지토리에 직접 넣음)
+
+    Backend(Class<?> configClass, boolean database) {
+        this.configClass = configClass;
+        this.database = database;
+    }
+
+    public Class<?> getConfigClass() {
+        return configClass;
+    }
+
+    public boolean isDatabase() {
+        return database;
+    }
+}
@@ -0,0 +1,104 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.BenchmarkApplication;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.columnar.ColumnarItemRepository;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Backend 하나에 대한 스프링 컨텍스트 + 임베디드 H2
+ *
+ * 데이터 규칙 (벤치마크 조건을 맞추기 위해 고정)
+ *  - id: 1 ~ rows
+ *  - item_name: "it" + 번호 (item_name 이 VARCHAR(10) 이므로 짧게)
+ *  - price: 1000 + (번호 % 100) * 100  => price <= 1000 은 전체의 1%
+ *  - quantity: 번호 % 1000
+ *
+ * 스키마는 앱과 같이 Flyway(db/migration) 로 만듦 (인덱스 포함)
+ * 단, 전문 검색 인덱스는 행마다 트리거로 단어를 쪼개서 넣느라 대량 INSERT 가 몇 배 느려지므로 빼고 시작
+ * => 필요한 벤치마크만 데이터를 넣은 뒤 ItemFullText.createIndex (NameSearchBenchmark)
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @param extraConfigs backend Config 와 같이 띄울 Config (ex. R2dbcConfig)
+     */
+    public static BenchmarkContext start(Backend backend, int rows, Class<?>... extraConfigs) {
+        List<Class<?>> sources = new ArrayList<>(List.of(BenchmarkApplication.class, backend.getConfigClass()));
+        sources.addAll(List.of(extraConfigs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(sources.toArray(Class<?>[]::new))
+                .web(WebApplicationType.NONE)
+                // application.properties(tcp 서버 DB) 보다 우선하도록 커맨드라인 인자로 넘김
+                .run(
+                        // Trial 마다 새 DB (이전 Trial 데이터가 남지 않도록 이름을 매번 바꿈)
+                        "--spring.datasource.url=jdbc:h2:mem:bench-" + backend.name() + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        // R2dbcConfig 는 기본으로 꺼져 있음 (extraConfigs 로 넘겼을 때만 의미 있음)
+                        "--item.r2dbc.enabled=true",
+                        "--logging.level.root=warn",
+                        // application.properties 에서 로거별로 debug/trace 를 켜둔 SQL 로그는 root 로 안 꺼지므로 따로
+                        "--logging.level.org.springframework.jdbc=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.orm.jdbc.bind=warn",
+                        "--logging.level.dev.riss.itemservicedb.repository.mybatis=warn");
+
+        BenchmarkContext benchmarkContext = new BenchmarkContext(context);
+        benchmarkContext.populate(backend, rows);
+        return benchmarkContext;
+    }
+
+    private void populate(Backend backend, int rows) {
+        if (backend.isDatabase()) {
+            JdbcTemplate template = new JdbcTemplate(context.getBean(DataSource.class));
+            template.execute("CALL FT_DROP_INDEX('PUBLIC', 'ITEM')");
+            // 레포지토리 save 로 100만건 넣으면 준비만 한참 걸리므로 H2 SYSTEM_RANGE 로 한 번에 넣음
+            template.update(
+                    "INSERT INTO item(item_name, price, quantity) " +
+                            "SELECT CONCAT('it', X), 1000 + MOD(X, 100) * 100, MOD(X, 1000) FROM SYSTEM_RANGE(1, ?)", rows);
+            return;
+        }
+
+        ItemRepository itemRepository = itemRepository();
+        for (int i = 1; i <= rows; i++) {
+            itemRepository.save(new Item("it" + i, 1000 + (i % 100) * 100, i % 1000));
+        }
+    }
+
+    public ItemService itemService() {
+        return context.getBean(ItemService.class);
+    }
+
+    public ItemRepository itemRepository() {
+        return context.getBean(ItemRepository.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        if (itemRepository() instanceof MemoryItemRepository memoryItemRepository) {
+            memoryItemRepository.clearStore();
+        }
+        if (itemRepository() instanceof ColumnarItemRepository columnarItemRepository) {
+            columnarItemRepository.clearStore();
+        }
+        context.close();
+    }
+}
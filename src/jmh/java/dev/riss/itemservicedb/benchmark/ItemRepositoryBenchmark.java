@@ -0,0 +1,95 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.service.ItemService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 기술별 save / update / findById / findAll 비교
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="ItemRepositoryBenchmark"
+ *  - 처리량(thrpt), latency 백분위(sample), 연산당 할당량(-prof gc => gc.alloc.rate.norm) 이 같이 나옴
+ *  - backend x rows 조합이 많으므로 필요한 것만 돌릴 땐 -PjmhArgs="ItemRepositoryBenchmark -p backend=JDBC_TEMPLATE_V2 -p rows=1000" 
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})     // 처리량 + latency 백분위(p50, p90, p99 ...)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemRepositoryBenchmark {
+
+    @Param
+    Backend backend;
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    BenchmarkContext context;
+    ItemService itemService;
+
+    // price 가 1000 인 상품만 (전체의 1%)
+    ItemSearchCond priceCond = new ItemSearchCond(null, 1000);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(backend, rows);
+        itemService = context.itemService();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Item save() {
+        return itemService.save(new Item("bench", 5000, 5));
+    }
+
+    @Benchmark
+    public void update() {
+        long itemId = randomId();
+        itemService.update(itemId, new ItemUpdateDto("it" + itemId, 1000 + (int) (itemId % 100) * 100, 7));
+    }
+
+    @Benchmark
+    public Optional<Item> findById() {
+        return itemService.findById(randomId());
+    }
+
+    @Benchmark
+    public List<Item> findAllByName() {
+        // "it1234" 같은 이름 검색 => like '%it1234%' 이므로 인덱스 없이 전체 스캔
+        return itemService.findItems(new ItemSearchCond("it" + randomId(), null));
+    }
+
+    @Benchmark
+    public List<Item> findAllByPrice() {
+        return itemService.findItems(priceCond);
+    }
+
+    // findAllByPrice 와 같은 조건을 List 없이 한 건씩 (export 방식). -prof gc 의 alloc 비교용
+    @Benchmark
+    public void streamAllByPrice(Blackhole blackhole) {
+        itemService.streamItems(priceCond, blackhole::consume);
+    }
+
+    // 목록 화면 한 페이지 (keyset, 20건). 전체 목록(findAll) 과 달리 rows 에 상관없이 일정해야 함
+    @Benchmark
+    public List<Item> findPage() {
+        return itemService.findItems(new ItemSearchCond(null, null, randomId(), 20));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메모리 저장소 읽기/쓰기 혼합 부하 (스프링 없이 레포지토리만)
+ *
+ * 코어 수에 따른 확장성 확인: 그룹 스레드 수를 늘려가며 비교
+ *  ./gradlew jmh -PjmhArgs="MemoryItemRepositoryBenchmark -tg 0,3,1"
+ *  ./gradlew jmh -PjmhArgs="MemoryItemRepositoryBenchmark -tg 0,6,2"
+ *  (-tg 순서는 메서드 이름순: findAll, findById, update)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class MemoryItemRepositoryBenchmark {
+
+    @Param({"100000"})
+    int rows;
+
+    MemoryItemRepository itemRepository;
+    ItemSearchCond priceCond = new ItemSearchCond(null, 1000);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemRepository = new MemoryItemRepository();
+        for (int i = 1; i <= rows; i++) {
+            itemRepository.save(new Item("it" + i, 1000 + (i % 100) * 100, i % 1000));
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<Item> findById() {
+        return itemRepository.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void update() {
+        long itemId = randomId();
+        itemRepository.update(itemId, new ItemUpdateDto("it" + itemId, 1000 + (int) (itemId % 100) * 100, 7));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<Item> findAll() {
+        return itemRepository.findAll(priceCond);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+}
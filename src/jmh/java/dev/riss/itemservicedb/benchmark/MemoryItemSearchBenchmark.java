@@ -0,0 +1,54 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메모리 저장소 상품명 부분 검색 (trigram 인덱스)
+ *
+ *  ./gradlew jmh -PjmhArgs="MemoryItemSearchBenchmark"
+ *
+ * 상품명은 "it" + id 라서 "it12345" 같은 검색어는 결과가 몇 개 안 되지만,
+ * 인덱스 없이 contains 로 찾으면 100만 건을 다 훑어야 함
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class MemoryItemSearchBenchmark {
+
+    @Param({"1000000"})
+    int rows;
+
+    MemoryItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        itemRepository = new MemoryItemRepository();
+        for (int i = 1; i <= rows; i++) {
+            itemRepository.save(new Item("it" + i, 1000 + (i % 100) * 100, i % 1000));
+        }
+    }
+
+    @Benchmark
+    public List<Item> nameContains() {
+        return itemRepository.findAll(new ItemSearchCond("it" + randomId(), null));
+    }
+
+    @Benchmark
+    public List<Item> nameContainsAndMaxPrice() {
+        return itemRepository.findAll(new ItemSearchCond("t" + randomId(), 5000));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(10000, rows + 1);
+    }
+}
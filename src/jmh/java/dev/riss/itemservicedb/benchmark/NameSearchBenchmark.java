@@ -0,0 +1,64 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 상품명 검색: LIKE '%x%'(CONTAINS) vs LIKE 'x%'(PREFIX) vs 전문 검색 인덱스(TOKEN)
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="NameSearchBenchmark"
+ *  - 상품명은 "it" + id 라서 "it12345" 로 찾으면 CONTAINS 는 몇 건 안 되지만 테이블 전체를 훑음
+ *    TOKEN 은 단어 인덱스에서 바로 찾음 (같은 검색어가 정확히 한 건)
+ *  - PREFIX 는 item_name 인덱스(V2__add_item_indexes.sql) 로 범위 검색
+ *  - 특정 기술만: -PjmhArgs="NameSearchBenchmark -p backend=QUERYDSL"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NameSearchBenchmark {
+
+    @Param({"JDBC_TEMPLATE_V1", "MYBATIS", "QUERYDSL"})
+    Backend backend;
+
+    @Param({"200000"})
+    int rows;
+
+    @Param({"CONTAINS", "PREFIX", "TOKEN"})
+    ItemNameMatch nameMatch;
+
+    BenchmarkContext context;
+    ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(backend, rows);
+        // BenchmarkContext 는 전문 검색 인덱스 없이 데이터를 넣으므로 여기서 만듦 (이미 들어있는 행도 인덱싱)
+        ItemFullText.createIndex(new JdbcTemplate(context.getBean(DataSource.class)));
+        itemRepository = context.itemRepository();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> findByName() {
+        ItemSearchCond cond = new ItemSearchCond("it" + ThreadLocalRandom.current().nextInt(1, rows + 1), null);
+        cond.setNameMatch(nameMatch);
+        return itemRepository.findAll(cond);
+    }
+}
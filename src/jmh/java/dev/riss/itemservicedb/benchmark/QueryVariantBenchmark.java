@@ -0,0 +1,171 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findAll 쿼리 준비 비용: 매번 문자열 이어 붙이기(기존 방식) vs 미리 만든 조합에서 꺼내기(ItemQueryVariants)
+ * DB 실행은 빼고, 쿼리 문자열/JPA Query 객체를 만드는 데까지만 잼 (16 가지 조건 조합을 돌아가며)
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="QueryVariantBenchmark"
+ *  - jdbc*: SQL 문자열 + 파라미터 배열
+ *  - jpa*: em.createQuery(JPQL 문자열) vs em.createNamedQuery(이름) + 파라미터 바인딩
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryVariantBenchmark {
+
+    static final ItemQueryVariants SQL = new ItemQueryVariants(
+            "SELECT id, item_name, price, quantity FROM item",
+            "item_name like concat('%', ?, '%')", "price <= ?", "id > ?", "id < ?", "ORDER BY id", "ORDER BY id LIMIT ?", "ORDER BY id DESC LIMIT ?");
+    static final ItemQueryVariants JPQL = new ItemQueryVariants(
+            "SELECT i FROM Item i",
+            "i.itemName LIKE CONCAT('%', :itemName, '%')", "i.price <= :maxPrice", "i.id > :afterId", "i.id < :beforeId", "ORDER BY i.id", "ORDER BY i.id", "ORDER BY i.id DESC");
+    static final String NAMED_QUERY = "QueryVariantBenchmark.findAll.";
+
+    // 기존 문자열 조립 쪽엔 beforeId 가 없으므로 비교는 beforeId 없는 16 가지 조합으로만
+    ItemSearchCond[] conds = new ItemSearchCond[ItemQueryVariants.BEFORE_ID];
+    int next;
+
+    BenchmarkContext context;
+    EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int mask = 0; mask < conds.length; mask++) {
+            conds[mask] = new ItemSearchCond(
+                    (mask & ItemQueryVariants.NAME) != 0 ? "it1" : null,
+                    (mask & ItemQueryVariants.MAX_PRICE) != 0 ? 1000 : null,
+                    (mask & ItemQueryVariants.AFTER_ID) != 0 ? 100L : null,
+                    (mask & ItemQueryVariants.SIZE) != 0 ? 20 : null);
+        }
+
+        context = BenchmarkContext.start(Backend.JPA, 0);
+        EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+        em = emf.createEntityManager();
+        for (int mask = 0; mask < ItemQueryVariants.COUNT; mask++) {
+            emf.addNamedQuery(NAMED_QUERY + mask, em.createQuery(JPQL.get(mask), Item.class));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        em.close();
+        context.close();
+    }
+
+    private ItemSearchCond nextCond() {
+        return conds[next++ & (conds.length - 1)];
+    }
+
+    @Benchmark
+    public void jdbcStringBuilding(Blackhole bh) {
+        List<Object> param = new ArrayList<>();
+        bh.consume(legacySql(nextCond(), param));
+        bh.consume(param.toArray());
+    }
+
+    @Benchmark
+    public void jdbcVariant(Blackhole bh) {
+        ItemSearchCond cond = nextCond();
+        int mask = ItemQueryVariants.mask(cond);
+        bh.consume(SQL.get(mask));
+        bh.consume(ItemQueryVariants.args(cond, mask));
+    }
+
+    @Benchmark
+    public TypedQuery<Item> jpaStringBuilding() {
+        return legacyJpql(nextCond());
+    }
+
+    @Benchmark
+    public TypedQuery<Item> jpaNamedQuery() {
+        ItemSearchCond cond = nextCond();
+        int mask = ItemQueryVariants.mask(cond);
+        TypedQuery<Item> query = em.createNamedQuery(NAMED_QUERY + mask, Item.class);
+        bind(query, cond);
+        return query;
+    }
+
+    // 기존 JdbcTemplateItemRepositoryV1.findAllSql
+    private static String legacySql(ItemSearchCond cond, List<Object> param) {
+        String itemName = cond.getItemName();
+        Integer maxPrice = cond.getMaxPrice();
+        Long afterId = cond.getAfterId();
+        Integer size = cond.getSize();
+
+        String sql = "SELECT id, item_name, price, quantity FROM item ";
+        if (StringUtils.hasText(itemName) || null != maxPrice || null != afterId) sql += " WHERE";
+
+        boolean andFlag = false;
+        if (StringUtils.hasText(itemName)) {
+            sql += " item_name like concat('%', ?, '%')";
+            param.add(itemName);
+            andFlag = true;
+        }
+        if (null != maxPrice) {
+            if (andFlag) sql += " AND";
+            sql += " price <= ?";
+            param.add(maxPrice);
+            andFlag = true;
+        }
+        if (null != afterId) {
+            if (andFlag) sql += " AND";
+            sql += " id > ?";
+            param.add(afterId);
+        }
+        if (null != size) {
+            sql += " ORDER BY id LIMIT ?";
+            param.add(size);
+        }
+        return sql;
+    }
+
+    // 기존 JpaItemRepositoryV1.findAllQuery (로그 제외)
+    private TypedQuery<Item> legacyJpql(ItemSearchCond cond) {
+        String jpql = "SELECT i FROM Item i";
+        if (StringUtils.hasText(cond.getItemName()) || null != cond.getMaxPrice() || null != cond.getAfterId()) jpql += " WHERE";
+
+        boolean andFlag = false;
+        if (StringUtils.hasText(cond.getItemName())) {
+            jpql += " i.itemName LIKE CONCAT('%', :itemName, '%')";
+            andFlag = true;
+        }
+        if (null != cond.getMaxPrice()) {
+            if (andFlag) jpql += " AND";
+            jpql += " i.price <= :maxPrice";
+            andFlag = true;
+        }
+        if (null != cond.getAfterId()) {
+            if (andFlag) jpql += " AND";
+            jpql += " i.id > :afterId";
+        }
+        if (null != cond.getSize()) jpql += " ORDER BY i.id";
+
+        TypedQuery<Item> query = em.createQuery(jpql, Item.class);
+        bind(query, cond);
+        return query;
+    }
+
+    private static void bind(TypedQuery<Item> query, ItemSearchCond cond) {
+        if (StringUtils.hasText(cond.getItemName())) query.setParameter("itemName", cond.getItemName());
+        if (null != cond.getMaxPrice()) query.setParameter("maxPrice", cond.getMaxPrice());
+        if (null != cond.getAfterId()) query.setParameter("afterId", cond.getAfterId());
+        if (null != cond.getSize()) query.setMaxResults(cond.getSize());
+    }
+}
@@ -0,0 +1,104 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.config.R2dbcConfig;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.ReactiveItemService;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 동시 목록 조회: 블로킹(JdbcTemplate, JPA) vs 리액티브(R2DBC)
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="ReactiveListingBenchmark"
+ *  - 연산 하나 = concurrency 개의 목록 조회(keyset 한 페이지, pageSize 건) 를 동시에 시작해서 다 받을 때까지
+ *  - 어느 쪽이든 실행 스레드는 threads 개뿐 (요청 수보다 스레드가 훨씬 적은 상황)
+ *    블로킹: 고정 스레드 풀에 조회를 넣고 Future 로 기다림 / 리액티브: 같은 크기의 스레드 풀을 Scheduler 로 써서 flatMap
+ *  - 커넥션 풀은 둘 다 10 (Hikari 기본, item.r2dbc.pool.max-size)
+ *  - 조회는 벤치마크 스레드가 아니라 풀 스레드에서 돌므로 -prof gc 의 gc.alloc.rate.norm 은 의미 없음 (스레드 전환 비용도 같이 잼)
+ *
+ * H2 R2DBC 드라이버는 H2 엔진을 구독 스레드에서 그대로 부르므로(R2dbcItemRepository) 여기서 보는 차이는
+ * 논블로킹 I/O 효과가 아니라 드라이버/매핑/리액티브 연산자 오버헤드 차이임
+ * (임베디드 H2 에서는 R2DBC 가 JdbcTemplate 보다 느림: 행마다 컬럼 이름 Map 을 만들고, 값마다 코덱을 찾음 => -prof stack 으로 확인)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReactiveListingBenchmark {
+
+    public enum Client {JDBC_TEMPLATE, JPA, R2DBC}
+
+    @Param
+    Client client;
+
+    @Param({"64", "512"})
+    int concurrency;
+
+    @Param({"4"})
+    int threads;
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({"100"})
+    int pageSize;
+
+    BenchmarkContext context;
+    ItemService itemService;
+    ReactiveItemService reactiveItemService;
+    ExecutorService executor;
+    Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // R2DBC 는 JdbcTemplate 쪽과 같은 DB 에 붙음 (데이터는 BenchmarkContext 가 JDBC 로 넣음)
+        context = BenchmarkContext.start(client == Client.JPA ? Backend.JPA : Backend.JDBC_TEMPLATE_V2, rows, R2dbcConfig.class);
+        itemService = context.itemService();
+        reactiveItemService = context.getBean(ReactiveItemService.class);
+        executor = Executors.newFixedThreadPool(threads);
+        scheduler = Schedulers.fromExecutorService(executor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.dispose();
+        executor.shutdownNow();
+        context.close();
+    }
+
+    // 읽은 상품 수 (concurrency * pageSize)
+    @Benchmark
+    public long listing() throws Exception {
+        if (client == Client.R2DBC) {
+            return Flux.range(0, concurrency)
+                    .flatMap(i -> reactiveItemService.findItems(page()).subscribeOn(scheduler).count(), concurrency)
+                    .reduce(0L, Long::sum)
+                    .block();
+        }
+
+        List<Future<Integer>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> itemService.findItems(page()).size()));
+        }
+        long count = 0;
+        for (Future<Integer> future : futures) {
+            count += future.get();
+        }
+        return count;
+    }
+
+    // 임의 위치에서 시작하는 한 페이지 (뒤쪽이 모자라지 않도록 rows - pageSize 안에서)
+    private ItemSearchCond page() {
+        long afterId = ThreadLocalRandom.current().nextLong(rows - pageSize);
+        return new ItemSearchCond(null, null, afterId, pageSize);
+    }
+}
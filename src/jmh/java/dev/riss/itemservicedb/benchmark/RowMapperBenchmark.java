@@ -0,0 +1,55 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.support.ItemRowMappers;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 SELECT 결과를 BeanPropertyRowMapper(매번 생성 + 리플렉션) vs ItemRowMappers(인덱스 + 재사용) 로 매핑
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="RowMapperBenchmark"
+ *  - @OperationsPerInvocation(ROWS) 이므로 결과의 ops/s 가 곧 rows/s
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+
+    static final int ROWS = 10_000;
+    static final String SQL = "SELECT id, item_name, price, quantity, version FROM item";
+
+    BenchmarkContext context;
+    JdbcTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Backend.JDBC_TEMPLATE_V1, ROWS);
+        template = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Item> beanPropertyRowMapper() {
+        return template.query(SQL, BeanPropertyRowMapper.newInstance(Item.class));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Item> itemRowMappers() {
+        return template.query(SQL, ItemRowMappers.ITEM);
+    }
+}
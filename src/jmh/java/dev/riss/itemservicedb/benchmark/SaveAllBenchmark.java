@@ -0,0 +1,67 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 건씩 save vs saveAll (batch) 의 초당 저장 행 수 비교
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="SaveAllBenchmark"
+ *  - @OperationsPerInvocation(BATCH) 이므로 결과의 ops/s 가 곧 rows/s
+ *  - 특정 기술만: -PjmhArgs="SaveAllBenchmark -p backend=MYBATIS"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaveAllBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param
+    Backend backend;
+
+    BenchmarkContext context;
+    ItemRepository itemRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(backend, 0);
+        itemRepository = context.itemRepository();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void saveOneByOne() {
+        for (int i = 0; i < BATCH; i++) {
+            itemRepository.save(newItem(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Item> saveAll() {
+        List<Item> items = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            items.add(newItem(i));
+        }
+        return itemRepository.saveAll(items);
+    }
+
+    // BenchmarkContext 의 데이터 규칙과 같은 모양
+    private static Item newItem(int i) {
+        return new Item("it" + i, 1000 + (i % 100) * 100, i % 1000);
+    }
+}
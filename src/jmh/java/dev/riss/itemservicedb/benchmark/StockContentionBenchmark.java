@@ -0,0 +1,99 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.stock.DirectStockReservations;
+import dev.riss.itemservicedb.stock.StockReservations;
+import dev.riss.itemservicedb.stock.StripedStockReservations;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 인기 상품 몇 개에 재고 차감이 몰릴 때: 요청마다 조건부 UPDATE(DIRECT) vs 메모리에서 나눠주기(STRIPED)
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="StockContentionBenchmark"
+ *  - 연산 하나 = threads 개의 스레드가 동시에 각자 reservesPerTask 번씩 hotItems 개 중 아무 상품이나 1개 차감
+ *    => 수백 스레드가 상품 몇 개의 행(락) / 메모리 칸을 두고 다툼
+ *  - 재고는 충분히 넣어둠 (벤치마크 도중 바닥나서 false 만 나오지 않도록)
+ *  - STRIPED 는 leaseSize 개씩 떼어 오므로 DB 쓰기가 차감 leaseSize 번에 한 번 정도 + flush (StripedStockReservations)
+ *  - DIRECT/MEMORY 는 DB 락 대신 MemoryItemStore 의 CAS 재시도가 다툼
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockContentionBenchmark {
+
+    public enum Reservations {DIRECT, STRIPED}
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"JDBC_TEMPLATE_V2", "JPA", "MEMORY"})
+    Backend backend;
+
+    @Param
+    Reservations reservations;
+
+    @Param({"256"})
+    int threads;
+
+    @Param({"4"})
+    int hotItems;
+
+    @Param({"16"})
+    int reservesPerTask;
+
+    @Param({"100"})
+    int leaseSize;
+
+    BenchmarkContext context;
+    StockReservations stock;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(backend, 1000);
+        ItemService itemService = context.itemService();
+        for (long id = 1; id <= hotItems; id++) itemService.releaseStock(id, STOCK);
+        stock = reservations == Reservations.STRIPED
+                ? new StripedStockReservations(itemService, leaseSize, 0, Duration.ofMillis(200), Duration.ofSeconds(10))
+                : new DirectStockReservations(itemService);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        if (stock instanceof StripedStockReservations striped) striped.close();
+        context.close();
+    }
+
+    // 성공한 차감 수 (threads * reservesPerTask)
+    @Benchmark
+    public long reserve() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();      // 스레드가 다 모인 다음 동시에
+                int reserved = 0;
+                for (int j = 0; j < reservesPerTask; j++) {
+                    long itemId = 1 + ThreadLocalRandom.current().nextInt(hotItems);
+                    if (stock.reserve(itemId, 1)) reserved++;
+                }
+                return reserved;
+            }));
+        }
+        start.countDown();
+        long reserved = 0;
+        for (Future<Integer> future : futures) {
+            reserved += future.get();
+        }
+        return reserved;
+    }
+}
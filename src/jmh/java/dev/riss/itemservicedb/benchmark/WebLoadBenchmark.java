@@ -0,0 +1,121 @@
+package dev.riss.itemservicedb.benchmark;
+
+import dev.riss.itemservicedb.ItemserviceDbApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 톰캣 플랫폼 스레드 풀(기본 200개) vs 가상 스레드(VirtualThreadConfig) 부하 비교
+ *
+ * 실행: ./gradlew jmh -PjmhArgs="WebLoadBenchmark"
+ *  - 앱 전체(ItemserviceDbApplication, V2Config) 를 실제 포트로 띄우고, concurrency 개의 GET /items 를 동시에 보내고 다 받을 때까지가 연산 하나
+ *  - requests 카운터 = 초당 처리한 요청 수 (동시 요청 수와 상관없이 비교 가능)
+ *  - 캐시는 끔 (모든 요청이 DB 까지), 커넥션 풀은 두 모드 모두 application-virtual.properties 와 같은 크기
+ *  - VIRTUAL 은 Java 21 이상에서만 (그 미만이면 Setup 에서 실패)
+ *  - 임베디드 H2 는 네트워크 대기가 없으므로, 실제 DB 처럼 기다리는 시간이 있는 경우는 tcp 서버로:
+ *    -PjmhArgs="WebLoadBenchmark -p jdbcUrl=jdbc:h2:tcp://localhost/~/bench"
+ *  - 가상 스레드가 드라이버 synchronized 에 고정되는 지점은 -Djdk.tracePinnedThreads=short 로 출력됨 (Fork 에 붙여둠)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+@State(Scope.Benchmark)
+public class WebLoadBenchmark {
+
+    public enum ThreadMode {PLATFORM, VIRTUAL}
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    ThreadMode mode;
+
+    @Param({"100", "1000"})
+    int concurrency;
+
+    @Param({"100000"})
+    int rows;
+
+    @Param({""})
+    String jdbcUrl;     // 비어있으면 임베디드 H2
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Requests {
+        public long requests;
+        public long errors;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+            errors = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = jdbcUrl.isEmpty() ? "jdbc:h2:mem:web-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1" : jdbcUrl;
+        context = new SpringApplicationBuilder(ItemserviceDbApplication.class)
+                .run("--spring.profiles.active=bench",
+                        "--server.port=0",
+                        "--server.tomcat.accept-count=" + concurrency,
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.hikari.maximum-pool-size=8",
+                        "--item.threads.virtual=" + (mode == ThreadMode.VIRTUAL),
+                        "--item.cache.enabled=false",
+                        "--sql.request.statement-budget=0",
+                        "--sql.request.repeat-limit=0",
+                        // application.properties 의 SQL 로그(debug/trace) 까지 꺼야 로그 쓰기가 아닌 요청 처리를 잼
+                        "--logging.level.root=warn",
+                        "--logging.level.org.springframework.jdbc=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.orm.jdbc.bind=warn");
+
+        JdbcTemplate template = new JdbcTemplate(context.getBean(DataSource.class));
+        template.execute("CALL FT_DROP_INDEX('PUBLIC', 'ITEM')");
+        template.update("DELETE FROM item");
+        template.update("INSERT INTO item(item_name, price, quantity) " +
+                "SELECT CONCAT('it', X), 1000 + MOD(X, 100) * 100, MOD(X, 1000) FROM SYSTEM_RANGE(1, ?)", rows);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) context.close();
+    }
+
+    @Benchmark
+    public void concurrentRequests(Requests counter) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            // 가격 인덱스 + keyset 페이지 하나 (시작 위치만 다르게)
+            long afterId = ThreadLocalRandom.current().nextLong(rows);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/items?maxPrice=3000&size=20&afterId=" + afterId)).build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) counter.requests++;
+            else counter.errors++;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import javax.sql.DataSource;
 
 //@Import(MemoryConfig.class)
+//@Import(ColumnarConfig.class)
 //@Import(JdbcTemplateV1Config.class)		// 해당 Config 를 설정 파일로 사용한다는 애노테이션 (여기선 DB 기술교체마다 이걸로 바꿔쓸거임)
 //@Import(JdbcTemplateV2Config.class)
 //@Import(JdbcTemplateV3Config.class)
@@ -20,7 +21,14 @@ import javax.sql.DataSource;
 //@Import(JpaConfig.class)
 //@Import(SpringDataJpaConfig.class)
 //@Import(QuerydslConfig.class)
-@Import(V2Config.class)
+@Import({V2Config.class, ItemCacheConfig.class, ItemMetricsConfig.class, SqlStatementConfig.class, VirtualThreadConfig.class, ReplicaRoutingConfig.class, R2dbcConfig.class, StockConfig.class, WriteBehindConfig.class})		// ItemCacheConfig: 위 Config 의 ItemService 에 findById / 검색 캐시를 씌움 (어떤 Config 와도 같이 사용 가능)
+		// ItemMetricsConfig: 레포지토리/서비스 메서드별 실행 시간 지표 (/actuator/prometheus)
+		// SqlStatementConfig: 요청별 SQL 문 수 집계, 느린 쿼리 로그, N+1 검사
+		// VirtualThreadConfig: item.threads.virtual=true (virtual 프로필) 일 때만 톰캣/비동기 요청을 가상 스레드로
+		// ReplicaRoutingConfig: item.datasource.replica-urls 가 있을 때만 readOnly 트랜잭션을 replica 로
+		// R2dbcConfig: 같은 DB 를 R2DBC 로 읽고 쓰는 리액티브 ReactiveItemService (/reactive/items)
+		// StockConfig: 재고 차감 API (/api/items/{itemId}/stock). item.stock.striped.enabled=true 면 인기 상품 재고를 메모리에서 나눠줌
+		// WriteBehindConfig: item.write-behind.enabled=true 일 때만 상품 수정을 로컬 로그에 쓰고 응답, DB 에는 모아서 나중에
 @SpringBootApplication(scanBasePackages = "dev.riss.itemservicedb.web")		// web 패키지 하위만 컴포넌트스캔하겠다는 의미
 // 그럼 나머지는 직접 수동으로 빈 등록할 예정
 @Slf4j
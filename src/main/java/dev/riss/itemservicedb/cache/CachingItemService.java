@@ -0,0 +1,258 @@
+package dev.riss.itemservicedb.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.RepriceProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * findById / findItems 결과를 노드 메모리(near cache) 에 들고 있는 ItemService 데코레이터
+ * 어떤 Config(ItemService 구현) 든 감쌀 수 있음 (ItemCacheConfig)
+ *
+ *  - 캐시: Caffeine. 크기 제한 + W-TinyLFU 방출 (자주 쓰이는 상품이 한 번 훑고 지나가는 조회에 밀려나지 않음)
+ *          expireAfterWrite: 다른 노드의 무효화 메시지를 놓쳐도 이 시간이 지나면 다시 DB 에서 읽음
+ *  - 쓰기(save/update/reprice/재고 차감·되돌리기): DB 에 반영한 다음 내 캐시를 지우고, 채널로 다른 노드에도 알림
+ *    재고도 목록(검색 결과, ItemFragmentCache) 에 수량으로 나오므로 다른 쓰기와 똑같이 데이터 버전까지 올림
+ *    조회 중(로딩 중)인 키를 지우면 Caffeine 이 로딩이 끝날 때까지 기다렸다가 지우므로 옛 값이 남지 않음
+ *  - 없는 상품(Optional.empty) 은 캐시하지 않음 => 새로 저장된 상품이 캐시 때문에 안 보이는 일 없음
+ *  - 캐시 안에는 복사본을 넣고, 꺼낼 때도 복사본을 줌 (받은 쪽이 setter 로 고쳐도 캐시는 그대로)
+ *
+ * 검색(findItems) 결과 캐시
+ *  - 키: 정규화한 검색 조건 + 데이터 버전(ItemSearchKey). 어떤 쓰기든(다른 노드 포함) 버전을 올림 => 상품 하나만 바뀌어도 검색 결과는 전부 새로
+ *  - 크기: 결과 목록의 상품 수 합계로 제한 (큰 목록 몇 개가 캐시를 다 차지하지 않도록)
+ *  - single-flight: 같은 키로 동시에 들어온 검색은 처음 하나만 DB 에 보내고, 나머지는 그 결과를 기다렸다가 같이 씀
+ *    (executed = 실제로 DB 에 보낸 검색 수, coalesced = 다른 요청 결과를 기다려서 받은 수)
+ *    기다리는 건 searchWait 까지만. 처음 검색이 그보다 오래 걸리면(커넥션 대기, 느린 쿼리 등) 직접 DB 에 보냄
+ *    => 처음 요청 하나가 멈춰도 같은 검색을 한 요청들이 같이 멈추지 않음
+ */
+@Slf4j
+public class CachingItemService implements ItemService {
+
+    private final ItemService target;
+    private final ItemCacheInvalidationChannel channel;
+    private final Duration searchWait;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Cache<Long, Item> cache;
+
+    private final Cache<ItemSearchKey, List<Item>> searchCache;
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final ConcurrentMap<ItemSearchKey, CompletableFuture<List<Item>>> inFlightSearches = new ConcurrentHashMap<>();
+    private final LongAdder executedSearches = new LongAdder();
+    private final LongAdder coalescedSearches = new LongAdder();
+
+    public static final Duration DEFAULT_SEARCH_WAIT = Duration.ofSeconds(3);
+
+    public CachingItemService(ItemService target, ItemCacheInvalidationChannel channel,
+                              CacheSpec itemCache, CacheSpec searchCache) {
+        this(target, channel, itemCache, searchCache, DEFAULT_SEARCH_WAIT);
+    }
+
+    /**
+     * @param itemCache   findById 캐시 (maximum = 상품 수)
+     * @param searchCache findItems 캐시 (maximum = 캐시된 결과 목록들의 상품 수 합계)
+     * @param searchWait  같은 검색이 실행 중일 때 그 결과를 기다리는 최대 시간
+     */
+    public CachingItemService(ItemService target, ItemCacheInvalidationChannel channel,
+                              CacheSpec itemCache, CacheSpec searchCache, Duration searchWait) {
+        this.target = target;
+        this.channel = channel;
+        this.searchWait = searchWait;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(itemCache.maximum())
+                .expireAfterWrite(itemCache.expireAfterWrite())
+                .recordStats()      // hit/miss/eviction 집계 (stats())
+                .build();
+        this.searchCache = Caffeine.newBuilder()
+                .maximumWeight(searchCache.maximum())
+                .weigher((ItemSearchKey key, List<Item> items) -> items.size() + 1)     // 빈 결과도 한 칸
+                .expireAfterWrite(searchCache.expireAfterWrite())
+                .recordStats()
+                .build();
+        channel.subscribe(this::onInvalidation);
+    }
+
+    public record CacheSpec(long maximum, Duration expireAfterWrite) {
+    }
+
+    @Override
+    public Item save(Item item) {
+        Item saved = target.save(item);
+        invalidate(saved.getId());      // id 가 있는 save 는 수정(merge) 일 수도 있음
+        return saved;
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        try {
+            target.update(itemId, updateParam);
+        } catch (OptimisticLockingFailureException e) {
+            // 충돌 = 내 캐시의 상품(버전) 이 낡았을 수 있음 (다른 노드의 무효화가 아직 안 왔거나 유실) => 내 캐시만 지움
+            cache.invalidate(itemId);
+            throw e;
+        }
+        invalidate(itemId);
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        // 로더가 null 을 반환하면 캐시에 넣지 않음
+        Item cached = cache.get(id, key -> target.findById(key).map(CachingItemService::copy).orElse(null));
+        return Optional.ofNullable(cached).map(CachingItemService::copy);
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond itemSearch) {
+        ItemSearchKey key = ItemSearchKey.of(itemSearch, dataVersion.get());
+        List<Item> cached = searchCache.getIfPresent(key);
+        if (cached != null) return copyAll(cached);
+
+        // 같은 키로 이미 실행 중인 검색이 있으면 그 결과를 기다림
+        CompletableFuture<List<Item>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Item>> running = inFlightSearches.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedSearches.increment();
+            List<Item> shared = await(running);
+            if (shared != null) return copyAll(shared);
+
+            // 기다리다 시간 초과 => 직접 조회 (캐시에는 먼저 간 검색이 넣음)
+            coalescedSearches.decrement();
+            executedSearches.increment();
+            return target.findItems(itemSearch);
+        }
+
+        try {
+            executedSearches.increment();
+            List<Item> result = target.findItems(itemSearch).stream().map(CachingItemService::copy).toList();
+            // 검색하는 동안 쓰기가 있었으면 어차피 옛 버전 키라서 다시 안 쓰이므로 넣지 않음
+            if (dataVersion.get() == key.dataVersion()) searchCache.put(key, result);
+            mine.complete(result);
+            return copyAll(result);
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);      // 기다리던 요청들도 같은 예외 (Error 여도 기다리던 요청이 남지 않도록)
+            throw e;
+        } finally {
+            inFlightSearches.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void streamItems(ItemSearchCond itemSearch, Consumer<Item> action) {
+        target.streamItems(itemSearch, action);
+    }
+
+    // 어떤 상품이 바뀌었는지 하나씩 알리지 않고 전부 지움 (일괄 변경 중에 읽어간 값도 같이 지워짐)
+    @Override
+    public long reprice(ItemRepriceParam param, Consumer<RepriceProgress> listener) {
+        long updated = target.reprice(param, listener);
+        invalidateAll();
+        return updated;
+    }
+
+    // 재고가 모자라서 차감이 안 됐으면(false) 바뀐 게 없으므로 무효화도 안 함
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        boolean reserved = target.reserveStock(itemId, quantity);
+        if (reserved) invalidate(itemId);
+        return reserved;
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        target.releaseStock(itemId, quantity);
+        invalidate(itemId);
+    }
+
+    // 쓰기(다른 노드 포함) 가 있을 때마다 올라가는 값. 이 값이 같으면 그 사이 바뀐 상품이 없음 (ItemFragmentCache 도 키로 씀)
+    public long dataVersion() {
+        return dataVersion.get();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats searchStats() {
+        return searchCache.stats();
+    }
+
+    public long executedSearchCount() {
+        return executedSearches.sum();
+    }
+
+    public long coalescedSearchCount() {
+        return coalescedSearches.sum();
+    }
+
+    // 이 서비스를 거치지 않고 DB 를 바꾼 쪽(ex. ReactiveItemServiceV1) 이 부름 => 자기 캐시 + 다른 노드 캐시까지 무효화
+    public void invalidate(Long itemId) {
+        dataVersion.incrementAndGet();
+        cache.invalidate(itemId);
+        channel.publish(new ItemCacheInvalidation(nodeId, itemId));
+    }
+
+    private void invalidateAll() {
+        dataVersion.incrementAndGet();
+        cache.invalidateAll();
+        channel.publish(new ItemCacheInvalidation(nodeId, null));
+    }
+
+    private void onInvalidation(ItemCacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) return;
+        log.debug("invalidation from other node={}", invalidation);
+        dataVersion.incrementAndGet();
+        if (invalidation.isAll()) cache.invalidateAll();
+        else cache.invalidate(invalidation.itemId());
+    }
+
+    // 먼저 간 검색의 결과. searchWait 안에 안 끝나면 null
+    private List<Item> await(CompletableFuture<List<Item>> running) {
+        try {
+            return running.get(searchWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for an in-flight search", e);
+        }
+    }
+
+    private static List<Item> copyAll(List<Item> items) {
+        return items.stream().map(CachingItemService::copy).toList();
+    }
+
+    private static Item copy(Item item) {
+        Item copy = new Item(item.getItemName(), item.getPrice(), item.getQuantity());
+        copy.setId(item.getId());
+        copy.setVersion(item.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.riss.itemservicedb.cache;
+
+/**
+ * 캐시 무효화 메시지 (노드 간 전달)
+ *
+ * @param origin 보낸 노드 id (자기가 보낸 메시지는 이미 지웠으므로 무시)
+ * @param itemId 지울 상품 id, null 이면 전부 (ex. 가격 일괄 변경)
+ */
+public record ItemCacheInvalidation(String origin, Long itemId) {
+
+    public boolean isAll() {
+        return itemId == null;
+    }
+}
@@ -0,0 +1,17 @@
+package dev.riss.itemservicedb.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 노드들 사이에 캐시 무효화 메시지를 주고받는 통로
+ *
+ * 기본은 같은 JVM 안에서만 전달(LoopbackItemCacheInvalidationChannel) => 노드 1대 혹은 테스트용
+ * 여러 대로 띄울 때는 이 인터페이스를 Redis pub/sub, Kafka 토픽 등으로 구현해서 빈으로 등록하면 그걸 씀 (ItemCacheConfig)
+ * 메시지가 늦거나 빠져도 캐시 TTL(expireAfterWrite) 이 지나면 결국 DB 값으로 돌아옴
+ */
+public interface ItemCacheInvalidationChannel {
+
+    void publish(ItemCacheInvalidation invalidation);
+
+    void subscribe(Consumer<ItemCacheInvalidation> listener);
+}
@@ -0,0 +1,62 @@
+package dev.riss.itemservicedb.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 상품 목록 화면(items.html) 의 표 부분을 렌더링한 HTML 캐시
+ *
+ *  - 키: 검색 결과 캐시와 같은 ItemSearchKey (정규화한 검색 조건 + 데이터 버전)
+ *    데이터 버전은 CachingItemService 것을 그대로 씀 => save/update/reprice, 다른 노드의 무효화 때 같이 올라감
+ *  - 값: 표 HTML + 페이징에 필요한 값(조회 방향으로 더 있는지, 처음/마지막 id) => 캐시에 있으면 조회도 렌더링도 안 함
+ *  - 크기: HTML 길이 합계로 제한 (String 은 문자 하나에 1~2 byte, 한글이 섞일 수 있으므로 2 byte 로 계산)
+ *  - 렌더링하는 동안 쓰기가 있었으면 넣지 않음 (CachingItemService.findItems 와 같음)
+ */
+public class ItemFragmentCache {
+
+    public record Fragment(String html, boolean hasMore, Long firstId, Long lastId) {
+    }
+
+    private final CachingItemService itemService;
+    private final Cache<ItemSearchKey, Fragment> cache;
+
+    /**
+     * @param maximumBytes 캐시된 HTML 크기 합계 (대략)
+     */
+    public ItemFragmentCache(CachingItemService itemService, long maximumBytes, Duration expireAfterWrite) {
+        this.itemService = itemService;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((ItemSearchKey key, Fragment fragment) -> fragment.html().length() * 2)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param renderer 캐시에 없을 때 조회 + 렌더링
+     */
+    public Fragment get(ItemSearchCond cond, Supplier<Fragment> renderer) {
+        long dataVersion = itemService.dataVersion();
+        ItemSearchKey key = ItemSearchKey.of(cond, dataVersion);
+        Fragment cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+
+        Fragment fragment = renderer.get();
+        if (itemService.dataVersion() == dataVersion) cache.put(key, fragment);
+        return fragment;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,20 @@
+package dev.riss.itemservicedb.cache;
+
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import org.springframework.util.StringUtils;
+
+/**
+ * 검색 결과 캐시 키 = 정규화한 검색 조건 + 데이터 버전
+ *
+ * 정규화: 레포지토리들이 같은 쿼리로 처리하는 조건은 같은 키가 되도록 (상품명이 null / "" / 공백이면 조건 없음)
+ * 데이터 버전: 쓰기가 있을 때마다 올라감 => 쓰기 전에 캐시된 결과는 키가 달라져서 다시 안 쓰임 (Caffeine 이 알아서 방출)
+ */
+record ItemSearchKey(String itemName, ItemNameMatch nameMatch, Integer maxPrice, Long afterId, Long beforeId, Integer size, long dataVersion) {
+
+    static ItemSearchKey of(ItemSearchCond cond, long dataVersion) {
+        String itemName = StringUtils.hasText(cond.getItemName()) ? cond.getItemName() : null;
+        ItemNameMatch nameMatch = itemName == null ? null : cond.getNameMatch();       // 상품명 조건이 없으면 검색 방식도 상관없음
+        return new ItemSearchKey(itemName, nameMatch, cond.getMaxPrice(), cond.getAfterId(), cond.getBeforeId(), cond.getSize(), dataVersion);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.riss.itemservicedb.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 같은 JVM 안의 구독자들에게 바로(publish 한 스레드에서) 전달
+ * 테스트에서는 CachingItemService 여러 개를 이 채널 하나에 붙여서 노드 여러 대처럼 씀
+ */
+public class LoopbackItemCacheInvalidationChannel implements ItemCacheInvalidationChannel {
+
+    private final List<Consumer<ItemCacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ItemCacheInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<ItemCacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,23 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.columnar.ColumnarItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.ItemServiceV1;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ColumnarConfig {
+
+    @Bean
+    public ItemService itemService() {
+        return new ItemServiceV1(itemRepository());
+    }
+
+    @Bean
+    public ItemRepository itemRepository() {
+        return new ColumnarItemRepository();
+    }
+
+}
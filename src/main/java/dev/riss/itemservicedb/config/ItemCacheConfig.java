@@ -0,0 +1,53 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.cache.ItemCacheInvalidationChannel;
+import dev.riss.itemservicedb.cache.ItemFragmentCache;
+import dev.riss.itemservicedb.cache.LoopbackItemCacheInvalidationChannel;
+import dev.riss.itemservicedb.service.ItemService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * DB 기술 Config(ItemService 빈 이름 "itemService") 와 같이 @Import 하면 findById / 검색 결과 캐시를 씌움
+ * 컨트롤러는 @Primary 인 cachingItemService 를 주입받음
+ * 상품 목록 화면은 표 HTML 까지 캐시 (itemFragmentCache)
+ *
+ * item.cache.enabled=false 면 캐시 없이 원래 ItemService 그대로
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemCacheConfig {
+
+    @Bean
+    @Primary
+    public CachingItemService cachingItemService (@Qualifier("itemService") ItemService itemService,
+                                                  ObjectProvider<ItemCacheInvalidationChannel> itemCacheInvalidationChannel,
+                                                  @Value("${item.cache.maximum-size:10000}") long maximumSize,
+                                                  @Value("${item.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                                  @Value("${item.cache.search-maximum-items:100000}") long searchMaximumItems,
+                                                  @Value("${item.cache.search-expire-after-write:1m}") Duration searchExpireAfterWrite,
+                                                  @Value("${item.cache.search-wait:3s}") Duration searchWait) {
+        // 다른 노드로 보내는 채널 빈(Redis, Kafka 등) 이 따로 등록돼있으면 그걸, 없으면 같은 JVM 안에서만 전달
+        // (@Import 한 설정 클래스에서는 빈 등록 순서가 보장되지 않아 @ConditionalOnMissingBean 을 믿을 수 없음 => ObjectProvider 로 대체)
+        return new CachingItemService(itemService, itemCacheInvalidationChannel.getIfAvailable(LoopbackItemCacheInvalidationChannel::new),
+                new CachingItemService.CacheSpec(maximumSize, expireAfterWrite),
+                new CachingItemService.CacheSpec(searchMaximumItems, searchExpireAfterWrite), searchWait);
+    }
+
+    // 상품 목록 화면의 표 HTML 캐시 (ItemController). 데이터 버전은 위 cachingItemService 것을 같이 씀
+    @Bean
+    public ItemFragmentCache itemFragmentCache (CachingItemService cachingItemService,
+                                                @Value("${item.cache.fragment-maximum-size:16MB}") DataSize maximumSize,
+                                                @Value("${item.cache.fragment-expire-after-write:1m}") Duration expireAfterWrite) {
+        return new ItemFragmentCache(cachingItemService, maximumSize.toBytes(), expireAfterWrite);
+    }
+}
@@ -0,0 +1,23 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.metrics.ItemTimingPostProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * DB 기술 Config 와 같이 @Import 하면 ItemRepository / ItemService 메서드마다 실행 시간 측정 (ItemTimingPostProcessor)
+ * 커넥션 풀(HikariCP) 지표는 스프링부트 액추에이터가 알아서 등록 (hikaricp.connections.*)
+ *
+ * 확인: /actuator/prometheus, /actuator/metrics/item.repository?tag=operation:findAll
+ */
+@Configuration
+public class ItemMetricsConfig {
+
+    // 빈 후처리기는 다른 빈보다 먼저 만들어지므로 static (이 Config 인스턴스를 일찍 만들지 않도록)
+    @Bean
+    public static ItemTimingPostProcessor itemTimingPostProcessor (ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ItemTimingPostProcessor(meterRegistry);
+    }
+}
@@ -6,6 +6,7 @@ import dev.riss.itemservicedb.repository.mybatis.MybatisItemRepository;
 import dev.riss.itemservicedb.service.ItemService;
 import dev.riss.itemservicedb.service.ItemServiceV1;
 import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 public class MyBatisConfig {
 
     private final ItemMapper itemMapper;
+    private final SqlSessionFactory sqlSessionFactory;      // saveAll 의 BATCH 세션용
     // MyBatis 모듈이 dataSource 나 TransactionManager 같은 것들을 다 읽어서 Mapper 랑 다 연결시켜줌 (알아서 해줌)
 
     @Bean
@@ -23,7 +25,7 @@ public class MyBatisConfig {
 
     @Bean
     public ItemRepository itemRepository () {
-        return new MybatisItemRepository(itemMapper);
+        return new MybatisItemRepository(itemMapper, sqlSessionFactory);
     }
 
 }
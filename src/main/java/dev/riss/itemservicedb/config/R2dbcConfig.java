@@ -0,0 +1,77 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.repository.ReactiveItemRepository;
+import dev.riss.itemservicedb.repository.r2dbc.R2dbcItemRepository;
+import dev.riss.itemservicedb.service.ReactiveItemService;
+import dev.riss.itemservicedb.service.ReactiveItemServiceV1;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * 리액티브 ItemService (R2DBC). 다른 DB 기술 Config 와 같이 @Import 해서 씀 (ItemService 빈과는 별개)
+ *
+ *  - 접속 정보는 spring.datasource.* 를 그대로 씀 (jdbc:h2:... => H2 R2DBC 드라이버) => JDBC 쪽과 같은 DB 를 봄
+ *    테스트처럼 url 이 없으면 스프링부트가 만든 임베디드 DB 이름도 같이 따라감
+ *  - ConnectionFactory(커넥션 풀) 는 빈으로 등록하지 않음
+ *    => ConnectionFactory 빈이 있으면 스프링부트가 JDBC DataSource 자동 구성을 꺼버림 (R2DBC 앱으로 봄)
+ *       같은 이유로 R2DBC 자동 구성(R2dbcAutoConfiguration) 도 application.properties 에서 제외해둠
+ *  - 읽기/쓰기 분리(ReplicaRoutingConfig) 와 SQL 문 집계(SqlStatementConfig) 는 JDBC DataSource 에만 걸림 => 여기는 항상 primary, 집계 x
+ *  - 쓰기는 ItemService 를 거치지 않으므로 캐시(CachingItemService) 가 있으면 쓴 상품을 직접 무효화
+ *
+ * H2 전용이라 item.r2dbc.enabled=true 일 때만 만듦 (기본은 false => /reactive/items 는 404) => 다른 DB 로 바꿔도 앱은 그대로 뜸
+ * 테스트(test application.properties) 와 ReactiveListingBenchmark(BenchmarkContext) 는 켜서 씀
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.r2dbc.enabled", havingValue = "true")
+public class R2dbcConfig implements DisposableBean {
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    private final ConnectionPool connectionPool;
+
+    public R2dbcConfig(DataSourceProperties properties,
+                       @Value("${item.r2dbc.pool.max-size:10}") int maxSize) {
+        String url = properties.determineUrl();
+        if (url == null || !url.startsWith(H2_URL_PREFIX)) {
+            throw new IllegalStateException("R2dbcConfig supports H2 only: " + url);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_URL_PREFIX.length()))
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build();
+        // 커넥션은 처음 요청할 때 만듦 (initialSize 0)
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .name("r2dbc")
+                .initialSize(0)
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public ReactiveItemService reactiveItemService (ObjectProvider<CachingItemService> cachingItemService) {
+        return new ReactiveItemServiceV1(reactiveItemRepository(),
+                itemId -> cachingItemService.ifAvailable(cache -> cache.invalidate(itemId)));
+    }
+
+    @Bean
+    public ReactiveItemRepository reactiveItemRepository () {
+        return new R2dbcItemRepository(DatabaseClient.create(connectionPool));
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,88 @@
+package dev.riss.itemservicedb.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import dev.riss.itemservicedb.datasource.ReadYourWritesFilter;
+import dev.riss.itemservicedb.datasource.ReplicaDataSources;
+import dev.riss.itemservicedb.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 분리. item.datasource.replica-urls 가 있을 때만 (없으면 스프링부트 기본 DataSource 하나)
+ *
+ *  - primary: spring.datasource.* 그대로 (Flyway 도 여기에만)
+ *  - replica: replica-urls 마다 커넥션 풀 하나 (계정은 primary 와 같음, 풀은 readOnly)
+ *  - dataSource 빈 = LazyConnectionDataSourceProxy(ReplicaRoutingDataSource)
+ *    => 어떤 DB 기술 Config 와도 같이 @Import 가능 (모두 이 DataSource 와 트랜잭션의 readOnly 를 봄)
+ *  - 풀은 빈이 아니라서(빈이면 SqlStatementConfig 가 감싸고, DataSource 후보가 여러 개가 됨) 스프링부트가 해주던 것을 직접
+ *    spring.datasource.hikari.* 를 풀마다 바인딩 (replica 전용 설정은 그 뒤에 덮어씀)
+ *    hikaricp.* 지표도 풀마다 등록 (pool 태그 = primary, replica-1, ...). 스프링부트는 DataSource 빈에서 Hikari 를 꺼내지 못하면 등록을 건너뜀
+ *
+ * 로컬 확인: 임베디드 H2 여러 개로 (ReplicaRoutingTest)
+ *  --item.datasource.replica-urls=jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:replica2;DB_CLOSE_DELAY=-1
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.datasource.replica-urls")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaDataSources replicaDataSources (DataSourceProperties properties, Environment environment,
+                                                  ObjectProvider<MeterRegistry> meterRegistry,
+                                                  @Value("${item.datasource.replica-urls}") List<String> replicaUrls,
+                                                  @Value("${item.datasource.replica-health-interval:5s}") Duration healthCheckInterval,
+                                                  @Value("${item.datasource.replica-connection-timeout:1s}") Duration replicaConnectionTimeout) {
+        Binder binder = Binder.get(environment);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+
+        HikariDataSource primary = pool(properties.initializeDataSourceBuilder().type(HikariDataSource.class).build(), binder, registry);
+        primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = pool(properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .build(), binder, registry);
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            // 죽은 replica 를 기다리느라 읽기가 늦어지지 않도록 짧게 (못 받으면 primary 에서 읽음)
+            replica.setConnectionTimeout(replicaConnectionTimeout.toMillis());
+            replicas.add(replica);
+        }
+        return new ReplicaDataSources(primary, replicas, healthCheckInterval);
+    }
+
+    // 스프링부트 기본 DataSource 와 같은 풀 설정(spring.datasource.hikari.*) + 지표. 둘 다 풀이 시작되기 전(첫 커넥션 전) 에 해야 함
+    private static HikariDataSource pool (HikariDataSource pool, Binder binder, MeterRegistry registry) {
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        if (registry != null) pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource (ReplicaDataSources replicaDataSources,
+                                  @Value("${item.datasource.read-your-writes:0s}") Duration readYourWritesWindow) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaDataSources, readYourWritesWindow));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter (@Value("${item.datasource.read-your-writes:0s}") Duration readYourWritesWindow) {
+        return new ReadYourWritesFilter(readYourWritesWindow);
+    }
+}
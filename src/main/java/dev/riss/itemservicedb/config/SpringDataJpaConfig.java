@@ -5,6 +5,7 @@ import dev.riss.itemservicedb.repository.jpa.JpaItemRepositoryV2;
 import dev.riss.itemservicedb.repository.jpa.SpringDataJpaItemRepository;
 import dev.riss.itemservicedb.service.ItemService;
 import dev.riss.itemservicedb.service.ItemServiceV1;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +15,7 @@ import org.springframework.context.annotation.Configuration;
 public class SpringDataJpaConfig {
 
     private final SpringDataJpaItemRepository repository;
+    private final EntityManager em;
 
     @Bean
     public ItemService itemService () {
@@ -22,7 +24,7 @@ public class SpringDataJpaConfig {
 
     @Bean
     public ItemRepository itemRepository () {
-        return new JpaItemRepositoryV2(repository);
+        return new JpaItemRepositoryV2(repository, em);
     }
 
 }
@@ -0,0 +1,40 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.metrics.CountingDataSource;
+import dev.riss.itemservicedb.metrics.SqlStatementFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 요청별 SQL 문 수 / DB 시간 집계, 느린 쿼리 로그, N+1 검사
+ * DataSource 빈을 CountingDataSource 로 감싸므로 어떤 DB 기술 Config 와도 같이 @Import 가능
+ */
+@Configuration
+public class SqlStatementConfig {
+
+    // DataSource 빈이 만들어지면 바로 감쌈 (JdbcTemplate, MyBatis, JPA 가 받기 전에)
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor (@Value("${sql.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+                    return new CountingDataSource(dataSource, slowQueryThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatementFilter sqlStatementFilter (@Value("${sql.request.statement-budget:0}") int statementBudget,
+                                                  @Value("${sql.request.repeat-limit:0}") int repeatLimit,
+                                                  @Value("${sql.request.fail-over-budget:false}") boolean failOverBudget) {
+        return new SqlStatementFilter(statementBudget, repeatLimit, failOverBudget);
+    }
+}
@@ -0,0 +1,42 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.stock.DirectStockReservations;
+import dev.riss.itemservicedb.stock.StockReservations;
+import dev.riss.itemservicedb.stock.StripedStockReservations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 재고 차감 API(StockApiController) 가 쓰는 StockReservations. 어떤 DB 기술 Config 와도 같이 @Import (ItemService 만 씀)
+ *
+ *  - 기본: 요청마다 조건부 UPDATE 한 문장 (DirectStockReservations)
+ *  - item.stock.striped.enabled=true: 인기 상품 재고를 lease-size 개씩 떼어 와서 메모리에서 나눠주고 flush-interval 마다 남은 걸 돌려줌
+ *    (StripedStockReservations, DB 의 quantity 가 그만큼 늦게 맞춰짐)
+ *  ItemService 는 @Primary (캐시를 켰으면 CachingItemService) => DB 에 쓸 때마다 캐시도 무효화
+ */
+@Configuration
+public class StockConfig {
+
+    // 컨텍스트가 닫힐 때 close 로 남은 재고를 DB 에 돌려줌
+    @Bean
+    @ConditionalOnProperty(name = "item.stock.striped.enabled", havingValue = "true")
+    public StripedStockReservations stripedStockReservations (ItemService itemService,
+                                                              @Value("${item.stock.striped.lease-size:100}") int leaseSize,
+                                                              @Value("${item.stock.striped.stripes:0}") int stripes,
+                                                              @Value("${item.stock.striped.flush-interval:200ms}") Duration flushInterval,
+                                                              @Value("${item.stock.striped.idle-timeout:10s}") Duration idleTimeout) {
+        return new StripedStockReservations(itemService, leaseSize, stripes, flushInterval, idleTimeout);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public StockReservations stockReservations (ItemService itemService) {
+        return new DirectStockReservations(itemService);
+    }
+}
@@ -0,0 +1,87 @@
+package dev.riss.itemservicedb.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.riss.itemservicedb.datasource.ReplicaDataSources;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 가상 스레드(Java 21+) 실행 모드. item.threads.virtual=true 일 때만 (application-virtual.properties, --spring.profiles.active=local,virtual)
+ *
+ *  - 톰캣: 요청마다 가상 스레드 하나 (기본 플랫폼 스레드 풀 200개 대신) => JDBC 로 기다리는 동안 캐리어 스레드를 놓아줌
+ *  - applicationTaskExecutor: 스프링 MVC 비동기 요청(StreamingResponseBody export 의 streamItems) 도 가상 스레드에서
+ *
+ * 고정(pinning) 주의: synchronized 안에서 블로킹하면 가상 스레드가 캐리어 스레드를 붙잡은 채로 기다림
+ *  - H2 2.1 드라이버: JdbcPreparedStatement.execute* 가 세션에 synchronized, tcp 모드(SessionRemote) 는 그 안에서 소켓 I/O
+ *    => 쿼리 하나 동안 캐리어 하나가 묶임
+ *  - HikariCP 5.0: 커넥션 대여/반납(ConcurrentBag) 은 synchronized 없음. trackStatement 같은 짧은 synchronized 만
+ *  => 동시에 묶일 수 있는 캐리어 수 = 커넥션 풀 크기. 풀이 캐리어 수(CPU 코어) 이상이면 캐리어가 다 묶여서 다른 요청이 못 돎
+ *     시작할 때 검사해서 경고 (풀을 줄이거나 -Djdk.virtualThreadScheduler.parallelism 을 늘림)
+ *     읽기/쓰기 분리(ReplicaRoutingConfig) 면 primary + replica 풀을 동시에 다 쓸 수 있으므로 합계로
+ *  - 확인: -Djdk.tracePinnedThreads=short 로 띄우면 고정된 스택이 출력됨
+ *
+ * 컴파일은 Java 17 이므로 가상 스레드 API 는 리플렉션으로 꺼냄 (Java 21 미만에서 켜면 시작할 때 실패)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "item.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer () {
+        return protocolHandler -> protocolHandler.setExecutor(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor () {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public SmartInitializingSingleton virtualThreadPoolCheck (DataSource dataSource, ObjectProvider<ReplicaDataSources> replicaDataSources) {
+        return () -> {
+            List<HikariDataSource> pools = connectionPools(dataSource, replicaDataSources.getIfAvailable());
+            if (pools.isEmpty()) return;
+            int carriers = Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+            int poolSize = pools.stream().mapToInt(HikariDataSource::getMaximumPoolSize).sum();
+            if (poolSize >= carriers) {
+                log.warn("connection pool size {} >= virtual thread carriers {}: JDBC calls pinned in synchronized driver code can occupy every carrier. " +
+                        "Lower spring.datasource.hikari.maximum-pool-size or raise -Djdk.virtualThreadScheduler.parallelism", poolSize, carriers);
+            } else {
+                log.info("virtual threads enabled, carriers={}, connection pool={}", carriers, poolSize);
+            }
+        };
+    }
+
+    // 라우팅 DataSource 는 풀을 감싼 게 아니라 골라 쓰는 것이라 unwrap 으로 안 나옴 => ReplicaDataSources 에서
+    public static List<HikariDataSource> connectionPools (DataSource dataSource, ReplicaDataSources replicaDataSources) {
+        if (replicaDataSources != null) return replicaDataSources.pools();
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        return hikari == null ? List.of() : List.of(hikari);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() (Java 21)
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("item.threads.virtual=true requires Java 21 or later (running " + Runtime.version() + ")", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
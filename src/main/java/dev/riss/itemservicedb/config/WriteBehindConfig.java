@@ -0,0 +1,36 @@
+package dev.riss.itemservicedb.config;
+
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.writebehind.WriteBehindPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * write-behind 모드. item.write-behind.enabled=true 일 때만 (WriteBehindItemService)
+ * 버전 확인 없는 상품 수정을 로컬 로그(item.write-behind.directory) 에 fsync 하고 바로 응답, DB 에는 flush-interval 마다 batch-size 개씩 모아서
+ * 버전을 보내는 수정(수정 폼, If-Match) 은 대상이 아님 => 그대로 조건부 UPDATE (WriteBehindItemService 참고)
+ * 어떤 DB 기술 Config 와도 같이 @Import 가능 ("itemService" 빈을 감쌈, 캐시(ItemCacheConfig) 는 그 위에)
+ *
+ * 로그 디렉터리는 노드마다 따로 (같은 디렉터리를 두 프로세스가 쓰면 안 됨)
+ */
+@Configuration
+@ConditionalOnProperty(name = "item.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+
+    // 빈 후처리기는 다른 빈보다 먼저 만들어지므로 static (ItemMetricsConfig 와 같음)
+    @Bean
+    public static WriteBehindPostProcessor writeBehindPostProcessor (ObjectProvider<PlatformTransactionManager> transactionManager,
+                                                                     ObjectProvider<CachingItemService> cachingItemService,
+                                                                     @Value("${item.write-behind.directory:wal}") Path logDirectory,
+                                                                     @Value("${item.write-behind.flush-interval:100ms}") Duration flushInterval,
+                                                                     @Value("${item.write-behind.batch-size:500}") int batchSize) {
+        return new WriteBehindPostProcessor(transactionManager, cachingItemService, logDirectory, flushInterval, batchSize);
+    }
+}
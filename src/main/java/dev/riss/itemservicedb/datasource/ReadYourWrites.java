@@ -0,0 +1,49 @@
+package dev.riss.itemservicedb.datasource;
+
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * 현재 스레드(요청) 의 마지막 쓰기 시각 => 쓰고 나서 window 동안은 읽기도 primary 로 (복제 지연 때문에 방금 쓴 게 안 보이는 일 방지)
+ *
+ * 스레드만으로는 다음 요청(ex. 저장 후 redirect 된 GET /items/{id}) 까지 이어지지 않으므로
+ * ReadYourWritesFilter 가 쿠키에서 꺼내서 넣어주고, 쓰기가 생기면 onWrite 로 쿠키를 다시 심음
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<State> CURRENT = ThreadLocal.withInitial(State::new);
+
+    private ReadYourWrites() {
+    }
+
+    private static final class State {
+        long lastWriteMillis;
+        LongConsumer onWrite;
+    }
+
+    /**
+     * @param lastWriteMillis 이전 요청에서 쓴 시각 (없으면 0)
+     * @param onWrite         이 요청에서 쓰기가 생기면 그 시각으로 호출 (null 이면 없음)
+     */
+    public static void bind(long lastWriteMillis, LongConsumer onWrite) {
+        State state = CURRENT.get();
+        state.lastWriteMillis = lastWriteMillis;
+        state.onWrite = onWrite;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void markWrite() {
+        State state = CURRENT.get();
+        state.lastWriteMillis = System.currentTimeMillis();
+        if (state.onWrite != null) state.onWrite.accept(state.lastWriteMillis);
+    }
+
+    public static boolean isRecent(Duration window) {
+        long last = CURRENT.get().lastWriteMillis;
+        long elapsed = System.currentTimeMillis() - last;
+        return last > 0 && elapsed >= 0 && elapsed < window.toMillis();     // 미래 시각이면 무시 (계속 primary 에 묶이지 않도록)
+    }
+}
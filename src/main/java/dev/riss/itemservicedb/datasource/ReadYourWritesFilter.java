@@ -0,0 +1,66 @@
+package dev.riss.itemservicedb.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * read-your-writes 를 요청 사이에 이어줌
+ * 쓰기가 커밋되면 그 시각을 쿠키로 내려주고, 다음 요청에서 쿠키를 읽어서 ReadYourWrites 에 넣음
+ * => 상품 저장 후 redirect 된 상세 조회도 window 안이면 primary 에서 읽음 (replica 에 아직 복제 안 됐어도 보임)
+ *
+ * 쿠키는 응답이 커밋되기 전(컨트롤러가 서비스를 호출한 시점) 에 붙이므로 redirect 응답에도 실림
+ * window 가 0 이면 아무것도 안 함
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE_NAME = "item-last-write";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (window.isZero()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReadYourWrites.bind(lastWrite(request), writtenAt -> {
+            if (response.isCommitted()) return;
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(writtenAt));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            response.addCookie(cookie);
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadYourWrites.clear();
+        }
+    }
+
+    // 쿠키는 클라이언트가 마음대로 고칠 수 있음 => 지금보다 뒤의 시각은 버림 (아니면 그 시각까지 계속 primary 에서 읽게 됨)
+    private static long lastWrite(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) return 0;
+        try {
+            long lastWrite = Long.parseLong(cookie.getValue());
+            return lastWrite > System.currentTimeMillis() ? 0 : lastWrite;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
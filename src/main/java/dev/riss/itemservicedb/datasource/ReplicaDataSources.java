@@ -0,0 +1,111 @@
+package dev.riss.itemservicedb.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * primary 1개 + replica N개 커넥션 풀과 replica 상태
+ *
+ *  - nextReplica: 살아있는 replica 를 돌아가면서 (round-robin). 다 죽었으면 null => primary 로
+ *  - 상태 확인: healthCheckInterval 마다 커넥션을 하나 받아서 isValid. 죽은 replica 도 계속 확인하다가 살아나면 다시 씀
+ *  - 커넥션을 못 받은 replica 는 다음 확인 때까지 바로 빼버림 (markDown)
+ *
+ * DataSource 가 아니므로 빈으로 등록해도 CountingDataSource 로 감싸지지 않음. 컨텍스트 종료 때 close 로 풀 정리
+ */
+@Slf4j
+public class ReplicaDataSources implements AutoCloseable {
+
+    public record Replica(String name, DataSource dataSource) {
+    }
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicaPools;
+    private final List<Replica> replicas;
+    private final AtomicIntegerArray healthy;      // 1 = up (모든 읽기가 보는 값이라 락 없이)
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaDataSources(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicaPools = List.copyOf(replicaPools);
+        this.replicas = replicaPools.stream().map(pool -> new Replica(pool.getPoolName(), pool)).toList();
+        this.healthy = new AtomicIntegerArray(replicas.size());
+        checkHealth();
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    // primary + replica 풀 전부 (VirtualThreadConfig 가 풀 크기 합계를 봄)
+    public List<HikariDataSource> pools() {
+        List<HikariDataSource> pools = new ArrayList<>(replicaPools.size() + 1);
+        pools.add(primary);
+        pools.addAll(replicaPools);
+        return pools;
+    }
+
+    /**
+     * @return 살아있는 replica 중 다음 차례, 없으면 null
+     */
+    public Replica nextReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            if (healthy.get(index) == 1) return replicas.get(index);
+        }
+        return null;
+    }
+
+    public void markDown(Replica replica) {
+        setHealthy(replicas.indexOf(replica), false);
+    }
+
+    public void checkHealth() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean up;
+            try (Connection connection = replicas.get(i).dataSource().getConnection()) {
+                up = connection.isValid(1);
+            } catch (Exception e) {
+                up = false;
+            }
+            setHealthy(i, up);
+        }
+    }
+
+    private void setHealthy(int index, boolean up) {
+        if (index < 0 || healthy.getAndSet(index, up ? 1 : 0) == (up ? 1 : 0)) return;
+        log.info("replica {} is {}", replicas.get(index).name(), up ? "up" : "down");
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicaPools.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
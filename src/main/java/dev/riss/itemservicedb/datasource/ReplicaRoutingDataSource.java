@@ -0,0 +1,73 @@
+package dev.riss.itemservicedb.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true)) 은 replica, 나머지는 primary 로 커넥션을 나눠주는 DataSource
+ *
+ *  - 트랜잭션 매니저는 readOnly 표시를 하기 전에 커넥션부터 받으므로, 꼭 LazyConnectionDataSourceProxy 로 감싸서 씀
+ *    => 첫 SQL 을 실행할 때 실제 커넥션을 고르므로 그때는 readOnly 여부가 정해져 있음 (ReplicaRoutingConfig)
+ *  - JdbcTemplate, MyBatis, JPA 모두 같은 트랜잭션 동기화(TransactionSynchronizationManager) 를 보므로 기술과 상관없이 동작
+ *  - read-your-writes: 쓰기가 커밋된 뒤 readYourWritesWindow 동안은 같은 사용자의 읽기도 primary 로 (ReadYourWrites)
+ *    primary 커넥션이라고 다 쓰기는 아니므로, 실제로 쓰기 SQL 이 나간 커넥션만 (WriteDetectingConnection)
+ *  - replica 커넥션을 못 받으면 그 replica 는 빼고 primary 로
+ *
+ * 트랜잭션 없이 나가는 SQL 은 쓰기일 수도 있으므로 primary
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final ReplicaDataSources dataSources;
+    private final Duration readYourWritesWindow;
+
+    public ReplicaRoutingDataSource(ReplicaDataSources dataSources, Duration readYourWritesWindow) {
+        this.dataSources = dataSources;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return WriteDetectingConnection.wrap(dataSources.primary().getConnection(), ReplicaRoutingDataSource::markWrite);
+        }
+        if (!readYourWritesWindow.isZero() && ReadYourWrites.isRecent(readYourWritesWindow)) {
+            return dataSources.primary().getConnection();
+        }
+
+        ReplicaDataSources.Replica replica = dataSources.nextReplica();
+        if (replica == null) return dataSources.primary().getConnection();
+        try {
+            return replica.dataSource().getConnection();
+        } catch (SQLException e) {
+            log.warn("replica {} unavailable, reading from primary", replica.name(), e);
+            dataSources.markDown(replica);
+            return dataSources.primary().getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return WriteDetectingConnection.wrap(dataSources.primary().getConnection(username, password), ReplicaRoutingDataSource::markWrite);
+    }
+
+    // 쓰기 SQL 이 처음 나갈 때 => 트랜잭션이면 커밋된 다음에(롤백되면 안 함), 아니면 바로
+    private static void markWrite() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ReadYourWrites.markWrite();
+                }
+            });
+        } else {
+            ReadYourWrites.markWrite();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dev.riss.itemservicedb.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * primary 커넥션에서 쓰기 SQL 이 나가는지 보고 있다가, 처음 나갈 때 onWrite 를 한 번 호출
+ *
+ * 트랜잭션이 readOnly 가 아니라고 다 쓰기는 아님 (ex. 클래스 레벨 @Transactional 의 조회 메서드)
+ * => 실제로 SELECT 가 아닌 SQL 을 준비/실행했을 때만 쓰기로 봄
+ *  - prepareStatement / prepareCall: 준비하는 SQL 로 판단 (JdbcTemplate, MyBatis, 하이버네이트 모두 이 경로)
+ *  - createStatement: 돌려주는 Statement 도 감싸서 execute*(sql) / addBatch(sql) 의 SQL 로 판단
+ */
+final class WriteDetectingConnection implements InvocationHandler {
+
+    private final Connection target;
+    private final Runnable onWrite;
+    private boolean written;
+
+    private WriteDetectingConnection(Connection target, Runnable onWrite) {
+        this.target = target;
+        this.onWrite = onWrite;
+    }
+
+    static Connection wrap(Connection target, Runnable onWrite) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new WriteDetectingConnection(target, onWrite));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("prepare") && args != null && args[0] instanceof String sql) check(sql);
+
+        Object result = invokeTarget(target, method, args);
+        if (result instanceof Statement statement && name.equals("createStatement")) {
+            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                    (statementProxy, statementMethod, statementArgs) -> {
+                        if ((statementMethod.getName().startsWith("execute") || statementMethod.getName().equals("addBatch"))
+                                && statementArgs != null && statementArgs[0] instanceof String sql) check(sql);
+                        return invokeTarget(statement, statementMethod, statementArgs);
+                    });
+        }
+        return result;
+    }
+
+    private void check(String sql) {
+        if (written || !isWrite(sql)) return;
+        written = true;
+        onWrite.run();
+    }
+
+    // SELECT / WITH(조회용 CTE) / VALUES 가 아니면 쓰기로 봄 (SELECT ... FOR UPDATE 는 읽기로)
+    static boolean isWrite(String sql) {
+        String head = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return !(head.startsWith("select") || head.startsWith("with") || head.startsWith("values"));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -15,6 +15,11 @@ public class Item {
     private Integer price;
     private Integer quantity;
 
+    // 낙관적 락. JPA 는 변경 감지로 UPDATE 할 때 WHERE version = ? 을 붙이고 +1 해줌 (벌크 UPDATE/JDBC 는 직접 +1, ItemUpdates)
+    // 새로 저장할 때는 null 로 둠 (스프링 데이터 JPA 는 version 이 null 이면 새 엔티티로 보고 persist)
+    @Version
+    private Long version;
+
     // JPA 는 protect 이상 레벨의 기본 생성자 필수 (프록시 객체 생성 때문에 필요)
     public Item() {
     }
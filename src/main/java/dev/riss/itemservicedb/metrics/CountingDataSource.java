@@ -0,0 +1,106 @@
+package dev.riss.itemservicedb.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 실행되는 SQL 문을 세고 시간을 재는 DataSource (JdbcTemplate, MyBatis, JPA 모두 결국 이 DataSource 의 커넥션을 씀)
+ *
+ * Connection -> Statement 를 JDK 프록시로 감싸서 execute* 호출마다
+ *  - SqlStatementScope 에 기록 (현재 스레드에 열려있는 scope 가 있으면)
+ *  - slowQueryThreshold 이상 걸리면 SQL + 바인딩된 파라미터를 경고 로그로
+ * executeBatch 는 DB 왕복 한 번이므로 한 문장으로 셈
+ *
+ * unwrap/isWrapperFor 는 DelegatingDataSource 가 원래 DataSource(HikariDataSource) 로 넘겨줌 => 커넥션 풀 지표도 그대로
+ */
+@Slf4j
+public class CountingDataSource extends DelegatingDataSource {
+
+    private final long slowQueryNanos;
+
+    public CountingDataSource(DataSource target, Duration slowQueryThreshold) {
+        super(target);
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(super.getConnection(username, password));
+    }
+
+    private Connection proxyConnection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "prepareStatement" -> proxyStatement(PreparedStatement.class, (PreparedStatement) result, (String) args[0]);
+                case "prepareCall" -> proxyStatement(CallableStatement.class, (CallableStatement) result, (String) args[0]);
+                case "createStatement" -> proxyStatement(Statement.class, (Statement) result, null);
+                default -> result;
+            };
+        });
+    }
+
+    /**
+     * @param preparedSql PreparedStatement 면 준비된 SQL, Statement 면 null (execute(sql) 의 인자를 씀)
+     */
+    private <T extends Statement> T proxyStatement(Class<T> type, T statement, String preparedSql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(type, statement, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute")) {
+                String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : "batch";
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    SqlStatementScope.record(sql, elapsed);
+                    if (elapsed >= slowQueryNanos) {
+                        log.warn("slow query {}ms: {} parameters={}", Duration.ofNanos(elapsed).toMillis(), sql, parameters.values());
+                    }
+                }
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(method, args)));
+    }
+}
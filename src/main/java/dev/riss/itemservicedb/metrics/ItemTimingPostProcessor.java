@@ -0,0 +1,127 @@
+package dev.riss.itemservicedb.metrics;
+
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.service.ItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ItemRepository / ItemService 빈의 모든 인터페이스 메서드 실행 시간을 Timer 로 기록
+ *
+ *  - item.repository / item.service (프로메테우스: item_repository_seconds_bucket ...)
+ *  - 태그: implementation(구현 클래스), operation(메서드), predicate(검색 조건: none/name/price/name_price), exception
+ *  - 퍼센타일 히스토그램을 같이 내보냄 => 프로메테우스에서 histogram_quantile 로 p99 계산 (노드 여러 개도 합쳐서 계산 가능)
+ *
+ * 이미 프록시(@Transactional 등)인 빈은 새로 감싸지 않고 맨 앞에 advisor 만 추가 => 트랜잭션 커밋 시간까지 포함
+ * 클래스 기반 프록시(CGLIB) 라서 구현 클래스 타입으로 주입받는 곳(ex. CachingItemService) 도 그대로 동작
+ */
+public class ItemTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public static final String REPOSITORY_TIMER = "item.repository";
+    public static final String SERVICE_TIMER = "item.service";
+
+    public ItemTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        // 빈 후처리기는 먼저 만들어지므로 레지스트리는 처음 호출될 때 꺼냄
+        this.advisor = new DefaultPointcutAdvisor(new ItemMethodPointcut(), new TimingInterceptor(meterRegistry::getObject));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    /**
+     * 검색 조건 태그 값. 조건이 없는 메서드(save, findById ...) 와 조건을 하나도 안 넣은 검색은 none
+     */
+    static String predicate(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof ItemSearchCond cond) {
+                boolean name = StringUtils.hasText(cond.getItemName());
+                boolean price = cond.getMaxPrice() != null;
+                if (name && price) return "name_price";
+                if (name) return "name";
+                if (price) return "price";
+            }
+        }
+        return "none";
+    }
+
+    // ItemRepository / ItemService 에 선언된 메서드만 (구현 클래스에만 있는 stats() 같은 건 제외)
+    private static class ItemMethodPointcut extends StaticMethodMatcherPointcut {
+
+        ItemMethodPointcut() {
+            setClassFilter(clazz -> ItemRepository.class.isAssignableFrom(clazz) || ItemService.class.isAssignableFrom(clazz));
+        }
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return ClassUtils.hasMethod(ItemRepository.class, method) || ClassUtils.hasMethod(ItemService.class, method);
+        }
+    }
+
+    private static class TimingInterceptor implements MethodInterceptor {
+
+        private final Supplier<MeterRegistry> registry;
+        // Timer.builder().register() 는 호출마다 태그/ID 를 새로 만들므로 조합별로 한 번만 등록
+        private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+        TimingInterceptor(Supplier<MeterRegistry> registry) {
+            this.registry = registry;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            String exception = "none";
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                Class<?> target = AopProxyUtils.ultimateTargetClass(invocation.getThis());
+                TimerKey key = new TimerKey(ItemService.class.isAssignableFrom(target) ? SERVICE_TIMER : REPOSITORY_TIMER,
+                        target.getSimpleName(), invocation.getMethod().getName(), predicate(invocation.getArguments()), exception);
+                record(key, System.nanoTime() - start);
+            }
+        }
+
+        // 컨텍스트가 닫히는 중(빈 정리 중 close 에서 반영 등) 에는 레지스트리를 못 꺼냄 => 기록만 건너뜀 (호출 결과를 예외로 덮지 않음)
+        private void record(TimerKey key, long nanos) {
+            Timer timer;
+            try {
+                timer = timers.computeIfAbsent(key, this::register);
+            } catch (BeanCreationNotAllowedException e) {
+                return;
+            }
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        private Timer register(TimerKey key) {
+            return Timer.builder(key.name())
+                    .tag("implementation", key.implementation())
+                    .tag("operation", key.operation())
+                    .tag("predicate", key.predicate())
+                    .tag("exception", key.exception())
+                    .publishPercentileHistogram()
+                    .register(registry.get());
+        }
+    }
+
+    private record TimerKey(String name, String implementation, String operation, String predicate, String exception) {
+    }
+}
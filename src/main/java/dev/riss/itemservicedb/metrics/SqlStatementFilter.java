@@ -0,0 +1,56 @@
+package dev.riss.itemservicedb.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * HTTP 요청마다 SqlStatementScope 를 열어서 SQL 문 수 / DB 시간을 집계 (요청 속성 ATTRIBUTE 로도 꺼낼 수 있음)
+ *
+ *  - statementBudget: 요청 하나에서 허용하는 SQL 문 수 (0 이면 검사 안 함)
+ *  - repeatLimit: 같은 SQL 이 이 횟수를 넘게 반복되면 N+1 의심 (0 이면 검사 안 함)
+ *  - failOverBudget: 위반하면 경고 로그 대신 예외 => 테스트에서 켜두면 쿼리가 늘어난 엔드포인트가 바로 실패
+ */
+@Slf4j
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = SqlStatementScope.class.getName();
+
+    private final int statementBudget;
+    private final int repeatLimit;
+    private final boolean failOverBudget;
+
+    public SqlStatementFilter(int statementBudget, int repeatLimit, boolean failOverBudget) {
+        this.statementBudget = statementBudget;
+        this.repeatLimit = repeatLimit;
+        this.failOverBudget = failOverBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            request.setAttribute(ATTRIBUTE, scope);
+            filterChain.doFilter(request, response);
+
+            String uri = request.getMethod() + " " + request.getRequestURI();
+            log.debug("{} {}", uri, scope);
+            if (statementBudget > 0 && scope.statementCount() > statementBudget) {
+                violation(uri + " issued " + scope.statementCount() + " SQL statements (budget " + statementBudget + ")");
+            }
+            if (repeatLimit > 0 && scope.maxRepeats() > repeatLimit) {
+                violation(uri + " repeated the same SQL " + scope.maxRepeats() + " times (possible N+1): " + scope.mostRepeatedSql());
+            }
+        }
+    }
+
+    private void violation(String message) {
+        if (failOverBudget) throw new IllegalStateException(message);
+        log.warn(message);
+    }
+}
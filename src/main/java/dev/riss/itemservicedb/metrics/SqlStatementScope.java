@@ -0,0 +1,71 @@
+package dev.riss.itemservicedb.metrics;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 현재 스레드에서 실행된 SQL 문 수 / DB 시간 집계 (CountingDataSource 가 기록)
+ *
+ * try (SqlStatementScope scope = SqlStatementScope.open()) { ... scope.statementCount() }
+ *  - HTTP 요청마다 SqlStatementFilter 가 열어둠. 테스트에서는 직접 열어서 "이 호출은 SQL 몇 번" 을 검증
+ *  - 안쪽에서 다시 열면 안쪽 기록이 바깥 scope 에도 같이 더해짐
+ *  - 같은 SQL 이 몇 번 나갔는지도 셈 => 루프 안에서 한 건씩 조회하는 N+1 패턴 확인 (maxRepeats)
+ *
+ * 스레드 기준이라 다른 스레드(비동기 export 등)에서 실행된 SQL 은 안 잡힘
+ */
+public class SqlStatementScope implements AutoCloseable {
+
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatementScope parent;
+    private int statementCount;
+    private long totalNanos;
+    private final Map<String, Integer> repeats = new HashMap<>();
+
+    private SqlStatementScope(SqlStatementScope parent) {
+        this.parent = parent;
+    }
+
+    public static SqlStatementScope open() {
+        SqlStatementScope scope = new SqlStatementScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void record(String sql, long nanos) {
+        for (SqlStatementScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statementCount++;
+            scope.totalNanos += nanos;
+            scope.repeats.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    public int statementCount() {
+        return statementCount;
+    }
+
+    public Duration totalTime() {
+        return Duration.ofNanos(totalNanos);
+    }
+
+    // 가장 많이 반복된 SQL 의 실행 횟수
+    public int maxRepeats() {
+        return repeats.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    public String mostRepeatedSql() {
+        return repeats.entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) CURRENT.remove();
+        else CURRENT.set(parent);
+    }
+
+    @Override
+    public String toString() {
+        return "statements=" + statementCount + ", time=" + totalTime().toMillis() + "ms, maxRepeats=" + maxRepeats();
+    }
+}
@@ -0,0 +1,48 @@
+package dev.riss.itemservicedb.repository;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * 상품명 검색 방식
+ *
+ *  - CONTAINS: 상품명 어디든 포함 (LIKE '%x%'). 앞에 % 가 붙으므로 인덱스를 못 타고 항상 전체 스캔
+ *  - PREFIX: 상품명이 x 로 시작 (LIKE 'x%'). item_name 인덱스가 있으면 범위 검색으로 바뀜
+ *  - TOKEN: 상품명을 단어로 쪼갠 전문 검색(full-text). 검색어의 모든 단어가 상품명에 단어로 들어있어야 함, 대소문자 무시
+ *           DB 는 H2 내장 전문 검색 인덱스(FT_SEARCH_DATA) 사용 (ItemFullText 참고)
+ *
+ * CONTAINS, PREFIX 는 LIKE 와 같이 대소문자 구분
+ */
+public enum ItemNameMatch {
+
+    CONTAINS, PREFIX, TOKEN;
+
+    // H2 전문 검색(FullTextSettings) 기본 구분자와 같게 => 메모리 레포지토리도 DB 와 같은 결과
+    private static final String DELIMITERS = " \t\n\r\f+\"*%&/()=?'!,.;:-_#@|^~`{}[]<>\\";
+
+    /**
+     * SQL 이 없는 레포지토리(memory, columnar) 용
+     */
+    public boolean matches(String itemName, String query) {
+        if (itemName == null) return false;
+        return switch (this) {
+            case CONTAINS -> itemName.contains(query);
+            case PREFIX -> itemName.startsWith(query);
+            case TOKEN -> {
+                Set<String> words = tokens(query);
+                yield !words.isEmpty() && tokens(itemName).containsAll(words);
+            }
+        };
+    }
+
+    public static Set<String> tokens(String text) {
+        Set<String> tokens = new HashSet<>();
+        StringTokenizer tokenizer = new StringTokenizer(text, DELIMITERS);
+        while (tokenizer.hasMoreTokens()) {
+            tokens.add(tokenizer.nextToken().toUpperCase(Locale.ROOT));
+        }
+        return tokens;
+    }
+}
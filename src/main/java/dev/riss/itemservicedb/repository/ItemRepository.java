@@ -4,15 +4,39 @@ import dev.riss.itemservicedb.domain.Item;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ItemRepository {
 
     Item save(Item item);
 
+    // 여러 건을 한 번에 저장 (DB 왕복을 묶어서 보냄). 넘긴 Item 들에 생성된 id 를 채워서 같은 순서로 반환
+    List<Item> saveAll(List<Item> items);
+
     void update(Long itemId, ItemUpdateDto updateParam);
 
     Optional<Item> findById(Long id);
 
+    // afterId / beforeId / size 가 있으면 id 순 (beforeId + size 는 id 가 큰 쪽부터 찾아서 뒤집은 것)
     List<Item> findAll(ItemSearchCond cond);
 
+    // findAll 과 같은 조건이지만 결과를 List 로 모으지 않고 한 건씩 action 에 넘김 (대용량 export 용)
+    // 이전 페이지(beforeId + size) 의 순서는 구현마다 다를 수 있음 => 화면 페이징은 findAll 로
+    // 커넥션/커서는 이 메서드 안에서만 열려있으므로 action 이 끝나면 알아서 정리됨
+    void streamAll(ItemSearchCond cond, Consumer<Item> action);
+
+    // 가격 일괄 변경 (ItemRepriceJob 이 id 구간별로 호출). id 가 [fromId, toId) 인 상품 중 조건에 맞는 것만, UPDATE 한 번 = 트랜잭션 한 번
+    // 영속성 컨텍스트/메모리에 들고 있던 상품도 바뀐 가격과 어긋나지 않아야 함
+    int reprice(ItemRepriceParam param, long fromId, long toId);
+
+    // 가장 큰 id (없으면 0). 일괄 변경 구간을 나눌 때 사용
+    long findMaxId();
+
+    // 재고 차감. UPDATE ... SET quantity = quantity - ? WHERE id = ? AND quantity >= ? 한 문장 (조회 후 차감이 아니므로 동시에 몰려도 과판매 없음)
+    // 재고가 모자라면 false, 없는 상품이면 EmptyResultDataAccessException
+    boolean reserveStock(Long itemId, int quantity);
+
+    // 재고 되돌리기 (quantity += 수량). 없는 상품이면 EmptyResultDataAccessException
+    void releaseStock(Long itemId, int quantity);
+
 }
@@ -0,0 +1,49 @@
+package dev.riss.itemservicedb.repository;
+
+import lombok.Data;
+
+/**
+ * 가격 일괄 변경 조건 ex. 가격이 10000 이하인 상품 전부 +5% => new ItemRepriceParam(10000, 5)
+ *
+ * 새 가격 = 가격 * (100 + percent) / 100 (소수점 버림). DB 쿼리도 같은 식으로 계산
+ * chunkSize, parallelism: id 를 chunkSize 개씩 구간으로 나눠서 구간마다 UPDATE 한 번 (= 트랜잭션 한 번)
+ *                        parallelism 개 스레드가 구간을 나눠서 실행
+ */
+@Data
+public class ItemRepriceParam {
+
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    private Integer maxPrice;       // null 이면 가격이 있는 상품 전부
+    private int percent;            // 음수면 할인 (-10 => 10% 인하), -100 보다 작으면 가격이 음수가 되므로 거절
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int parallelism = 1;
+
+    public ItemRepriceParam() {
+    }
+
+    public ItemRepriceParam(Integer maxPrice, int percent) {
+        this.maxPrice = maxPrice;
+        setPercent(percent);
+    }
+
+    // 바인딩(기본 생성자 + setter) 으로 만들어질 때도 같은 검사
+    public void setPercent(int percent) {
+        if (percent < -100) throw new IllegalArgumentException("percent must not be below -100: " + percent);
+        this.percent = percent;
+    }
+
+    // 쿼리에서는 price * factor / 100 (MyBatis #{param.factor}, NamedParameterJdbcTemplate :factor 로도 읽힘)
+    public int getFactor() {
+        return 100 + percent;
+    }
+
+    public boolean matches(Integer price) {
+        return price != null && (maxPrice == null || price <= maxPrice);
+    }
+
+    // DB 와 같은 계산 (long 으로 곱해서 넘침 방지, 결과가 int 를 넘으면 DB 처럼 예외)
+    public int apply(int price) {
+        return Math.toIntExact((long) price * getFactor() / 100);
+    }
+}
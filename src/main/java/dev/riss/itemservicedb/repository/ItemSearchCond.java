@@ -6,8 +6,19 @@ import lombok.Data;
 public class ItemSearchCond {
 
     private String itemName;
+    private ItemNameMatch nameMatch = ItemNameMatch.CONTAINS;     // 상품명 검색 방식
     private Integer maxPrice;
 
+    // keyset(커서) 페이징: id > afterId 인 것 중 id 순으로 size 개
+    // offset 페이징과 달리 앞 페이지를 다 읽고 버리지 않음 (id 인덱스로 바로 찾아감)
+    // 둘 다 null 이면 예전처럼 조건에 맞는 전체
+    private Long afterId;
+    private Integer size;
+
+    // 거꾸로 가는 keyset (이전 페이지): id < beforeId 인 것 중 id 가 큰 쪽부터 size 개를 찾아서 id 순으로
+    // (DB 에서는 ORDER BY id DESC LIMIT size => 찾은 뒤 뒤집음) 지나온 커서를 들고 다니지 않아도 뒤로 갈 수 있음
+    private Long beforeId;
+
     public ItemSearchCond() {
     }
 
@@ -15,4 +26,16 @@ public class ItemSearchCond {
         this.itemName = itemName;
         this.maxPrice = maxPrice;
     }
+
+    public ItemSearchCond(String itemName, Integer maxPrice, Long afterId, Integer size) {
+        this.itemName = itemName;
+        this.maxPrice = maxPrice;
+        this.afterId = afterId;
+        this.size = size;
+    }
+
+    // 폼에서 빈 값으로 넘어오면 null 이 되므로 기본값으로
+    public ItemNameMatch getNameMatch() {
+        return nameMatch == null ? ItemNameMatch.CONTAINS : nameMatch;
+    }
 }
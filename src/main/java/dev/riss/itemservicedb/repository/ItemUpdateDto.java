@@ -8,6 +8,9 @@ public class ItemUpdateDto {
     private Integer price;
     private Integer quantity;
 
+    // 수정 폼을 열 때 읽은 버전. 있으면 그 버전일 때만 수정 (아니면 OptimisticLockingFailureException), null 이면 버전 확인 없이 수정
+    private Long version;
+
     public ItemUpdateDto() {
     }
 
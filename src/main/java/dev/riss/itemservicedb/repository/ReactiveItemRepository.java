@@ -0,0 +1,26 @@
+package dev.riss.itemservicedb.repository;
+
+import dev.riss.itemservicedb.domain.Item;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * ItemRepository 의 리액티브 버전 (R2DBC)
+ * 결과를 바로 돌려주지 않고 Mono(0~1건) / Flux(0~N건) 로 돌려줌 => 구독(subscribe)해야 SQL 이 실행됨
+ */
+public interface ReactiveItemRepository {
+
+    // 생성된 id 를 채운 Item
+    Mono<Item> save(Item item);
+
+    // 다 되면 완료. 실패는 Mono.error 로
+    //  - 없는 상품: EmptyResultDataAccessException
+    //  - updateParam.version 이 있는데 DB 버전과 다름(그 사이 누가 먼저 고침): OptimisticLockingFailureException
+    Mono<Void> update(Long itemId, ItemUpdateDto updateParam);
+
+    // 없으면 빈 Mono
+    Mono<Item> findById(Long id);
+
+    // List 로 모으지 않고 한 건씩 흘려보냄. 구독자가 요청(request(n))한 만큼만 행을 읽어서 넘김 (backpressure)
+    Flux<Item> findAll(ItemSearchCond cond);
+}
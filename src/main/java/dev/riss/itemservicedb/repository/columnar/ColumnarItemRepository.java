@@ -0,0 +1,445 @@
+package dev.riss.itemservicedb.repository.columnar;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
+import org.springframework.util.ObjectUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * 컬럼(열) 단위 메모리 저장소
+ *
+ * 행마다 Item 객체 + Integer 박싱 + 맵 엔트리를 만드는 대신, 컬럼별로 기본형 배열 하나씩만 둠
+ *  - id: 저장하지 않음. 1 부터 순서대로 발급하고 삭제가 없으므로 행 번호 = id - 1
+ *  - price, quantity: int[] (null 은 nulls 비트로 표시)
+ *  - version(낙관적 락): long[]. update/reprice 때마다 +1
+ *  - itemName: UTF-8 바이트를 byte[] 하나(arena) 에 이어 붙이고, 행마다 시작 위치/길이만 int[] 로 가짐
+ * => 상품이 100만 개여도 GC 가 보는 객체는 배열 몇 개뿐
+ *
+ * findAll 은 가격 컬럼을 쭉 훑는 단순 루프 (연속된 int 배열이라 캐시/JIT 최적화에 유리)
+ * 조건에 맞은 행만 Item 으로 만들어서 내보냄
+ *
+ * 동시성: StampedLock. 쓰기는 write lock, 읽기는 read lock (여러 읽기가 동시에 가능)
+ */
+public class ColumnarItemRepository implements ItemRepository {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CHUNK = 1024;      // findAll 에서 한 번에 거르는 행 수
+
+    private static final byte NULL_NAME = 1;
+    private static final byte NULL_PRICE = 1 << 1;
+    private static final byte NULL_QUANTITY = 1 << 2;
+
+    private final StampedLock lock = new StampedLock();
+
+    private int size;
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] versions = new long[INITIAL_CAPACITY];
+    private byte[] nulls = new byte[INITIAL_CAPACITY];
+
+    private int[] nameOffsets = new int[INITIAL_CAPACITY];
+    private int[] nameLengths = new int[INITIAL_CAPACITY];
+    private byte[] names = new byte[INITIAL_CAPACITY * 16];
+    private int namesEnd;
+    private int namesGarbage;       // update 로 버려진 이름 바이트 수 (절반을 넘으면 arena 를 새로 모음)
+
+    @Override
+    public Item save(Item item) {
+        byte[] name = encode(item.getItemName());
+        long stamp = lock.writeLock();
+        try {
+            if (size == prices.length) growRows();
+            int row = size++;
+            write(row, name, item.getPrice(), item.getQuantity());
+            versions[row] = 0;
+            item.setId(idOf(row));
+            item.setVersion(0L);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return item;
+    }
+
+    // write lock 을 한 번만 잡고 전부 붙임
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        List<byte[]> encoded = items.stream().map(item -> encode(item.getItemName())).toList();
+        long stamp = lock.writeLock();
+        try {
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                if (size == prices.length) growRows();
+                int row = size++;
+                write(row, encoded.get(i), item.getPrice(), item.getQuantity());
+                versions[row] = 0;
+                item.setId(idOf(row));
+                item.setVersion(0L);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return items;
+    }
+
+    // version 확인과 쓰기를 같은 write lock 안에서 => 확인한 다음 다른 쓰기가 끼어들 수 없음
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        byte[] name = encode(updateParam.getItemName());
+        boolean exists;
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(itemId);
+            exists = row >= 0;
+            if (exists && (updateParam.getVersion() == null || versions[row] == updateParam.getVersion())) {
+                namesGarbage += nameLengths[row];
+                write(row, name, updateParam.getPrice(), updateParam.getQuantity());
+                versions[row]++;
+                return;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        ItemUpdates.check(0, itemId, updateParam, () -> exists);
+    }
+
+    // 가격 컬럼만 구간만큼 훑으면서 바로 고침 (write lock 은 구간 하나 동안만)
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        long stamp = lock.writeLock();
+        try {
+            int from = startRow(fromId - 1);
+            int to = (int) Math.min(Math.max(toId - 1, 0), size);
+            int updated = 0;
+            for (int row = from; row < to; row++) {
+                if ((nulls[row] & NULL_PRICE) != 0 || !param.matches(prices[row])) continue;
+                prices[row] = param.apply(prices[row]);
+                versions[row]++;
+                updated++;
+            }
+            return updated;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // 수량 컬럼 한 칸만 write lock 안에서 확인하고 바로 고침
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        boolean exists;
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(itemId);
+            exists = row >= 0;
+            if (exists && (nulls[row] & NULL_QUANTITY) == 0 && quantities[row] >= quantity) {
+                quantities[row] -= quantity;
+                versions[row]++;
+                return true;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return ItemUpdates.reserved(0, itemId, () -> exists);
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rowOf(itemId);
+            if (row >= 0) {
+                quantities[row] = ItemUpdates.releasedQuantity(itemId, (nulls[row] & NULL_QUANTITY) == 0 ? quantities[row] : null, quantity);
+                nulls[row] &= ~NULL_QUANTITY;
+                versions[row]++;
+                return;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        ItemUpdates.released(0, itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        long stamp = lock.readLock();
+        try {
+            return size;        // 행 번호 = id - 1 이고 삭제가 없으므로 마지막 id = 행 수
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        long stamp = lock.readLock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? Optional.empty() : Optional.of(toItem(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<Item> findAll(ItemSearchCond cond) {
+        NameQuery nameQuery = NameQuery.of(cond);
+        int limit = cond.getSize() == null ? Integer.MAX_VALUE : cond.getSize();
+
+        List<Item> result = new ArrayList<>();
+        int[] selected = new int[CHUNK];
+        long stamp = lock.readLock();
+        try {
+            // keyset 페이징: 행 번호 = id - 1 이므로 afterId 다음 행부터 바로 시작, beforeId 앞 행에서 멈춤
+            int start = startRow(cond.getAfterId());
+            int end = Math.min(size, endRow(cond.getBeforeId()));
+            if (ItemQueryVariants.reversed(ItemQueryVariants.mask(cond))) {
+                // 이전 페이지: beforeId 앞 CHUNK 부터 거꾸로, 각 CHUNK 의 뒤쪽 행부터 채움
+                List<Item> chunk = new ArrayList<>(CHUNK);
+                for (int to = end; to > start && result.size() < limit; to -= CHUNK) {
+                    chunk.clear();
+                    scanChunk(Math.max(start, to - CHUNK), to, nameQuery, cond.getMaxPrice(), selected, Integer.MAX_VALUE, chunk);
+                    for (int i = chunk.size() - 1; i >= 0 && result.size() < limit; i--) result.add(chunk.get(i));
+                }
+                return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), result);
+            }
+            for (int from = start; from < end && result.size() < limit; from += CHUNK) {
+                scanChunk(from, Math.min(from + CHUNK, end), nameQuery, cond.getMaxPrice(), selected, limit - result.size(), result);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return result;
+    }
+
+    /**
+     * findAll 과 달리 CHUNK 단위로만 read lock 을 잡고, action 은 lock 밖에서 호출
+     * => action 이 느려도(ex. HTTP 로 내려보내는 중) 그동안 쓰기를 막지 않음
+     *    대신 전체가 한 시점 기준은 아님 (행 단위로는 항상 온전한 값. 삭제가 없으므로 빠지는 행도 없음)
+     */
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        // 이전 페이지는 size 개뿐 => 그냥 findAll 로
+        if (ItemQueryVariants.reversed(ItemQueryVariants.mask(cond))) {
+            findAll(cond).forEach(action);
+            return;
+        }
+        NameQuery nameQuery = NameQuery.of(cond);
+        int remaining = cond.getSize() == null ? Integer.MAX_VALUE : cond.getSize();
+
+        List<Item> chunk = new ArrayList<>(CHUNK);
+        int[] selected = new int[CHUNK];
+        int from = startRow(cond.getAfterId());
+        int end = endRow(cond.getBeforeId());
+        while (remaining > 0) {
+            chunk.clear();
+            long stamp = lock.readLock();
+            try {
+                int to = Math.min(size, end);
+                if (from >= to) return;
+                scanChunk(from, Math.min(from + CHUNK, to), nameQuery, cond.getMaxPrice(), selected, remaining, chunk);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+            chunk.forEach(action);
+            remaining -= chunk.size();
+            from += CHUNK;
+        }
+    }
+
+    /**
+     * [from, to) 행(CHUNK 이하) 중 조건에 맞는 행만 Item 으로 만들어서 out 에 담음 (최대 limit 개)
+     * read lock 안에서 호출
+     */
+    private void scanChunk(int from, int to, NameQuery nameQuery, Integer maxPrice, int[] selected, int limit, List<Item> out) {
+        int count = maxPrice == null ? selectAll(from, to, selected) : selectPriceAtMost(from, to, maxPrice, selected);
+        int added = 0;
+        for (int i = 0; i < count && added < limit; i++) {
+            int row = selected[i];
+            if (nameQuery != null && !nameMatches(row, nameQuery)) continue;
+            out.add(toItem(row));        // 조건에 맞은 행만 객체로 만듦
+            added++;
+        }
+    }
+
+    public void clearStore() {
+        long stamp = lock.writeLock();
+        try {
+            size = 0;
+            namesEnd = 0;
+            namesGarbage = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int selectAll(int from, int to, int[] selected) {
+        for (int row = from; row < to; row++) {
+            selected[row - from] = row;
+        }
+        return to - from;
+    }
+
+    /**
+     * price <= maxPrice 인 행 번호만 selected 에 모음
+     * null 가격은 Integer.MAX_VALUE 로 들어있으므로 비교 한 번으로 같이 걸러짐 (분기 없이 count 만 증가)
+     */
+    private int selectPriceAtMost(int from, int to, int maxPrice, int[] selected) {
+        int[] prices = this.prices;
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            selected[count] = row;
+            count += prices[row] <= maxPrice ? 1 : 0;
+        }
+        if (maxPrice == Integer.MAX_VALUE) count = dropNullPrices(selected, count);     // 이 경우만 null 이 비교를 통과함
+        return count;
+    }
+
+    private int dropNullPrices(int[] selected, int count) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if ((nulls[selected[i]] & NULL_PRICE) == 0) selected[kept++] = selected[i];
+        }
+        return kept;
+    }
+
+    /**
+     * CONTAINS, PREFIX 는 문자열로 바꾸지 않고 arena 바이트에서 바로 비교
+     * TOKEN 은 단어로 쪼개야 하므로 문자열로 바꿔서 (ItemNameMatch.matches)
+     */
+    private boolean nameMatches(int row, NameQuery query) {
+        if ((nulls[row] & NULL_NAME) != 0) return false;
+        return switch (query.match()) {
+            case CONTAINS -> nameContains(row, query.bytes());
+            case PREFIX -> nameStartsWith(row, query.bytes());
+            case TOKEN -> query.match().matches(new String(names, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8), query.text());
+        };
+    }
+
+    /**
+     * 문자열로 바꾸지 않고 arena 바이트에서 바로 찾음
+     * UTF-8 은 한 글자의 중간 바이트가 다른 글자의 시작 바이트와 겹치지 않으므로 바이트 포함 == 문자열 포함
+     */
+    private boolean nameContains(int row, byte[] query) {
+        int start = nameOffsets[row];
+        int last = start + nameLengths[row] - query.length;
+        byte first = query[0];
+        for (int i = start; i <= last; i++) {
+            if (names[i] != first) continue;
+            int j = 1;
+            while (j < query.length && names[i + j] == query[j]) j++;
+            if (j == query.length) return true;
+        }
+        return false;
+    }
+
+    private boolean nameStartsWith(int row, byte[] query) {
+        if (nameLengths[row] < query.length) return false;
+        return Arrays.equals(names, nameOffsets[row], nameOffsets[row] + query.length, query, 0, query.length);
+    }
+
+    private void write(int row, byte[] name, Integer price, Integer quantity) {
+        byte rowNulls = 0;
+        if (name == null) {
+            rowNulls |= NULL_NAME;
+            name = new byte[0];
+        }
+        if (price == null) rowNulls |= NULL_PRICE;
+        if (quantity == null) rowNulls |= NULL_QUANTITY;
+
+        nameLengths[row] = 0;       // 옛 이름(update) / 이전 값(clearStore 후 save) 은 arena 를 모을 때 옮기지 않음
+        if (namesEnd + name.length > names.length) growNames(name.length);
+        System.arraycopy(name, 0, names, namesEnd, name.length);
+        nameOffsets[row] = namesEnd;
+        nameLengths[row] = name.length;
+        namesEnd += name.length;
+
+        prices[row] = price == null ? Integer.MAX_VALUE : price;
+        quantities[row] = quantity == null ? 0 : quantity;
+        nulls[row] = rowNulls;
+    }
+
+    private Item toItem(int row) {
+        byte rowNulls = nulls[row];
+        String itemName = (rowNulls & NULL_NAME) != 0 ? null
+                : new String(names, nameOffsets[row], nameLengths[row], StandardCharsets.UTF_8);
+        Integer price = (rowNulls & NULL_PRICE) != 0 ? null : prices[row];
+        Integer quantity = (rowNulls & NULL_QUANTITY) != 0 ? null : quantities[row];
+
+        Item item = new Item(itemName, price, quantity);
+        item.setId(idOf(row));
+        item.setVersion(versions[row]);
+        return item;
+    }
+
+    private void growRows() {
+        int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        nulls = Arrays.copyOf(nulls, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    /**
+     * arena 가 모자라면, 버려진 바이트가 절반 이상일 때는 살아있는 이름만 새 배열로 모으고 아니면 두 배로 늘림
+     */
+    private void growNames(int required) {
+        int live = namesEnd - namesGarbage;
+        int capacity = names.length;
+        if (namesGarbage < namesEnd / 2) capacity *= 2;
+        while (capacity < live + required) capacity *= 2;
+
+        byte[] compacted = new byte[capacity];
+        int end = 0;
+        for (int row = 0; row < size; row++) {
+            System.arraycopy(names, nameOffsets[row], compacted, end, nameLengths[row]);
+            nameOffsets[row] = end;
+            end += nameLengths[row];
+        }
+        names = compacted;
+        namesEnd = end;
+        namesGarbage = 0;
+    }
+
+    private static int startRow(Long afterId) {
+        return afterId == null ? 0 : (int) Math.min(Math.max(afterId, 0), Integer.MAX_VALUE);
+    }
+
+    // beforeId 앞 행까지 (행 번호 = id - 1 => beforeId - 1 행은 제외)
+    private static int endRow(Long beforeId) {
+        return beforeId == null ? Integer.MAX_VALUE : (int) Math.min(Math.max(beforeId - 1, 0), Integer.MAX_VALUE);
+    }
+
+    private int rowOf(Long id) {
+        if (id == null || id < 1 || id > size) return -1;
+        return (int) (id - 1);
+    }
+
+    private static long idOf(int row) {
+        return row + 1L;
+    }
+
+    private static byte[] encode(String itemName) {
+        return itemName == null ? null : itemName.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // 상품명 검색 조건. 바이트 비교용으로 미리 UTF-8 로 바꿔둠
+    private record NameQuery(ItemNameMatch match, String text, byte[] bytes) {
+
+        static NameQuery of(ItemSearchCond cond) {
+            String itemName = cond.getItemName();
+            if (ObjectUtils.isEmpty(itemName)) return null;
+            return new NameQuery(cond.getNameMatch(), itemName, itemName.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,22 +1,36 @@
 package dev.riss.itemservicedb.repository.jdbctemplate;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemRowMappers;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * JdbcTemplate
@@ -46,10 +60,31 @@ import java.util.Optional;
 @Slf4j
 public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
 
+
+    // 컬럼 순서가 정해져 있으므로 인덱스로 읽는 매퍼를 한 번만 만들어서 재사용 (NULL 컬럼도 0 이 아닌 null 로)
+    private static final RowMapper<Item> ITEM_ROW_MAPPER = ItemRowMappers.ITEM;
+
+    // findAll 동적 쿼리 조합 32 가지를 미리 만들어둠 (매번 문자열을 이어 붙이지 않음)
+    // 위치 기반(?) 파라미터 값은 ItemQueryVariants.args 가 같은 순서로 꺼내줌
+    private static final ItemQueryVariants FIND_ALL_SQL = new ItemQueryVariants(
+            "SELECT id, item_name, price, quantity, version FROM item",
+            Map.of(ItemNameMatch.CONTAINS, "item_name like concat('%', ?, '%')",
+                    ItemNameMatch.PREFIX, "item_name like concat(?, '%')",      // 앞이 고정이라 item_name 인덱스 범위 검색 가능
+                    ItemNameMatch.TOKEN, ItemFullText.ID_IN_POSITIONAL),        // 전문 검색 인덱스
+            "price <= ?",
+            "id > ?",       // keyset 페이징 - 마지막으로 본 id 다음부터 (PK 인덱스 범위 스캔)
+            "id < ?",       // 이전 페이지 - 처음으로 본 id 앞에서부터 거꾸로 (PK 인덱스를 뒤에서부터)
+            "ORDER BY id",
+            "ORDER BY id LIMIT ?",
+            "ORDER BY id DESC LIMIT ?");
+
     private final JdbcTemplate template;
+    private final JdbcTemplate streamTemplate;      // streamAll 전용 (fetchSize 지정)
 
     public JdbcTemplateItemRepositoryV1(DataSource dataSource) {
         this.template=new JdbcTemplate(dataSource);
+        this.streamTemplate=new JdbcTemplate(dataSource);
+        this.streamTemplate.setFetchSize(ItemStreams.FETCH_SIZE);
     }
 
     @Override
@@ -64,31 +99,79 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
             // INSERT 쿼리 실행 이후에 db 에서 생성된 id 값 조회 가능
             PreparedStatement pstmt = connection.prepareStatement(sql, new String[]{"id"});
             pstmt.setString(1, item.getItemName());
-            pstmt.setInt(2, item.getPrice());
-            pstmt.setInt(3, item.getQuantity());
+            pstmt.setObject(2, item.getPrice(), Types.INTEGER);     // setInt 는 null 이면 언박싱하다 NPE
+            pstmt.setObject(3, item.getQuantity(), Types.INTEGER);
             return pstmt;
         }, keyHolder);  // keyHolder 지정
 
         // id 값은 db 에서 만들어주는 거기 때문에 이 값을 select 하기 위해 KeyHolder 라는 것을 사용(JdbcTemplate)
         long key = keyHolder.getKey().longValue();
         item.setId(key);
+        item.setVersion(0L);        // 컬럼 기본값 (V4__add_item_version.sql)
 
         return item;
     }
 
+    // JdbcTemplate.batchUpdate 는 생성된 키를 못 받아오므로, 커넥션을 하나 받아서 batch + getGeneratedKeys (ItemBatchInserter)
+    // ConnectionCallback 안에서 나는 SQLException 도 JdbcTemplate 이 스프링 예외로 바꿔줌
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return template.execute((ConnectionCallback<List<Item>>) con -> ItemBatchInserter.insert(con, items));
+    }
+
+    // 조회 없이 조건부 UPDATE 한 문장. version 을 주면 그 버전일 때만 바뀜 => 영향받은 행 수로 없는 상품/충돌 구분 (ItemUpdates)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        String sql = "UPDATE item SET item_name=?, price=?, quantity=? WHERE id=?";
+        String sql = "UPDATE item SET item_name=?, price=?, quantity=?, version=version+1 WHERE id=?";
+        List<Object> args = new ArrayList<>(Arrays.asList(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(), itemId));
+        if (null != updateParam.getVersion()) {
+            sql += " AND version=?";
+            args.add(updateParam.getVersion());
+        }
 
         // DB UPDATE
-        template.update(sql, updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(), itemId);
+        int updated = template.update(sql, args.toArray());
+        ItemUpdates.check(updated, itemId, updateParam, () -> findById(itemId).isPresent());
+    }
+
+    // set 기반 UPDATE 한 문장 (상품마다 조회/수정하지 않음). BIGINT 로 곱해서 int 범위 넘침 방지
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        String sql = "UPDATE item SET price = CAST(price AS BIGINT) * ? / 100, version = version + 1 WHERE id >= ? AND id < ? AND price IS NOT NULL";
+        List<Object> args = new ArrayList<>(List.of(param.getFactor(), fromId, toId));
+        if (null != param.getMaxPrice()) {
+            sql += " AND price <= ?";
+            args.add(param.getMaxPrice());
+        }
+        return template.update(sql, args.toArray());
+    }
+
+    // 조회 후 차감이 아니라 조건부 UPDATE 한 문장 => 동시에 몰려도 행 락 하나로 줄 서고, 재고 밑으로는 안 내려감
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?";
+        int updated = template.update(sql, quantity, itemId, quantity);
+        return ItemUpdates.reserved(updated, itemId, () -> findById(itemId).isPresent());
     }
 
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = COALESCE(quantity, 0) + ?, version = version + 1 WHERE id = ?";
+        ItemUpdates.released(template.update(sql, quantity, itemId), itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return template.queryForObject("SELECT COALESCE(MAX(id), 0) FROM item", Long.class);
+    }
+
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
-        String sql = "SELECT id, item_name, price, quantity FROM item WHERE id = ?";
+        String sql = "SELECT id, item_name, price, quantity, version FROM item WHERE id = ?";
         try {
-            Item item = template.queryForObject(sql, itemRowMapper(), id);
+            Item item = template.queryForObject(sql, ITEM_ROW_MAPPER, id);
             return Optional.of(item);
         } catch (EmptyResultDataAccessException e) {
             // queryForObject 는 결과가 없으면 EmptyResultDataAccessException 예외가 터짐
@@ -97,47 +180,22 @@ public class JdbcTemplateItemRepositoryV1 implements ItemRepository {
         }
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
-        String sql="SELECT id, item_name, price, quantity FROM item ";
-
-        // 동적 쿼리
-        if (StringUtils.hasText(itemName) || null != maxPrice) {
-            sql += " WHERE";
-        }
-
-        boolean andFlag=false;
-        List<Object> param = new ArrayList<>();
-
-        if (StringUtils.hasText(itemName)) {
-            sql += " item_name like concat('%', ?, '%')";
-            param.add(itemName);
-            andFlag=true;
-        }
-
-        if (null != maxPrice) {
-            if (andFlag) sql += " AND";
-            sql += " price <= ?";
-            param.add(maxPrice);
-        }
-
-        log.info("sql={}", sql);
-
-        return template.query(sql, itemRowMapper(), param.toArray());
+        int mask = ItemQueryVariants.mask(cond);
+        return ItemQueryVariants.inIdOrder(mask,
+                template.query(FIND_ALL_SQL.get(cond.getNameMatch(), mask), ITEM_ROW_MAPPER, ItemQueryVariants.args(cond, mask)));
     }
 
-    private RowMapper<Item> itemRowMapper() {
-        return ((rs, rowNum) -> {
-            Item item = new Item();
-            item.setId(rs.getLong("id"));
-            item.setItemName(rs.getString("item_name"));
-            item.setPrice(rs.getInt("price"));
-            item.setQuantity(rs.getInt("quantity"));
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        int mask = ItemQueryVariants.mask(cond);
 
-            return item;
-        });
+        // RowCallbackHandler: 결과를 List 로 모으지 않고 ResultSet 을 한 행씩 넘겨줌
+        // fetchSize 만큼씩 DB 에서 가져오므로 결과 전체가 메모리에 올라오지 않음
+        streamTemplate.query(FIND_ALL_SQL.get(cond.getNameMatch(), mask), (RowCallbackHandler) rs -> action.accept(ITEM_ROW_MAPPER.mapRow(rs, rs.getRow())),
+                ItemQueryVariants.args(cond, mask));
     }
 }
@@ -1,13 +1,22 @@
 package dev.riss.itemservicedb.repository.jdbctemplate;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemRowMappers;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -15,14 +24,14 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
 import java.sql.PreparedStatement;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * NamedParameterJdbcTemplate
@@ -40,11 +49,35 @@ import java.util.Optional;
 @Slf4j
 public class JdbcTemplateItemRepositoryV2 implements ItemRepository {
 
+    // BeanPropertyRowMapper.newInstance(Item.class)
+    //  - resultSet 갖고 column 명과 Item 객체에 있는 멤버변수 이름에 맞는 값을 매핑해서 다 넣어줌 (camel 변환 지원: item_name -> setItemName)
+    //  - 편하지만 호출마다 새로 만들고, 행마다 이름 매칭 + 리플렉션으로 setter 호출 => 결과가 많으면 CPU 를 꽤 씀
+    // => 컬럼 순서별로 한 번만 만들어두고 인덱스로 읽는 ItemRowMappers 로 대체
+    static final RowMapper<Item> ITEM_ROW_MAPPER = ItemRowMappers.ITEM;
+
+    // findAll 동적 쿼리 조합 32 가지를 미리 만들어둠 (JdbcTemplateItemRepositoryV1 참고)
+    // 이름 기반 파라미터(:itemName ...) 는 ItemSearchCond 의 프로퍼티라서 BeanPropertySqlParameterSource 로 그대로 바인딩됨
+    static final ItemQueryVariants FIND_ALL_SQL = new ItemQueryVariants(
+            "SELECT id, item_name, price, quantity, version FROM item",
+            Map.of(ItemNameMatch.CONTAINS, "item_name like concat('%', :itemName, '%')",
+                    ItemNameMatch.PREFIX, "item_name like concat(:itemName, '%')",
+                    ItemNameMatch.TOKEN, ItemFullText.ID_IN_NAMED),
+            "price <= :maxPrice",
+            "id > :afterId",
+            "id < :beforeId",
+            "ORDER BY id",
+            "ORDER BY id LIMIT :size",
+            "ORDER BY id DESC LIMIT :size");
+
     private final NamedParameterJdbcTemplate template;
+    private final NamedParameterJdbcTemplate streamTemplate;     // streamAll 전용 (fetchSize 지정)
 
     // NamedParameterJdbcTemplate 도 관례상 DataSource 를 주입받고 내부에서 생성하는 방법을 많이 씀
     public JdbcTemplateItemRepositoryV2(DataSource dataSource) {
         this.template=new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate fetchSizeTemplate = new JdbcTemplate(dataSource);
+        fetchSizeTemplate.setFetchSize(ItemStreams.FETCH_SIZE);
+        this.streamTemplate=new NamedParameterJdbcTemplate(fetchSizeTemplate);
     }
 
     @Override
@@ -63,13 +96,23 @@ public class JdbcTemplateItemRepositoryV2 implements ItemRepository {
 
         long key = keyHolder.getKey().longValue();
         item.setId(key);
+        item.setVersion(0L);        // 컬럼 기본값 (V4__add_item_version.sql)
 
         return item;
     }
 
+    // 이름 기반 파라미터가 필요 없으므로 내부 JdbcTemplate 으로 커넥션을 받아서 batch (ItemBatchInserter)
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return template.getJdbcTemplate()
+                .execute((ConnectionCallback<List<Item>>) con -> ItemBatchInserter.insert(con, items));
+    }
+
+    // 조회 없이 조건부 UPDATE 한 문장 (JdbcTemplateItemRepositoryV1.update 참고)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        String sql = "UPDATE item SET item_name=:itemName, price=:price, quantity=:quantity WHERE id=:id";
+        String sql = "UPDATE item SET item_name=:itemName, price=:price, quantity=:quantity, version=version+1 WHERE id=:id";
+        if (null != updateParam.getVersion()) sql += " AND version=:version";
 
         // 2. SqlParameterSource 구현체 중 MapSqlParameterSource 를 이용하는 방법
         // 이렇게 각각 parameter 이름이랑(:xxx) 각 변수랑 매핑시켜서 직접 바인딩 (메서드 체이닝 제공)
@@ -77,64 +120,79 @@ public class JdbcTemplateItemRepositoryV2 implements ItemRepository {
                 .addValue("itemName", updateParam.getItemName())
                 .addValue("price", updateParam.getPrice())
                 .addValue("quantity", updateParam.getQuantity())
-                .addValue("id", itemId);
+                .addValue("id", itemId)
+                .addValue("version", updateParam.getVersion());
         // 여기선 ItemUpdateDto 객체에 id 값이 없고 itemId 값이 따로 들어오므로 BeanPropertySqlParameterSource 사용 불가능
         // MapSqlParameterSource 나 Map 을 이용해서 param 생성해야 함
 
         // DB UPDATE
-        template.update(sql, param);
+        int updated = template.update(sql, param);
+        ItemUpdates.check(updated, itemId, updateParam, () -> findById(itemId).isPresent());
+    }
+
+    // set 기반 UPDATE 한 문장 (상품마다 조회/수정하지 않음). BIGINT 로 곱해서 int 범위 넘침 방지
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        String sql = "UPDATE item SET price = CAST(price AS BIGINT) * :factor / 100, version = version + 1" +
+                " WHERE id >= :fromId AND id < :toId AND price IS NOT NULL";
+        if (null != param.getMaxPrice()) sql += " AND price <= :maxPrice";
+
+        SqlParameterSource sqlParam = new MapSqlParameterSource()
+                .addValue("factor", param.getFactor())
+                .addValue("maxPrice", param.getMaxPrice())
+                .addValue("fromId", fromId)
+                .addValue("toId", toId);
+        return template.update(sql, sqlParam);
+    }
+
+    // 조건부 UPDATE 한 문장 (JdbcTemplateItemRepositoryV1.reserveStock 참고)
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = quantity - :quantity, version = version + 1 WHERE id = :id AND quantity >= :quantity";
+        int updated = template.update(sql, Map.of("id", itemId, "quantity", quantity));
+        return ItemUpdates.reserved(updated, itemId, () -> findById(itemId).isPresent());
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = COALESCE(quantity, 0) + :quantity, version = version + 1 WHERE id = :id";
+        ItemUpdates.released(template.update(sql, Map.of("id", itemId, "quantity", quantity)), itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return template.queryForObject("SELECT COALESCE(MAX(id), 0) FROM item", Map.of(), Long.class);
     }
 
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
-        String sql = "SELECT id, item_name, price, quantity FROM item WHERE id = :id";
+        String sql = "SELECT id, item_name, price, quantity, version FROM item WHERE id = :id";
         try {
             // 3. 자바 순수 문법 컬렉션 Map 이용하는 방법
             // NamedParameterJdbcTemplate 은 queryForObject 에 들어가는 파라미터랑, 로우매퍼 순서가 반대임 (<-> 그냥 JdbcTemplate)
             Map<String, Object> param = Map.of("id", id);   // hashMap 으로 만들어도 됨
-            Item item = template.queryForObject(sql, param, itemRowMapper());
+            Item item = template.queryForObject(sql, param, ITEM_ROW_MAPPER);
             return Optional.of(item);
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
         // save 에서 썼던 BeanPropertySqlParameterSource 이용
         SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
-
-        String sql="SELECT id, item_name, price, quantity FROM item ";
-
-        // 동적 쿼리
-        if (StringUtils.hasText(itemName) || null != maxPrice) {
-            sql += " WHERE";
-        }
-
-        boolean andFlag=false;
-        if (StringUtils.hasText(itemName)) {
-            sql += " item_name like concat('%', :itemName, '%')";
-            andFlag=true;
-        }
-
-        if (null != maxPrice) {
-            if (andFlag) sql += " AND";
-            sql += " price <= :maxPrice";
-        }
-
-        log.info("sql={}", sql);
-
-        return template.query(sql, param, itemRowMapper());
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), template.query(FIND_ALL_SQL.get(cond), param, ITEM_ROW_MAPPER));
     }
 
-    private RowMapper<Item> itemRowMapper() {
-        // resultSet 갖고 column 명과 Item 객체에 있는 멤버변수 이름에 맞는 값을 매핑해서 다 넣어줌
-        // 기존에 rs.getString("xxx") -> setXxx 어차피 xxx 는 같은 이름이므로 가능함
-        // (여기도 자바빈프로퍼티 규약에 맞추어 데이터 변환, 실제로 내부에서는 리플렉션 같은 기능 사용)
-        // camel 변환 지원(스네이크 -> 카멜 ex. item_name -> itemName ==> setItemName(rs.getString("item_name")) 자동으로 해줌)
-        return BeanPropertyRowMapper.newInstance(Item.class);
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
+        // RowCallbackHandler + fetchSize (JdbcTemplateItemRepositoryV1 참고)
+        streamTemplate.query(FIND_ALL_SQL.get(cond), param, (RowCallbackHandler) rs -> action.accept(ITEM_ROW_MAPPER.mapRow(rs, rs.getRow())));
     }
 }
@@ -2,11 +2,18 @@ package dev.riss.itemservicedb.repository.jdbctemplate;
 
 import dev.riss.itemservicedb.domain.Item;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -15,12 +22,13 @@ import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * SimpleJdbcInsert - 나머지 코드는 안바뀌고 insert sql 부분에서만 도움되는 기능
@@ -29,13 +37,21 @@ import java.util.Optional;
 @Slf4j
 public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
 
+    // RowMapper, findAll SQL 은 V2 와 같음 (이름 기반 파라미터)
+    private static final RowMapper<Item> ITEM_ROW_MAPPER = JdbcTemplateItemRepositoryV2.ITEM_ROW_MAPPER;
+    private static final ItemQueryVariants FIND_ALL_SQL = JdbcTemplateItemRepositoryV2.FIND_ALL_SQL;
+
     private final NamedParameterJdbcTemplate template;
+    private final NamedParameterJdbcTemplate streamTemplate;     // streamAll 전용 (fetchSize 지정)
     private final SimpleJdbcInsert jdbcInsert;
 
     // SimpleJdbcInsert 도 마찬가지로 dataSource 주입받고 내부에서 생성하는 관례법 사용 (당연히 스프링 빈으로 직접 등록하고 주입받아도 됨)
     // 근데 생성시 사용할 테이블명이나 key 값을 직접 등록하기 때문에, 가급적 얘는 빈 등록하지 않는 게 나음
     public JdbcTemplateItemRepositoryV3(DataSource dataSource) {
         this.template=new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate fetchSizeTemplate = new JdbcTemplate(dataSource);
+        fetchSizeTemplate.setFetchSize(ItemStreams.FETCH_SIZE);
+        this.streamTemplate=new NamedParameterJdbcTemplate(fetchSizeTemplate);
         this.jdbcInsert=new SimpleJdbcInsert(dataSource)
                 .withTableName("item")          // 테이블 명 지정
                 .usingGeneratedKeyColumns("id");        // db 에서 자동으로 생성되는 key(PK 컬럼)명 있으면 지정
@@ -47,6 +63,7 @@ public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
     @Override
     public Item save(Item item) {
         // DB INSERT
+        item.setVersion(0L);        // version 컬럼도 메타데이터로 잡히므로 null(NOT NULL 위반) 대신 처음 버전으로
         SqlParameterSource param = new BeanPropertySqlParameterSource(item);
         // db 테이블명만 알면 메타데이터로 어떤 컬럼이 있는지 인지할 수 있어서 매칭되는 value 값(javaBeans Property naming)만 넣어주면 이렇게 단순하게 가능
         Number key = jdbcInsert.executeAndReturnKey(param);
@@ -54,63 +71,92 @@ public class JdbcTemplateItemRepositoryV3 implements ItemRepository {
         return item;
     }
 
+    // jdbcInsert.executeBatch 는 영향받은 행 수만 돌려주고 생성된 키는 못 받아옴
+    // => id 를 채워줘야 하므로 커넥션을 받아서 batch + getGeneratedKeys (ItemBatchInserter)
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return template.getJdbcTemplate()
+                .execute((ConnectionCallback<List<Item>>) con -> ItemBatchInserter.insert(con, items));
+    }
+
+    // 조회 없이 조건부 UPDATE 한 문장 (JdbcTemplateItemRepositoryV1.update 참고)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        String sql = "UPDATE item SET item_name=:itemName, price=:price, quantity=:quantity WHERE id=:id";
+        String sql = "UPDATE item SET item_name=:itemName, price=:price, quantity=:quantity, version=version+1 WHERE id=:id";
+        if (null != updateParam.getVersion()) sql += " AND version=:version";
 
         SqlParameterSource param = new MapSqlParameterSource()
                 .addValue("itemName", updateParam.getItemName())
                 .addValue("price", updateParam.getPrice())
                 .addValue("quantity", updateParam.getQuantity())
-                .addValue("id", itemId);
+                .addValue("id", itemId)
+                .addValue("version", updateParam.getVersion());
 
         // DB UPDATE
-        template.update(sql, param);
+        int updated = template.update(sql, param);
+        ItemUpdates.check(updated, itemId, updateParam, () -> findById(itemId).isPresent());
+    }
+
+    // set 기반 UPDATE 한 문장 (상품마다 조회/수정하지 않음). BIGINT 로 곱해서 int 범위 넘침 방지
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        String sql = "UPDATE item SET price = CAST(price AS BIGINT) * :factor / 100, version = version + 1" +
+                " WHERE id >= :fromId AND id < :toId AND price IS NOT NULL";
+        if (null != param.getMaxPrice()) sql += " AND price <= :maxPrice";
+
+        SqlParameterSource sqlParam = new MapSqlParameterSource()
+                .addValue("factor", param.getFactor())
+                .addValue("maxPrice", param.getMaxPrice())
+                .addValue("fromId", fromId)
+                .addValue("toId", toId);
+        return template.update(sql, sqlParam);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = quantity - :quantity, version = version + 1 WHERE id = :id AND quantity >= :quantity";
+        int updated = template.update(sql, Map.of("id", itemId, "quantity", quantity));
+        return ItemUpdates.reserved(updated, itemId, () -> findById(itemId).isPresent());
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        String sql = "UPDATE item SET quantity = COALESCE(quantity, 0) + :quantity, version = version + 1 WHERE id = :id";
+        ItemUpdates.released(template.update(sql, Map.of("id", itemId, "quantity", quantity)), itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return template.queryForObject("SELECT COALESCE(MAX(id), 0) FROM item", Map.of(), Long.class);
     }
 
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
-        String sql = "SELECT id, item_name, price, quantity FROM item WHERE id = :id";
+        String sql = "SELECT id, item_name, price, quantity, version FROM item WHERE id = :id";
         try {
             Map<String, Object> param = Map.of("id", id);
-            Item item = template.queryForObject(sql, param, itemRowMapper());
+            Item item = template.queryForObject(sql, param, ITEM_ROW_MAPPER);
             return Optional.of(item);
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
+        // save 에서 썼던 BeanPropertySqlParameterSource 이용
         SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
-
-        String sql="SELECT id, item_name, price, quantity FROM item ";
-
-        // 동적 쿼리
-        if (StringUtils.hasText(itemName) || null != maxPrice) {
-            sql += " WHERE";
-        }
-
-        boolean andFlag=false;
-        if (StringUtils.hasText(itemName)) {
-            sql += " item_name like concat('%', :itemName, '%')";
-            andFlag=true;
-        }
-
-        if (null != maxPrice) {
-            if (andFlag) sql += " AND";
-            sql += " price <= :maxPrice";
-        }
-
-        log.info("sql={}", sql);
-
-        return template.query(sql, param, itemRowMapper());
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), template.query(FIND_ALL_SQL.get(cond), param, ITEM_ROW_MAPPER));
     }
 
-    private RowMapper<Item> itemRowMapper() {
-        return BeanPropertyRowMapper.newInstance(Item.class);
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        SqlParameterSource param = new BeanPropertySqlParameterSource(cond);
+        // RowCallbackHandler + fetchSize (JdbcTemplateItemRepositoryV1 참고)
+        streamTemplate.query(FIND_ALL_SQL.get(cond), param, (RowCallbackHandler) rs -> action.accept(ITEM_ROW_MAPPER.mapRow(rs, rs.getRow())));
     }
 }
@@ -1,19 +1,31 @@
 package dev.riss.itemservicedb.repository.jpa;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * JPA 발생 예외: PersistenceException(JPA 예외)+그 하위 예외 + IllegalStateException, IllegalArgumentException
@@ -49,10 +61,34 @@ public class JpaItemRepositoryV1 implements ItemRepository {
 
     // dataSource 넣어주고 EntityManagerFactory 에서 EntityManager 꺼내서 써야하는데 (JpaTransactionManager 설정 등 많은 설정을 해야 함)
     // 스프링부트랑 통합하면 자동으로 해줌 (JpaBaseConfiguration 클래스 참조)
+
+    // findAll JPQL 조합 (검색 방식별 32 가지, ItemQueryVariants). 개수 제한(size) 은 JPQL 이 아니라 setMaxResults 로
+    // TOKEN 은 JPQL 로 전문 검색 함수를 못 부르므로 조합을 만들지 않고 네이티브 쿼리로 (ItemFullText.findAllQuery)
+    private static final ItemQueryVariants FIND_ALL_JPQL = new ItemQueryVariants(
+            "SELECT i FROM Item i",     // JPQL 은 테이블명이 아닌 엔티티를 기반(대상)으로 작성
+            Map.of(ItemNameMatch.CONTAINS, "i.itemName LIKE CONCAT('%', :itemName, '%')",
+                    ItemNameMatch.PREFIX, "i.itemName LIKE CONCAT(:itemName, '%')"),
+            "i.price <= :maxPrice",
+            "i.id > :afterId",      // keyset 페이징
+            "i.id < :beforeId",     // 이전 페이지
+            "ORDER BY i.id",
+            "ORDER BY i.id",        // size 는 setMaxResults 로 => 정렬만
+            "ORDER BY i.id DESC");
+    private static final String[][] FIND_ALL_QUERY_NAMES = new String[ItemNameMatch.values().length][ItemQueryVariants.COUNT];
+
+    static {
+        for (ItemNameMatch nameMatch : ItemNameMatch.values()) {
+            for (int mask = 0; mask < ItemQueryVariants.COUNT; mask++) {
+                FIND_ALL_QUERY_NAMES[nameMatch.ordinal()][mask] = "JpaItemRepositoryV1.findAll." + nameMatch + "." + mask;
+            }
+        }
+    }
+
     private final EntityManager em;
 
     public JpaItemRepositoryV1(EntityManager em) {
         this.em = em;
+        registerFindAllQueries(em.getEntityManagerFactory());
     }
 
     @Override
@@ -62,20 +98,99 @@ public class JpaItemRepositoryV1 implements ItemRepository {
         return item;
     }
 
+    /**
+     * id 가 IDENTITY 전략이면 persist 할 때마다 INSERT 를 바로 날려서 id 를 받아와야 하므로
+     * hibernate.jdbc.batch_size 를 줘도 하이버네이트가 INSERT batch 를 하지 않음
+     * => 세션의 커넥션을 그대로 받아서(doReturningWork) JDBC batch 로 넣음. 같은 트랜잭션 안에서 실행됨
+     * 넣은 Item 들은 영속성 컨텍스트가 관리하지 않음 (필요하면 em.find 로 다시 조회)
+     */
+    @Transactional
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return em.unwrap(Session.class).doReturningWork(con -> ItemBatchInserter.insert(con, items));
+    }
+
+    /**
+     * em.find 로 조회하고 변경 감지(dirty checking) 로 UPDATE 하면 DB 왕복이 2번 (SELECT + UPDATE)
+     * => JPQL 벌크 UPDATE 한 문장으로. version 을 주면 WHERE 에 같이 걸어서 그 사이 다른 수정이 있었으면 0 행 (ItemUpdates)
+     * 벌크 연산이라 @Version 자동 증가가 없으므로 직접 +1, 실행 전 flush 는 reprice 와 같은 이유
+     * 실행 후엔 clear 대신 그 상품 엔티티만 detach (ItemUpdates.detach) => 호출한 쪽이 들고 있는 다른 엔티티는 그대로 영속 상태
+     */
     @Override
     @Transactional      // 보통 변경의 경우, 서비스계층에서 트랜잭션을 시작. 여기서는 복잡한 비즈니스 로직이 없기 때문에 repository 에서 걸음
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = em.find(Item.class, itemId);
-        // 내부에서 조회시점에 미리 스냅샷을 떠놓고(persistence context 에 저장)
-        // 변경사항이 있으면 Transaction 이 커멋되는 시점에 변경사항을 기반으로 update query 를 만들어서 DB 에 날림 => dirty checking
-        // 개인적으로 실무에서는 setter 빼고 비즈니스 로직을 엔티티 클래스에 비즈니스 메서드로 뽑는 게 나아보임
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
-        
-        // test 에서 롤백 전에 업데이트 쿼리 확인하기 위해 추가해놈
+        String jpql = "UPDATE Item i SET i.itemName = :itemName, i.price = :price, i.quantity = :quantity, i.version = i.version + 1" +
+                " WHERE i.id = :id";
+        if (null != updateParam.getVersion()) jpql += " AND i.version = :version";
+
         em.flush();
+        Query query = em.createQuery(jpql)
+                .setParameter("itemName", updateParam.getItemName())
+                .setParameter("price", updateParam.getPrice())
+                .setParameter("quantity", updateParam.getQuantity())
+                .setParameter("id", itemId);
+        if (null != updateParam.getVersion()) query.setParameter("version", updateParam.getVersion());
+        int updated = query.executeUpdate();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.check(updated, itemId, updateParam, () -> findById(itemId).isPresent());
+    }
+
+    /**
+     * JPQL 벌크 연산 (UPDATE 한 문장). 엔티티를 조회하지 않으므로 변경감지도, 영속성 컨텍스트에 쌓이는 것도 없음
+     * 대신 벌크 연산은 영속성 컨텍스트를 건너뛰고 DB 에 바로 나감
+     *  - 실행 전 flush: 아직 안 나간 변경이 있으면 먼저 반영 (벌크 UPDATE 결과를 나중에 덮어쓰지 않도록)
+     *  - 실행 후 clear: 영속성 컨텍스트에 남은 엔티티는 옛 가격을 들고 있으므로 비움 (다음 조회는 DB 에서 새로)
+     *    구간 전체라 어느 행이 바뀌었는지 모르므로 통째로 비움 => 엔티티를 들고 있지 않은 재가격 작업(ItemRepriceJob) 의 구간 트랜잭션에서만 부름
+     * Long 으로 곱해서 넘침을 막고 다시 Integer 로 (하이버네이트 6 은 SET 의 타입이 필드 타입과 다르면 예외)
+     */
+    @Transactional
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        String jpql = "UPDATE Item i SET i.price = CAST(CAST(i.price AS Long) * :factor / 100 AS Integer), i.version = i.version + 1" +
+                " WHERE i.id >= :fromId AND i.id < :toId AND i.price IS NOT NULL";
+        if (null != param.getMaxPrice()) jpql += " AND i.price <= :maxPrice";
+
+        em.flush();
+        Query query = em.createQuery(jpql)
+                .setParameter("factor", param.getFactor())
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId);
+        if (null != param.getMaxPrice()) query.setParameter("maxPrice", param.getMaxPrice());
+        int updated = query.executeUpdate();
         em.clear();
+        return updated;
+    }
+
+    // update 와 같은 JPQL 벌크 UPDATE. quantity >= 수량 조건을 WHERE 에 같이 걸어서 조회 없이 한 문장으로 차감
+    @Override
+    @Transactional
+    public boolean reserveStock(Long itemId, int quantity) {
+        em.flush();
+        int updated = em.createQuery("UPDATE Item i SET i.quantity = i.quantity - :quantity, i.version = i.version + 1" +
+                        " WHERE i.id = :id AND i.quantity >= :quantity")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        ItemUpdates.detach(em, itemId);
+        return ItemUpdates.reserved(updated, itemId, () -> findById(itemId).isPresent());
+    }
+
+    @Override
+    @Transactional
+    public void releaseStock(Long itemId, int quantity) {
+        em.flush();
+        int updated = em.createQuery("UPDATE Item i SET i.quantity = COALESCE(i.quantity, 0) + :quantity, i.version = i.version + 1" +
+                        " WHERE i.id = :id")
+                .setParameter("quantity", quantity)
+                .setParameter("id", itemId)
+                .executeUpdate();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.released(updated, itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return em.createQuery("SELECT COALESCE(MAX(i.id), 0) FROM Item i", Long.class).getSingleResult();
     }
 
     @Override
@@ -86,34 +201,57 @@ public class JpaItemRepositoryV1 implements ItemRepository {
 
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String jpql="SELECT i FROM Item i";     // JPQL 은 테이블명이 아닌 엔티티를 기반(대상)으로 작성
-
-        String itemName = cond.getItemName();
-        Integer maxPrice = cond.getMaxPrice();
-
-        if (StringUtils.hasText(itemName) || null != maxPrice) jpql+=" WHERE";
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), findAllQuery(cond).getResultList());
+    }
 
-        boolean andFlag=false;
-        List<Object> param = new ArrayList<>();
+    /**
+     * getResultStream: 결과를 List 로 다 만들지 않고 ScrollableResults(JDBC ResultSet) 위에서 한 건씩 엔티티로 만듦
+     * 단, 읽은 엔티티는 영속성 컨텍스트(1차 캐시)에 계속 쌓이므로 다 쓴 엔티티는 detach 해줘야 메모리가 안 늘어남
+     * 클래스 레벨 @Transactional(readOnly = true) 로 스트림을 다 읽을 때까지 커넥션 유지
+     */
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        TypedQuery<Item> query = findAllQuery(cond);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);     // 스냅샷(변경 감지용 사본) 안 만듦
 
-        if (StringUtils.hasText(itemName)) {
-            jpql += " i.itemName LIKE CONCAT('%', :itemName, '%')";
-            param.add(itemName);
-            andFlag=true;
+        Consumer<Item> detaching = ItemStreams.detachingLoaded(em, action);
+        try (Stream<Item> items = query.getResultStream()) {
+            items.forEach(detaching);
         }
+    }
 
-        if (null != maxPrice) {
-            if (andFlag) jpql+=" AND";
-            jpql+=" i.price <= :maxPrice";
-            param.add(maxPrice);
-        }
+    private TypedQuery<Item> findAllQuery(ItemSearchCond cond) {
+        if (ItemFullText.isTokenSearch(cond)) return ItemFullText.findAllQuery(em, cond);
 
-        log.info("JPQL={}", jpql);
+        int mask = ItemQueryVariants.mask(cond);
+        TypedQuery<Item> query = em.createNamedQuery(FIND_ALL_QUERY_NAMES[cond.getNameMatch().ordinal()][mask], Item.class);
+        if ((mask & ItemQueryVariants.NAME) != 0) query.setParameter("itemName", cond.getItemName());
+        if ((mask & ItemQueryVariants.MAX_PRICE) != 0) query.setParameter("maxPrice", cond.getMaxPrice());
+        if ((mask & ItemQueryVariants.AFTER_ID) != 0) query.setParameter("afterId", cond.getAfterId());
+        if ((mask & ItemQueryVariants.BEFORE_ID) != 0) query.setParameter("beforeId", cond.getBeforeId());
+        if ((mask & ItemQueryVariants.SIZE) != 0) query.setMaxResults(cond.getSize());     // JPQL 에는 LIMIT 가 없음 => 하이버네이트가 DB 방언에 맞게 붙여줌
 
-        TypedQuery<Item> query = em.createQuery(jpql, Item.class);
-        if (StringUtils.hasText(itemName)) query.setParameter("itemName", itemName);
-        if (null != maxPrice) query.setParameter("maxPrice", maxPrice);
+        return query;
+    }
 
-        return query.getResultList();
+    /**
+     * findAll JPQL 조합(검색 방식 x 32 가지) 을 named query 로 등록
+     * 하이버네이트도 JPQL 문자열 -> 파싱 결과 캐시(query plan cache) 가 있지만, 그래도 매번 문자열을 만들어서 그걸 키로 찾아야 함
+     * named query 는 등록할 때 한 번 파싱해두고 이름으로 바로 꺼냄
+     */
+    private static void registerFindAllQueries(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (ItemNameMatch nameMatch : ItemNameMatch.values()) {
+                if (nameMatch == ItemNameMatch.TOKEN) continue;
+                for (int mask = 0; mask < ItemQueryVariants.COUNT; mask++) {
+                    emf.addNamedQuery(FIND_ALL_QUERY_NAMES[nameMatch.ordinal()][mask],
+                            em.createQuery(FIND_ALL_JPQL.get(nameMatch, mask), Item.class));
+                }
+            }
+        } finally {
+            em.close();
+        }
     }
 }
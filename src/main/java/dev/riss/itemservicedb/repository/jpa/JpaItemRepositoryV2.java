@@ -1,16 +1,32 @@
 package dev.riss.itemservicedb.repository.jpa;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 // 스프링 데이터 JPA 는 스프링 추상화된 데이터 예외 변환을 자동으로 해주므로 @Repository 가 없어도 스프링 데이터 예외로 변환됨
 @Repository
@@ -18,35 +34,149 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class JpaItemRepositoryV2 implements ItemRepository {
 
+    // streamAll JPQL 조합 (ItemQueryVariants). 상품명은 namePattern 으로 만든 LIKE 패턴을 그대로 (CONTAINS/PREFIX 같은 조각)
+    // 조건마다 (:x IS NULL OR ...) 를 붙인 쿼리 하나로 쓰면 DB 는 어떤 조건이 올지 모르는 채로 플랜을 짜서
+    // 가격 인덱스(idx_item_price) 도 id 범위(PK) 도 못 쓰고 전체 스캔 => 들어온 조건만 있는 쿼리를 골라 씀 (ItemQueryPlanTest)
+    // 쿼리 메서드로 하려면 Stream 메서드가 조합 수만큼 필요 (findPage 참고) => em.createQuery 로 (JPQL 파싱 결과는 하이버네이트가 캐시)
+    private static final ItemQueryVariants STREAM_JPQL = new ItemQueryVariants(
+            "SELECT i FROM Item i",
+            "i.itemName LIKE :itemName",
+            "i.price <= :maxPrice",
+            "i.id > :afterId",
+            "i.id < :beforeId",
+            "ORDER BY i.id",
+            "ORDER BY i.id",        // size 는 setMaxResults 로 => 정렬만
+            "ORDER BY i.id DESC");
+
     private final SpringDataJpaItemRepository repository;
+    private final EntityManager em;     // 전문 검색 네이티브 쿼리, streamAll / 벌크 UPDATE 뒤 엔티티 detach 용
 
     @Override
     public Item save(Item item) {
         return repository.save(item);
     }
 
+    // repository.saveAll 은 한 건씩 persist (IDENTITY 라 batch 안 됨) => 세션 커넥션으로 JDBC batch (JpaItemRepositoryV1.saveAll 참고)
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return em.unwrap(Session.class).doReturningWork(con -> ItemBatchInserter.insert(con, items));
+    }
+
+    // findById + 변경 감지 대신 @Modifying 조건부 UPDATE 한 문장 (JpaItemRepositoryV1.update 참고)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = repository.findById(itemId).orElseThrow();
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+        int updated = repository.update(itemId, updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(), updateParam.getVersion());
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.check(updated, itemId, updateParam, () -> repository.existsById(itemId));
+    }
+
+    // @Modifying 벌크 UPDATE (flush/clear 는 애노테이션 옵션으로, JpaItemRepositoryV1.reprice 참고)
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        return repository.reprice(param.getFactor(), param.getMaxPrice(), fromId, toId);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        int updated = repository.reserveStock(itemId, quantity);
+        ItemUpdates.detach(em, itemId);
+        return ItemUpdates.reserved(updated, itemId, () -> repository.existsById(itemId));
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        int updated = repository.releaseStock(itemId, quantity);
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.released(updated, itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return repository.findMaxId();
     }
 
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
         return repository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        String itemName = cond.getItemName();
+        if (ItemFullText.isTokenSearch(cond)) return ItemFullText.findAll(em, cond);
+
+        String itemName = namePattern(cond);
         Integer maxPrice = cond.getMaxPrice();
 
+        if (null != cond.getAfterId() || null != cond.getBeforeId() || null != cond.getSize()) return findPage(itemName, maxPrice, cond);
+
         // 실무에선 이렇게 안하고 동적 쿼리로 처리 (queryDsl 추천)
-        if (StringUtils.hasText(itemName) && null != maxPrice) return repository.findItems("%"+itemName+"%", maxPrice);
-        else if (StringUtils.hasText(itemName)) return repository.findByItemNameLike("%"+itemName+"%");
+        if (null != itemName && null != maxPrice) return repository.findItems(itemName, maxPrice);
+        else if (null != itemName) return repository.findByItemNameLike(itemName);
         else if (null != maxPrice) return repository.findByPriceLessThanEqual(maxPrice);
         return repository.findAll();
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        // 이전 페이지(beforeId + size) 는 size 만큼만 읽으므로 그냥 목록으로 (트랜잭션이 끝나면 영속성 컨텍스트도 같이 정리됨)
+        if (ItemQueryVariants.reversed(ItemQueryVariants.mask(cond))) {
+            findAll(cond).forEach(action);
+            return;
+        }
+
+        // 전문 검색은 JPQL 로 못 만들므로 네이티브 쿼리로 (ItemFullText.findAllQuery)
+        TypedQuery<Item> query = ItemFullText.isTokenSearch(cond) ? ItemFullText.findAllQuery(em, cond) : streamQuery(cond);
+        query.setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE);
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+
+        Consumer<Item> detaching = ItemStreams.detachingLoaded(em, action);        // 영속성 컨텍스트에 쌓이지 않도록 (JpaItemRepositoryV1.streamAll 참고)
+        try (Stream<Item> items = query.getResultStream()) {
+            items.forEach(detaching);
+        }
+    }
+
+    // 들어온 조건만 있는 JPQL (STREAM_JPQL). size 는 setMaxResults => 쿼리의 LIMIT (Stream.limit 로 자르면 DB 는 나머지 행도 계속 보내려고 함)
+    private TypedQuery<Item> streamQuery(ItemSearchCond cond) {
+        int mask = ItemQueryVariants.mask(cond);
+        TypedQuery<Item> query = em.createQuery(STREAM_JPQL.get(mask), Item.class);
+        if ((mask & ItemQueryVariants.NAME) != 0) query.setParameter("itemName", namePattern(cond));
+        if ((mask & ItemQueryVariants.MAX_PRICE) != 0) query.setParameter("maxPrice", cond.getMaxPrice());
+        if ((mask & ItemQueryVariants.AFTER_ID) != 0) query.setParameter("afterId", cond.getAfterId());
+        if ((mask & ItemQueryVariants.BEFORE_ID) != 0) query.setParameter("beforeId", cond.getBeforeId());
+        if ((mask & ItemQueryVariants.SIZE) != 0) query.setMaxResults(cond.getSize());
+        return query;
+    }
+
+    // 쿼리 메서드는 LIKE 패턴을 그대로 받으므로 CONTAINS/PREFIX 는 % 위치만 다름
+    private static String namePattern(ItemSearchCond cond) {
+        if (!StringUtils.hasText(cond.getItemName())) return null;
+        return cond.getNameMatch() == ItemNameMatch.PREFIX ? cond.getItemName() + "%" : "%" + cond.getItemName() + "%";
+    }
+
+    // 조건 조합마다 메서드가 하나씩 더 필요함 => 조건이 늘수록 메서드가 곱으로 늘어나는 게 쿼리 메서드 방식의 한계
+    private List<Item> findPage(String itemName, Integer maxPrice, ItemSearchCond cond) {
+        long after = null != cond.getAfterId() ? cond.getAfterId() : 0L;                    // id 는 1 부터 (IDENTITY)
+        long before = null != cond.getBeforeId() ? cond.getBeforeId() : Long.MAX_VALUE;
+        Pageable pageable = pageable(cond);
+
+        List<Item> items;
+        if (null != itemName && null != maxPrice)
+            items = repository.findByItemNameLikeAndPriceLessThanEqualAndIdGreaterThanAndIdLessThan(itemName, maxPrice, after, before, pageable);
+        else if (null != itemName) items = repository.findByItemNameLikeAndIdGreaterThanAndIdLessThan(itemName, after, before, pageable);
+        else if (null != maxPrice) items = repository.findByPriceLessThanEqualAndIdGreaterThanAndIdLessThan(maxPrice, after, before, pageable);
+        else items = repository.findByIdGreaterThanAndIdLessThan(after, before, pageable);
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), items);
+    }
+
+    // 개수 제한 + id 정렬 (이전 페이지면 id 내림차순 => 찾은 뒤 inIdOrder 로 뒤집음)
+    // size 가 없으면 afterId / beforeId 때문에 온 것 => 그래도 id 순 (Pageable.unpaged() 는 정렬을 못 담음 => 개수 제한 없는 PageRequest)
+    private static Pageable pageable(ItemSearchCond cond) {
+        if (null == cond.getSize()) return PageRequest.of(0, Integer.MAX_VALUE, Sort.by("id"));
+        Sort.Direction direction = ItemQueryVariants.reversed(ItemQueryVariants.mask(cond)) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return PageRequest.of(0, cond.getSize(), Sort.by(direction, "id"));
+    }
 }
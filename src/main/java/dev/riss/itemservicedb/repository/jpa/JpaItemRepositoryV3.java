@@ -3,19 +3,32 @@ package dev.riss.itemservicedb.repository.jpa;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import dev.riss.itemservicedb.domain.Item;
 import dev.riss.itemservicedb.domain.QItem;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static dev.riss.itemservicedb.domain.QItem.*;
 
@@ -50,16 +63,79 @@ public class JpaItemRepositoryV3 implements ItemRepository {
         return item;
     }
 
-    // JPA 사용
+    // IDENTITY 라 하이버네이트 INSERT batch 가 안 됨 => 세션 커넥션으로 JDBC batch (JpaItemRepositoryV1.saveAll 참고)
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        return em.unwrap(Session.class).doReturningWork(con -> ItemBatchInserter.insert(con, items));
+    }
+
+    // Querydsl 조건부 벌크 UPDATE 한 문장 (em.find + 변경 감지 대신, JpaItemRepositoryV1.update 참고)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = em.find(Item.class, itemId);
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+        em.flush();
+        long updated = query.update(item)
+                .set(item.itemName, updateParam.getItemName())
+                .set(item.price, updateParam.getPrice())
+                .set(item.quantity, updateParam.getQuantity())
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId), versionEq(updateParam.getVersion()))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.check((int) updated, itemId, updateParam, () -> findById(itemId).isPresent());
+    }
+
+    // Querydsl 벌크 UPDATE. 실행 전 flush, 실행 후 clear (JpaItemRepositoryV1.reprice 참고)
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.price, repricedPrice(param))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.goe(fromId), item.id.lt(toId), item.price.isNotNull(), maxPrice(param.getMaxPrice()))
+                .execute();
+        em.clear();
+        return (int) updated;
+    }
+
+    // Querydsl 조건부 벌크 UPDATE (quantity >= 수량인 행만). 실행 전 flush, 실행 후 그 상품만 detach
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.quantity, item.quantity.subtract(quantity))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId), item.quantity.goe(quantity))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        return ItemUpdates.reserved((int) updated, itemId, () -> findById(itemId).isPresent());
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.quantity, item.quantity.coalesce(0).add(quantity))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.released((int) updated, itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        Long maxId = query.select(item.id.max()).from(item).fetchOne();
+        return maxId == null ? 0 : maxId;
+    }
+
+    // price * factor / 100 (Long 으로 곱해서 넘침 방지 후 다시 Integer). 캐스팅이 섞인 식이라 템플릿으로
+    private NumberExpression<Integer> repricedPrice (ItemRepriceParam param) {
+        return Expressions.numberTemplate(Integer.class, "cast(cast({0} as Long) * {1} / 100 as Integer)", item.price, param.getFactor());
     }
 
     // JPA 사용
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
         Item item = em.find(Item.class, id);
@@ -68,22 +144,62 @@ public class JpaItemRepositoryV3 implements ItemRepository {
 
     // QueryDsl 사용 - 더 리펙토링된 방법
     // likeItemName, maxPrice 는 자바 코드이기 때문에 쿼리문 조각을 부분적으로 모듈화해서 재사용 가능
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
+        if (ItemFullText.isTokenSearch(cond)) return ItemFullText.findAll(em, cond);
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), findAllQuery(cond).fetch());
+    }
+
+    // QueryDsl 사용 - stream() 은 내부에서 JPA getResultStream 을 사용 (JpaItemRepositoryV1.streamAll 참고)
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        Consumer<Item> detaching = ItemStreams.detachingLoaded(em, action);
+        try (Stream<Item> items = ItemFullText.isTokenSearch(cond) ? tokenStream(cond) : findAllQuery(cond)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            items.forEach(detaching);
+        }
+    }
+
+    private JPAQuery<Item> findAllQuery(ItemSearchCond cond) {
         String itemName = cond.getItemName();
         Integer maxPrice = cond.getMaxPrice();
 
-        return query
+        JPAQuery<Item> jpaQuery = query
                 .select(item)
                 .from(item)
-                .where(likeItemName(itemName), maxPrice(maxPrice))        // , 로 그 뒤에 또 Expression 적으면 AND 가 됨
-                .fetch();
+                .where(itemName(cond), maxPrice(maxPrice), afterId(cond.getAfterId()), beforeId(cond.getBeforeId()));        // , 로 그 뒤에 또 Expression 적으면 AND 가 됨
+
+        // keyset 페이징 - 페이지 크기가 있으면 id 순 정렬 + limit (이전 페이지는 id 내림차순 => findAll 에서 뒤집음)
+        // 크기 없이 afterId / beforeId 만 있어도 id 순 (정렬이 없으면 DB 는 순서를 보장하지 않음)
+        if (null != cond.getSize()) {
+            jpaQuery.orderBy(ItemQueryVariants.reversed(ItemQueryVariants.mask(cond)) ? item.id.desc() : item.id.asc()).limit(cond.getSize());
+        } else if (null != cond.getAfterId() || null != cond.getBeforeId()) {
+            jpaQuery.orderBy(item.id.asc());
+        }
+        return jpaQuery;
     }
 
-    private BooleanExpression likeItemName (String itemName) {
-        if (StringUtils.hasText(itemName))
-            return item.itemName.like("%" + itemName + "%");
-        return null;        // return null 이면 where 문에서 무시됨 (where() 안에 null 이 들어가면 무시됨)
+    // TOKEN: JPQL(QueryDsl) 로는 전문 검색 함수를 못 부르므로 조건 전체를 네이티브 쿼리 하나로 (ItemFullText.findAllQuery)
+    private Stream<Item> tokenStream (ItemSearchCond cond) {
+        return ItemFullText.findAllQuery(em, cond)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    // 상품명 검색 방식(ItemNameMatch) 별 조건 (TOKEN 은 위 tokenStream / ItemFullText.findAll 로 가므로 여기 안 옴)
+    private BooleanExpression itemName (ItemSearchCond cond) {
+        String itemName = cond.getItemName();
+        if (!StringUtils.hasText(itemName)) return null;        // return null 이면 where 문에서 무시됨 (where() 안에 null 이 들어가면 무시됨)
+        return switch (cond.getNameMatch()) {
+            case CONTAINS -> item.itemName.like("%" + itemName + "%");
+            case PREFIX -> item.itemName.startsWith(itemName);
+            case TOKEN -> throw new IllegalStateException("token search runs as a native query (ItemFullText.findAllQuery)");
+        };
     }
 
     private Predicate maxPrice (Integer maxPrice) {
@@ -91,6 +207,22 @@ public class JpaItemRepositoryV3 implements ItemRepository {
         return null;
     }
 
+    private Predicate afterId (Long afterId) {
+        if (null != afterId) return item.id.gt(afterId);
+        return null;
+    }
+
+    private Predicate beforeId (Long beforeId) {
+        if (null != beforeId) return item.id.lt(beforeId);
+        return null;
+    }
+
+    // 낙관적 락 - version 을 줬을 때만 조건에 넣음
+    private Predicate versionEq (Long version) {
+        if (null != version) return item.version.eq(version);
+        return null;
+    }
+
     // QueryDsl 사용 - 기본 방법
     public List<Item> findAllOld(ItemSearchCond cond) {
         String itemName = cond.getItemName();
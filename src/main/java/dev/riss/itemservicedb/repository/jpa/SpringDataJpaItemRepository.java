@@ -1,7 +1,9 @@
 package dev.riss.itemservicedb.repository.jpa;
 
 import dev.riss.itemservicedb.domain.Item;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,4 +21,41 @@ public interface SpringDataJpaItemRepository extends JpaRepository<Item, Long> {
     // 쿼리 직접 실행(JPQL)
     @Query("SELECT i FROM Item i WHERE i.itemName LIKE :itemName AND i.price <= :price")
     List<Item> findItems(@Param("itemName") String itemName, @Param("price") Integer price);
+
+    // keyset 페이징 - (afterId, beforeId) 구간. Pageable 로 정렬(id, 이전 페이지면 id 내림차순)/개수 지정. 반환 타입이 List 면 count 쿼리는 안 나감
+    List<Item> findByIdGreaterThanAndIdLessThan(Long afterId, Long beforeId, Pageable pageable);
+    List<Item> findByItemNameLikeAndIdGreaterThanAndIdLessThan(String itemName, Long afterId, Long beforeId, Pageable pageable);
+    List<Item> findByPriceLessThanEqualAndIdGreaterThanAndIdLessThan(Integer price, Long afterId, Long beforeId, Pageable pageable);
+    List<Item> findByItemNameLikeAndPriceLessThanEqualAndIdGreaterThanAndIdLessThan(String itemName, Integer price, Long afterId, Long beforeId, Pageable pageable);
+
+    // 스트림 조회(JpaItemRepositoryV2.streamAll) 는 여기 두지 않음
+    // null 이면 조건을 무시하는 JPQL 하나((:x IS NULL OR ...)) 로는 인덱스를 못 타고, 조합마다 Stream 메서드를 두기엔 너무 많음
+    // => JpaItemRepositoryV2 에서 조합별 JPQL(ItemQueryVariants) 을 EntityManager 로 직접 실행
+
+    // 벌크 UPDATE 는 @Modifying 이 있어야 executeUpdate 로 실행됨
+    // flushAutomatically: 실행 전 flush, clearAutomatically: 실행 후 영속성 컨텍스트 비움 (옛 가격을 든 엔티티가 남지 않도록)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Item i SET i.price = CAST(CAST(i.price AS Long) * :factor / 100 AS Integer), i.version = i.version + 1" +
+            " WHERE i.id >= :fromId AND i.id < :toId AND i.price IS NOT NULL AND (:maxPrice IS NULL OR i.price <= :maxPrice)")
+    int reprice(@Param("factor") int factor, @Param("maxPrice") Integer maxPrice, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    // 조회 없이 조건부 UPDATE 한 문장 (version 이 null 이면 버전 확인 없이). 반환값은 UPDATE 된 행 수 (ItemUpdates)
+    // 한 상품만 바꾸므로 clearAutomatically 는 안 씀 => 호출한 쪽(JpaItemRepositoryV2) 에서 그 엔티티만 detach
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Item i SET i.itemName = :itemName, i.price = :price, i.quantity = :quantity, i.version = i.version + 1" +
+            " WHERE i.id = :id AND (:version IS NULL OR i.version = :version)")
+    int update(@Param("id") Long id, @Param("itemName") String itemName, @Param("price") Integer price,
+               @Param("quantity") Integer quantity, @Param("version") Long version);
+
+    // 재고 차감/되돌리기 - 조회 없이 조건부 UPDATE 한 문장. 재고가 모자라면 0 행
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = i.quantity - :quantity, i.version = i.version + 1 WHERE i.id = :id AND i.quantity >= :quantity")
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Item i SET i.quantity = COALESCE(i.quantity, 0) + :quantity, i.version = i.version + 1 WHERE i.id = :id")
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM Item i")
+    long findMaxId();
 }
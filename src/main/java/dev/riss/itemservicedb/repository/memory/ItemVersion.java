@@ -0,0 +1,84 @@
+package dev.riss.itemservicedb.repository.memory;
+
+import dev.riss.itemservicedb.domain.Item;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 상품 한 건의 한 시점 상태 (불변)
+ * update 는 기존 버전을 고치지 않고 새 버전을 만들어서 체인 맨 앞에 붙임 (MVCC)
+ * => 읽는 쪽은 절대 반쯤 바뀐 상태를 볼 수 없음
+ */
+final class ItemVersion {
+
+    final long id;
+    final String itemName;
+    final Integer price;
+    final Integer quantity;
+    // 낙관적 락용 버전 (Item.version). 새 버전을 만들 때마다 이전 버전 + 1
+    // 아래 version 은 저장소 전체의 시계(스냅샷용) 라서 상품마다 0, 1, 2 ... 로 세는 이 값과는 다름
+    final long rowVersion;
+    static final long PENDING = Long.MAX_VALUE;
+
+    // 이 버전이 저장된 시점 (MemoryItemStore clock). 저장소에 붙인 다음에 한 번만 정해짐 (PENDING -> 시점, CAS)
+    // 시점을 먼저 받고 붙이면, 그 시점으로 스냅샷을 연 쪽이 처음엔 옛 버전을 보다가 나중엔 새 버전을 보게 됨
+    volatile long version = PENDING;
+
+    // 이전 버전. 아직 열려있는 스냅샷이 볼 수도 있어서 남겨두고, 아무도 안 보게 되면 끊어냄(prune)
+    volatile ItemVersion previous;
+
+    private static final AtomicLongFieldUpdater<ItemVersion> VERSION =
+            AtomicLongFieldUpdater.newUpdater(ItemVersion.class, "version");
+
+    ItemVersion(long id, String itemName, Integer price, Integer quantity, ItemVersion previous) {
+        this.id = id;
+        this.itemName = itemName;
+        this.price = price;
+        this.quantity = quantity;
+        this.rowVersion = previous == null ? 0 : previous.rowVersion + 1;
+        this.previous = previous;
+    }
+
+    /**
+     * snapshot 시점에 보이는 버전 (snapshot 이후에 만들어진 버전은 건너뜀), 그 시점에 없던 상품이면 null
+     */
+    ItemVersion visibleAt(long snapshot, AtomicLong clock) {
+        ItemVersion v = this;
+        while (v != null && v.committedVersion(clock) > snapshot) {
+            v = v.previous;
+        }
+        return v;
+    }
+
+    /**
+     * 붙인 쪽이 시점을 정함. 그 사이 읽는 쪽이 먼저 정했으면 그 시점을 그대로 씀
+     * @return 정해진 시점
+     */
+    long commit(AtomicLong clock) {
+        return committedVersion(clock);
+    }
+
+    /**
+     * 아직 시점이 안 정해졌으면(붙인 스레드가 commit 전에 멈춤) 기다리지 않고 읽는 쪽이 대신 정함 (helping)
+     *  - 지금 clock 보다 큰 값 => 그보다 먼저 연 스냅샷에는 안 보이는 버전으로 확정
+     *  - 한 번 정해지면 안 바뀌므로 같은 스냅샷에서 다시 읽어도 결과가 같음
+     * => 붙인 스레드가 스케줄에서 밀려나도 읽는 쪽이 멈추지 않음 (lock-free)
+     */
+    private long committedVersion(AtomicLong clock) {
+        long committed = version;
+        if (committed != PENDING) return committed;
+        VERSION.compareAndSet(this, PENDING, clock.incrementAndGet());
+        return version;
+    }
+
+    /**
+     * 호출하는 쪽에서 마음대로 setXxx 해도 저장소에는 영향이 없도록 항상 새 Item 으로 복사해서 내보냄
+     */
+    Item toItem() {
+        Item item = new Item(itemName, price, quantity);
+        item.setId(id);
+        item.setVersion(rowVersion);
+        return item;
+    }
+}
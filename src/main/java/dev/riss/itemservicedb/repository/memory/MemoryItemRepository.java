@@ -1,58 +1,155 @@
 package dev.riss.itemservicedb.repository.memory;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
+/**
+ * 저장은 MemoryItemStore(MVCC) 에 맡김
+ *  - 여러 톰캣 스레드가 동시에 save/update 해도 id 중복, 맵 깨짐 없음
+ *  - 저장소에는 불변 버전만 들어가고, 밖으로는 항상 복사본 Item 을 내보냄
+ *    (예전처럼 꺼내간 Item 을 setXxx 해서 저장소가 바뀌는 일 없음)
+ *  - itemName(3글자 이상) 조건이 있으면 trigram 인덱스 후보만, maxPrice 조건이 있으면 가격 인덱스 범위만 봄 (전체 스캔 x)
+ *  - afterId/size(keyset 페이징): 후보가 모두 id 순이므로 afterId 이하는 건너뛰고 size 개 채우면 멈춤
+ *  - beforeId + size(이전 페이지): 후보를 id 역순으로 따라가며 size 개 (findAll 은 뒤집어서 id 순으로)
+ */
 @Repository
 public class MemoryItemRepository implements ItemRepository {
 
-    private static final Map<Long, Item> store = new HashMap<>(); //static
-    private static long sequence = 0L; //static
+    private final MemoryItemStore store = new MemoryItemStore();
 
     @Override
     public Item save(Item item) {
-        item.setId(++sequence);
-        store.put(item.getId(), item);
+        item.setId(store.nextId());
+        store.insert(item.getId(), item.getItemName(), item.getPrice(), item.getQuantity());
+        item.setVersion(0L);
         return item;
     }
 
+    // 메모리는 왕복 비용이 없으므로 한 건씩 넣는 것과 같음
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        items.forEach(this::save);
+        return items;
+    }
+
+    // version 확인과 교체가 같은 CAS 안에서 일어남 => 확인한 다음 다른 쓰기가 끼어들 틈이 없음 (DB 의 UPDATE ... WHERE version = ? 와 같음)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = findById(itemId).orElseThrow();
-        findItem.setItemName(updateParam.getItemName());
-        findItem.setPrice(updateParam.getPrice());
-        findItem.setQuantity(updateParam.getQuantity());
+        Long expected = updateParam.getVersion();
+        ItemVersion updated = store.update(itemId, current -> null != expected && current.rowVersion != expected ? null
+                : new ItemVersion(itemId, updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity(), current));
+        ItemUpdates.check(updated == null ? 0 : 1, itemId, updateParam, () -> store.latest(itemId) != null);
+    }
+
+    // 상품마다 CAS 로 바꿈. 그 사이 다른 update 가 들어오면 그 값을 기준으로 다시 계산 (덮어쓰지 않음)
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        int updated = 0;
+        for (long id : store.ids(fromId, toId)) {
+            ItemVersion next = store.update(id, current -> param.matches(current.price)
+                    ? new ItemVersion(id, current.itemName, param.apply(current.price), current.quantity, current)
+                    : null);
+            if (next != null) updated++;
+        }
+        return updated;
+    }
+
+    // 재고 확인과 차감이 같은 CAS 안에서 (update 와 같은 이유). 모자라면 새 버전을 안 만듦(null)
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        ItemVersion next = store.update(itemId, current -> null != current.quantity && current.quantity >= quantity
+                ? new ItemVersion(itemId, current.itemName, current.price, current.quantity - quantity, current)
+                : null);
+        return ItemUpdates.reserved(next == null ? 0 : 1, itemId, () -> store.latest(itemId) != null);
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        ItemVersion next = store.update(itemId, current -> new ItemVersion(itemId, current.itemName, current.price,
+                ItemUpdates.releasedQuantity(itemId, current.quantity, quantity), current));
+        ItemUpdates.released(next == null ? 0 : 1, itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return store.maxId();
     }
 
     @Override
     public Optional<Item> findById(Long id) {
-        return Optional.ofNullable(store.get(id));
+        ItemVersion version = store.latest(id);
+        return Optional.ofNullable(version).map(ItemVersion::toItem);
     }
 
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
+        List<Item> result = new ArrayList<>();
+        streamAll(cond, result::add);
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), result);
+    }
+
+    // 스냅샷 iterator 를 그대로 따라가며 한 건씩 넘김
+    // action 이 끝날 때까지 스냅샷이 열려있으므로 그동안 옛 버전 정리가 미뤄짐 (쓰기는 안 막힘)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
         String itemName = cond.getItemName();
+        ItemNameMatch nameMatch = cond.getNameMatch();
         Integer maxPrice = cond.getMaxPrice();
-        return store.values().stream()
-                .filter(item -> {
-                    if (ObjectUtils.isEmpty(itemName)) {
-                        return true;
-                    }
-                    return item.getItemName().contains(itemName);
-                }).filter(item -> {
-                    if (maxPrice == null) {
-                        return true;
-                    }
-                    return item.getPrice() <= maxPrice;
-                })
-                .collect(Collectors.toList());
+        Long afterId = cond.getAfterId();
+        Long beforeId = cond.getBeforeId();
+        Integer size = cond.getSize();
+        boolean reversed = ItemQueryVariants.reversed(ItemQueryVariants.mask(cond));
+
+        int count = 0;
+        try (MemoryItemStore.Snapshot snapshot = store.openSnapshot()) {
+            // 상품명(3글자 이상) -> trigram 인덱스, 아니면 가격 인덱스, 둘 다 없으면 전체 스캔 (afterId 가 있으면 그 다음부터)
+            // 어느 쪽으로 후보를 골랐든 두 조건은 다시 확인. 후보는 모두 id 순
+            // PREFIX 도 포함 관계라 trigram 후보를 쓸 수 있음. TOKEN 은 대소문자를 무시하므로 (대소문자 구분인) trigram 을 못 씀
+            boolean useNameIndex = !ObjectUtils.isEmpty(itemName) && nameMatch != ItemNameMatch.TOKEN;
+            List<ItemVersion> indexed = useNameIndex ? snapshot.nameContains(itemName) : null;
+            if (indexed == null && maxPrice != null) indexed = snapshot.priceAtMost(maxPrice);
+            Iterable<ItemVersion> candidates;
+            if (indexed != null) candidates = reversed ? descending(indexed) : indexed;
+            else if (reversed) candidates = snapshot.before(beforeId);
+            else candidates = afterId == null ? snapshot : snapshot.after(afterId);
+
+            for (ItemVersion version : candidates) {
+                if (size != null && count >= size) break;
+                if (afterId != null && version.id <= afterId) continue;
+                if (beforeId != null && version.id >= beforeId) continue;
+                if (!ObjectUtils.isEmpty(itemName) && !nameMatch.matches(version.itemName, itemName)) continue;
+                if (maxPrice != null && (version.price == null || version.price > maxPrice)) continue;
+                action.accept(version.toItem());
+                count++;
+            }
+        }
+    }
+
+    private static <T> Iterable<T> descending(List<T> list) {
+        return () -> new Iterator<>() {
+            private final ListIterator<T> it = list.listIterator(list.size());
+
+            @Override
+            public boolean hasNext() {
+                return it.hasPrevious();
+            }
+
+            @Override
+            public T next() {
+                return it.previous();
+            }
+        };
     }
 
     public void clearStore() {
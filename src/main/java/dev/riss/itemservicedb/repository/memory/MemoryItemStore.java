@@ -0,0 +1,270 @@
+package dev.riss.itemservicedb.repository.memory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * 락 없는(lock-free) MVCC 메모리 저장소
+ *
+ *  - id 발급: AtomicLong (기존 static long sequence 는 동시 요청에서 id 가 중복/유실됨)
+ *  - 저장: ConcurrentSkipListMap<id, 최신 ItemVersion> => id 순서대로 순회 가능, 읽기/쓰기 모두 락 없음
+ *  - 쓰기: 새 불변 버전을 만들어서 CAS 로 교체 (실패하면 다시 시도)
+ *  - 읽기: 스냅샷 시점(clock) 을 잡고, 그 시점까지 저장된 버전만 봄
+ *          => findAll 이 도는 동안 update 가 들어와도 쓰기를 막지 않고, 결과도 한 시점 기준으로 일관됨
+ *  - 보조 인덱스: 가격(MemoryPriceIndex), 상품명 trigram(MemoryNameIndex). 쓰기 때 같이 갱신
+ *    둘 다 (값, id) 별 참조 횟수로 관리 => 같은 키를 여러 쓰기가 동시에 넣고 빼도 안전
+ *
+ * 오래된 버전/인덱스 키 정리
+ *  - 열려있는 스냅샷 중 가장 오래된 시점(horizon) 이전 버전은 아무도 볼 수 없으므로 쓰기 때마다 체인을 끊어냄
+ *  - 옛 인덱스 키는 바로 지우지 않고 retired 큐에 넣어뒀다가 horizon 이 지나가면 지움
+ *  - 스냅샷 등록과 정리가 엇갈리는 경우: 정리하는 쪽이 reclaimedUpTo 를 먼저 올리고,
+ *    스냅샷 여는 쪽은 등록 후 reclaimedUpTo 보다 오래된 시점이면 다시 잡음
+ */
+class MemoryItemStore {
+
+    private final ConcurrentSkipListMap<Long, ItemVersion> store = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+
+    private final MemoryPriceIndex priceIndex = new MemoryPriceIndex();
+    private final MemoryNameIndex nameIndex = new MemoryNameIndex();
+
+    // 열려있는 스냅샷 시점 -> 개수
+    private final ConcurrentSkipListMap<Long, Integer> activeSnapshots = new ConcurrentSkipListMap<>();
+    private final AtomicLong reclaimedUpTo = new AtomicLong();
+    private final Queue<Retired> retired = new ConcurrentLinkedQueue<>();
+
+    long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    ItemVersion insert(long id, String itemName, Integer price, Integer quantity) {
+        // 인덱스 먼저, 그 다음 저장
+        priceIndex.add(price, id);
+        nameIndex.add(itemName, id);
+        ItemVersion inserted = new ItemVersion(id, itemName, price, quantity, null);
+        store.put(id, inserted);
+        inserted.commit(clock);
+        return inserted;
+    }
+
+    /**
+     * change: 최신 버전(current) 을 받아서 새 버전을 만들어줌 (previous 는 current, 바꿀 게 없으면 null)
+     * CAS 에 실패하면 새 최신 버전으로 다시 호출 => 읽고-계산하고-쓰는 사이에 들어온 다른 쓰기를 덮어쓰지 않음 (ex. 가격 일괄 변경)
+     * @return 새로 만들어진 버전, 해당 id 가 없거나 바꿀 게 없으면 null
+     */
+    ItemVersion update(long id, UnaryOperator<ItemVersion> change) {
+        while (true) {
+            ItemVersion current = store.get(id);
+            if (current == null) return null;
+            ItemVersion next = change.apply(current);
+            if (next == null) return null;
+
+            boolean priceChanged = !Objects.equals(current.price, next.price);
+            boolean nameChanged = !Objects.equals(current.itemName, next.itemName);
+            if (priceChanged) priceIndex.add(next.price, id);
+            if (nameChanged) nameIndex.add(next.itemName, id);
+
+            if (store.replace(id, current, next)) {     // CAS - 그 사이 다른 쓰기가 있었으면 다시
+                long committed = next.commit(clock);    // 붙인 다음에 시점을 정함 (ItemVersion.version 참고)
+                // 옛 키는 옛 버전을 볼 수 있는 스냅샷이 다 닫힌 다음에 제거
+                if (priceChanged) retire(committed, () -> priceIndex.remove(current.price, id));
+                if (nameChanged) retire(committed, () -> nameIndex.remove(current.itemName, id));
+                long horizon = horizon();
+                prune(next, horizon);
+                reclaim(horizon);
+                return next;
+            }
+
+            // 저장에 실패한 시도의 키. 인덱스는 참조 횟수로 관리하므로 바로 되돌려도 다른 쓰기의 키는 안 지워짐
+            if (priceChanged) priceIndex.remove(next.price, id);
+            if (nameChanged) nameIndex.remove(next.itemName, id);
+        }
+    }
+
+    ItemVersion latest(long id) {
+        return store.get(id);
+    }
+
+    // id 가 [fromId, toId) 인 상품 id (순회 중 추가되는 id 는 보일 수도, 안 보일 수도 있음)
+    Set<Long> ids(long fromId, long toId) {
+        return store.subMap(fromId, true, toId, false).keySet();
+    }
+
+    long maxId() {
+        Map.Entry<Long, ItemVersion> last = store.lastEntry();
+        return last == null ? 0 : last.getKey();
+    }
+
+    Snapshot openSnapshot() {
+        while (true) {
+            long snapshot = clock.get();
+            activeSnapshots.merge(snapshot, 1, Integer::sum);
+            if (snapshot >= reclaimedUpTo.get()) return new Snapshot(snapshot);
+            release(snapshot);      // 등록하기 전에 이미 정리가 지나감 => 새 시점으로 다시
+        }
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    void clear() {
+        store.clear();
+        priceIndex.clear();
+        nameIndex.clear();
+        retired.clear();
+    }
+
+    /**
+     * 가장 오래된 스냅샷도 볼 일 없는 버전 체인을 끊어냄
+     */
+    private void prune(ItemVersion head, long horizon) {
+        ItemVersion v = head;
+        while (v != null && v.version > horizon) {
+            v = v.previous;
+        }
+        if (v != null) v.previous = null;       // horizon 에서 보이는 버전까지만 남김
+    }
+
+    private void retire(long version, Runnable cleanup) {
+        retired.add(new Retired(version, cleanup));
+    }
+
+    /**
+     * 모든 스냅샷이 새 버전을 보게 된 옛 인덱스 키 제거
+     */
+    private void reclaim(long horizon) {
+        Retired head;
+        while ((head = retired.peek()) != null && head.version <= horizon) {
+            if (retired.remove(head)) head.cleanup.run();       // 다른 스레드가 먼저 가져갔으면 false
+        }
+    }
+
+    private long horizon() {
+        long horizon = oldestSnapshotOr(clock.get());
+        reclaimedUpTo.accumulateAndGet(horizon, Math::max);
+        // 위에서 올리는 사이에 등록된 스냅샷이 있을 수 있으므로 한 번 더 확인
+        return Math.min(horizon, oldestSnapshotOr(horizon));
+    }
+
+    private long oldestSnapshotOr(long defaultValue) {
+        try {
+            return activeSnapshots.firstKey();
+        } catch (NoSuchElementException e) {
+            return defaultValue;
+        }
+    }
+
+    private void release(long snapshot) {
+        activeSnapshots.computeIfPresent(snapshot, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private record Retired(long version, Runnable cleanup) {
+    }
+
+    /**
+     * 한 시점 기준 읽기. try-with-resources 로 꼭 닫아줘야 오래된 버전이 정리됨
+     */
+    class Snapshot implements AutoCloseable, Iterable<ItemVersion> {
+
+        private final long snapshot;
+
+        private Snapshot(long snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        ItemVersion get(long id) {
+            ItemVersion head = store.get(id);
+            return head == null ? null : head.visibleAt(snapshot, clock);
+        }
+
+        /**
+         * 가격 인덱스로 price <= maxPrice 인 상품만 (id 순)
+         * 인덱스 범위에 걸린 상품만 보므로 전체를 훑지 않음
+         */
+        List<ItemVersion> priceAtMost(int maxPrice) {
+            List<ItemVersion> result = new ArrayList<>();
+            for (MemoryPriceIndex.PriceKey key : priceIndex.atMost(maxPrice)) {
+                ItemVersion visible = get(key.id());
+                // 스냅샷에서 보이는 버전의 가격 키만 인정 (옛 키/새 키 중복 제거)
+                if (visible != null && visible.price != null && visible.price == key.price()) {
+                    result.add(visible);
+                }
+            }
+            result.sort(Comparator.comparingLong(v -> v.id));
+            return result;
+        }
+
+        /**
+         * trigram 인덱스로 상품명에 query 가 들어간 상품만 (id 순)
+         * 후보는 모든 trigram 을 가진 id 뿐이므로, 실제로 들어있는지는 스냅샷 버전으로 다시 확인
+         * @return query 가 3글자보다 짧아서 인덱스를 못 쓰면 null
+         */
+        List<ItemVersion> nameContains(String query) {
+            List<Long> candidates = nameIndex.candidates(query);
+            if (candidates == null) return null;
+            return candidates.stream()
+                    .map(this::get)
+                    .filter(visible -> visible != null && visible.itemName != null && visible.itemName.contains(query))
+                    .toList();
+        }
+
+        /**
+         * id 순서대로, 스냅샷 시점에 존재하던 상품만
+         */
+        @Override
+        public Iterator<ItemVersion> iterator() {
+            return visible(store.values().iterator());
+        }
+
+        /**
+         * id > afterId 인 것만 (keyset 페이징). 앞쪽 id 는 건너뛰지 않고 바로 그 위치부터 시작
+         */
+        Iterable<ItemVersion> after(long afterId) {
+            return () -> visible(store.tailMap(afterId, false).values().iterator());
+        }
+
+        /**
+         * id < beforeId 인 것만, id 역순 (이전 페이지). 바로 그 위치부터 거꾸로 시작
+         */
+        Iterable<ItemVersion> before(long beforeId) {
+            return () -> visible(store.headMap(beforeId, false).descendingMap().values().iterator());
+        }
+
+        private Iterator<ItemVersion> visible(Iterator<ItemVersion> heads) {
+            return new Iterator<>() {
+                private ItemVersion next = advance();
+
+                private ItemVersion advance() {
+                    while (heads.hasNext()) {
+                        ItemVersion visible = heads.next().visibleAt(snapshot, clock);
+                        if (visible != null) return visible;
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public ItemVersion next() {
+                    if (next == null) throw new NoSuchElementException();
+                    ItemVersion current = next;
+                    next = advance();
+                    return current;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            release(snapshot);
+        }
+    }
+}
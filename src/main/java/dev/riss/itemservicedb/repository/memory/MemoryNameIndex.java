@@ -0,0 +1,102 @@
+package dev.riss.itemservicedb.repository.memory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 상품명 trigram(3-gram) 역색인: gram -> (id -> 참조 수)
+ *
+ * "itemA-1" => "ite", "tem", "emA", "mA-", "A-1"
+ * contains("temA") 검색은 "tem", "emA" 두 posting list 의 교집합만 후보로 보고, 후보만 실제 contains 로 확인
+ * => like '%x%' 처럼 전체를 훑지 않음
+ *
+ *  - posting list 는 id 정렬(ConcurrentSkipListMap) => ceilingKey 로 건너뛰며 교집합, 결과도 id 순
+ *  - 3글자보다 짧은 검색어는 gram 을 만들 수 없으므로 null 반환 (호출하는 쪽에서 다른 방법으로 찾음)
+ *  - 값은 참조 수. 한 상품의 옛 이름/새 이름이 같은 gram 을 가질 수 있으므로
+ *    옛 버전을 볼 수 있는 스냅샷이 남아있는 동안은 두 버전이 각각 하나씩 잡고 있음 (MemoryPriceIndex 와 같은 방식)
+ *  - 메모리: 상품당 (이름 길이 - 2) 개 엔트리. 검색 속도와 맞바꾸는 것
+ */
+class MemoryNameIndex {
+
+    static final int GRAM = 3;
+
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Long, Integer>> postings = new ConcurrentHashMap<>();
+
+    void add(String itemName, long id) {
+        for (String gram : grams(itemName)) {
+            postings.compute(gram, (g, ids) -> {
+                if (ids == null) ids = new ConcurrentSkipListMap<>();
+                ids.merge(id, 1, Integer::sum);
+                return ids;
+            });
+        }
+    }
+
+    /**
+     * 비게 된 posting list 는 맵에서 뺌 (이름이 계속 바뀌어도 한 번 나왔던 gram 이 전부 남아 메모리가 늘지 않도록)
+     * 빼는 것과 add 가 엇갈리지 않도록 gram 단위 compute 안에서 (ConcurrentHashMap 의 bin 하나만 잠깐 잡음, 읽는 쪽 get 은 그대로 락 없음)
+     */
+    void remove(String itemName, long id) {
+        for (String gram : grams(itemName)) {
+            postings.computeIfPresent(gram, (g, ids) -> {
+                ids.computeIfPresent(id, (k, count) -> count == 1 ? null : count - 1);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * query 를 포함할 수도 있는 상품 id (id 순). 실제로 포함하는지는 호출하는 쪽에서 확인해야 함
+     * @return query 가 3글자 미만이라 인덱스를 쓸 수 없으면 null
+     */
+    List<Long> candidates(String query) {
+        Set<String> grams = grams(query);
+        if (grams.isEmpty()) return null;
+
+        List<ConcurrentSkipListMap<Long, Integer>> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            ConcurrentSkipListMap<Long, Integer> ids = postings.get(gram);
+            if (ids == null) return List.of();      // 한 gram 이라도 없으면 결과 없음
+            lists.add(ids);
+        }
+
+        // leapfrog 교집합: 목록을 돌아가며 ceilingKey(후보) 로 건너뜀
+        // 모든 목록이 같은 id 를 내놓으면 결과. 정렬된 목록이라 긴 목록을 처음부터 다 훑지 않음
+        List<Long> result = new ArrayList<>();
+        long candidate = Long.MIN_VALUE;
+        while (true) {
+            int matched = 0;
+            for (int i = 0; matched < lists.size(); i = (i + 1) % lists.size()) {
+                Long next = lists.get(i).ceilingKey(candidate);
+                if (next == null) return result;
+                if (next == candidate) {
+                    matched++;
+                } else {
+                    candidate = next;
+                    matched = 1;
+                }
+            }
+            result.add(candidate);
+            candidate++;
+        }
+    }
+
+    // 지금 들고 있는 gram 수 (빈 posting list 는 안 셈)
+    int gramCount() {
+        return postings.size();
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    private static Set<String> grams(String text) {
+        if (text == null || text.length() < GRAM) return Set.of();
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
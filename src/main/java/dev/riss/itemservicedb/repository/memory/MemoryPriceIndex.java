@@ -0,0 +1,53 @@
+package dev.riss.itemservicedb.repository.memory;
+
+import java.util.Comparator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 가격 보조 인덱스 (price, id) -> 참조 수
+ *
+ * maxPrice 검색은 headMap(maxPrice) 범위만 보면 되므로 전체 상품을 안 훑음 (O(n) -> O(log n + 결과수))
+ *
+ * MVCC 와 맞추기 위한 규칙 (MemoryItemStore 가 지킴)
+ *  - 새 키는 버전을 저장하기 "전에" 추가 => 스냅샷이 인덱스에서 상품을 놓치는 일 없음
+ *  - 옛 키는 그 옛 버전을 볼 수 있는 스냅샷이 다 닫힌 뒤에 제거
+ *  - 인덱스에는 잠깐 옛 키/새 키가 같이 있을 수 있으므로, 읽는 쪽에서 스냅샷 버전의 가격과 키 가격이 같은 것만 사용
+ *  - 가격이 A -> B -> A 로 바뀌면 같은 (A, id) 키를 두 버전이 같이 쓰게 됨 => 값은 참조 수, 0 이 되면 제거
+ */
+class MemoryPriceIndex {
+
+    private final ConcurrentSkipListMap<PriceKey, Integer> index = new ConcurrentSkipListMap<>();
+
+    void add(Integer price, long id) {
+        if (price == null) return;      // 가격 없는 상품은 maxPrice 조건에 절대 안 걸리므로 인덱스에 안 넣음
+        index.merge(new PriceKey(price, id), 1, Integer::sum);
+    }
+
+    void remove(Integer price, long id) {
+        if (price == null) return;
+        index.computeIfPresent(new PriceKey(price, id), (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * price <= maxPrice 인 키 (가격 오름차순)
+     */
+    NavigableSet<PriceKey> atMost(int maxPrice) {
+        return index.headMap(new PriceKey(maxPrice, Long.MAX_VALUE), true).navigableKeySet();
+    }
+
+    void clear() {
+        index.clear();
+    }
+
+    record PriceKey(int price, long id) implements Comparable<PriceKey> {
+
+        private static final Comparator<PriceKey> ORDER =
+                Comparator.comparingInt(PriceKey::price).thenComparingLong(PriceKey::id);
+
+        @Override
+        public int compareTo(PriceKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
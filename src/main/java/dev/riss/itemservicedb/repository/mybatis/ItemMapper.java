@@ -1,10 +1,12 @@
 package dev.riss.itemservicedb.repository.mybatis;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Optional;
@@ -32,10 +34,24 @@ public interface ItemMapper {
     void save (Item item);
 
     // @Param: 파라미터가 1개일 때는 생략 가능, 2개 이상일 때는 @Param("xml 에서 쓰일 파라미터 이름")
-    void update (@Param("id") Long id, @Param("updateParam") ItemUpdateDto updateParam);
+    // 반환 타입이 int 면 UPDATE 된 행 수 (0 이면 없는 상품이거나 version 이 다름)
+    int update (@Param("id") Long id, @Param("updateParam") ItemUpdateDto updateParam);
 
     List<Item> findAll (ItemSearchCond itemSearch);
 
+    // 반환 타입이 Cursor 면 결과를 한 번에 다 읽지 않고 iterator 로 한 행씩 꺼냄
+    Cursor<Item> findAllCursor (ItemSearchCond itemSearch);
+
     Optional<Item> findById (Long id);
 
+    // 반환 타입이 int 면 UPDATE 된 행 수
+    int reprice (@Param("param") ItemRepriceParam param, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    long findMaxId ();
+
+    // 재고 차감/되돌리기. 반환값은 UPDATE 된 행 수 (차감은 재고가 모자라도 0)
+    int reserveStock (@Param("id") Long id, @Param("quantity") int quantity);
+
+    int releaseStock (@Param("id") Long id, @Param("quantity") int quantity);
+
 }
@@ -2,14 +2,26 @@ package dev.riss.itemservicedb.repository.mybatis;
 
 import dev.riss.itemservicedb.domain.Item;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemBatchInserter;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Repository
@@ -17,26 +29,88 @@ import java.util.Optional;
 public class MybatisItemRepository implements ItemRepository {
 
     private final ItemMapper itemMapper;
+    private final SqlSessionFactory sqlSessionFactory;
 
     @Override
     public Item save(Item item) {
         log.info("itemMapper class={}", itemMapper.getClass());
         itemMapper.save(item);
+        item.setVersion(0L);        // 컬럼 기본값 (V4__add_item_version.sql)
         return item;
     }
 
+    /**
+     * ExecutorType.BATCH 세션: mapper.save 를 바로 실행하지 않고 JDBC batch 에 쌓아뒀다가 flushStatements 때 한 번에 보냄
+     * 생성된 키(useGeneratedKeys) 도 flush 할 때 각 Item 의 id 에 채워짐
+     * 한 번에 보내는 행 수는 다른 구현들과 같은 ItemBatchInserter.BATCH_SIZE
+     *
+     * 주입받은 itemMapper(SqlSessionTemplate) 는 트랜잭션마다 SIMPLE 세션 하나를 묶어두므로, 같은 트랜잭션에서 BATCH 로 바꿀 수 없음
+     * => 팩토리에서 BATCH 세션을 따로 엶. MyBatis-Spring 의 SpringManagedTransaction 이 DataSourceUtils 로 커넥션을 얻으므로
+     *    지금 트랜잭션의 커넥션을 그대로 같이 씀 (커밋/롤백도 스프링 트랜잭션을 따라감)
+     */
+    @Transactional
+    @Override
+    public List<Item> saveAll(List<Item> items) {
+        try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            ItemMapper batchMapper = batchSession.getMapper(ItemMapper.class);
+            for (int i = 0; i < items.size(); i++) {
+                batchMapper.save(items.get(i));
+                if ((i + 1) % ItemBatchInserter.BATCH_SIZE == 0) batchSession.flushStatements();
+            }
+            batchSession.flushStatements();
+        }
+        items.forEach(item -> item.setVersion(0L));
+        return items;
+    }
+
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        itemMapper.update(itemId, updateParam);
+        int updated = itemMapper.update(itemId, updateParam);
+        ItemUpdates.check(updated, itemId, updateParam, () -> itemMapper.findById(itemId).isPresent());
+    }
+
+    @Override
+    public int reprice(ItemRepriceParam param, long fromId, long toId) {
+        return itemMapper.reprice(param, fromId, toId);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        int updated = itemMapper.reserveStock(itemId, quantity);
+        return ItemUpdates.reserved(updated, itemId, () -> itemMapper.findById(itemId).isPresent());
     }
 
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        ItemUpdates.released(itemMapper.releaseStock(itemId, quantity), itemId);
+    }
+
+    @Override
+    public long findMaxId() {
+        return itemMapper.findMaxId();
+    }
+
+    // 읽기 전용 트랜잭션 => 읽기/쓰기 분리(ReplicaRoutingConfig) 를 켜면 replica 에서 읽음 (DB 를 안 쓰는 메모리/컬럼 저장소엔 안 붙임)
+    @Transactional(readOnly = true)
     @Override
     public Optional<Item> findById(Long id) {
         return itemMapper.findById(id);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Item> findAll(ItemSearchCond cond) {
-        return itemMapper.findAll(cond);
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), itemMapper.findAll(cond));
+    }
+
+    // Cursor 는 SqlSession 이 닫히면 못 읽음 => 트랜잭션으로 메서드 끝날 때까지 세션(커넥션) 유지
+    @Transactional(readOnly = true)
+    @Override
+    public void streamAll(ItemSearchCond cond, Consumer<Item> action) {
+        try (Cursor<Item> cursor = itemMapper.findAllCursor(cond)) {
+            cursor.forEach(action);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
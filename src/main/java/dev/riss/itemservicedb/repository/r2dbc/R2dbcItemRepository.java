@@ -0,0 +1,125 @@
+package dev.riss.itemservicedb.repository.r2dbc;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.ReactiveItemRepository;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * R2DBC DatabaseClient
+ *  - NamedParameterJdbcTemplate 처럼 :xxx 이름 기반 파라미터 사용 => 실행할 때 드라이버 문법(H2 는 $1, $2 ..)으로 바꿔서 보냄
+ *  - 값이 null 일 수 있는 파라미터는 bindNull 로 타입을 같이 넘겨야 함
+ *  - 커넥션은 구독할 때 풀에서 받고, 결과를 다 보내거나 구독이 취소되면 반납
+ *  - findAll 은 요청(request) 한 만큼 흘려보내지만, 드라이버에서 행을 꺼내는 건 DatabaseClient 안쪽 flatMap 의 prefetch 단위 (FETCH_WINDOW)
+ *    => 2 건만 받고 취소해도 최대 FETCH_WINDOW 행까지는 매핑될 수 있음 (나머지 행은 안 읽음)
+ *
+ * SQL 은 JdbcTemplateItemRepositoryV2 와 같음 (findAll 32 가지 조합도 같은 ItemQueryVariants 조각)
+ *
+ * H2 R2DBC 드라이버는 H2 엔진(임베디드/tcp) 을 그대로 부르는 어댑터라서, 실제 DB I/O 는 구독한 스레드에서 블로킹으로 일어남
+ * => API 는 리액티브지만 I/O 까지 논블로킹인 건 아님 (PostgreSQL, MySQL 등 네트워크 드라이버로 바꾸면 이벤트 루프에서 논블로킹)
+ */
+public class R2dbcItemRepository implements ReactiveItemRepository {
+
+    static final ItemQueryVariants FIND_ALL_SQL = new ItemQueryVariants(
+            "SELECT id, item_name, price, quantity, version FROM item",
+            Map.of(ItemNameMatch.CONTAINS, "item_name like concat('%', :itemName, '%')",
+                    ItemNameMatch.PREFIX, "item_name like concat(:itemName, '%')",
+                    ItemNameMatch.TOKEN, ItemFullText.ID_IN_NAMED),
+            "price <= :maxPrice",
+            "id > :afterId",
+            "id < :beforeId",
+            "ORDER BY id",
+            "ORDER BY id LIMIT :size",
+            "ORDER BY id DESC LIMIT :size");
+
+    // reactor Queues.XS_BUFFER_SIZE (Flux.flatMap 의 기본 prefetch)
+    public static final int FETCH_WINDOW = 32;
+
+    private final DatabaseClient client;
+
+    public R2dbcItemRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Mono<Item> save(Item item) {
+        DatabaseClient.GenericExecuteSpec spec = client.sql("INSERT INTO item(item_name, price, quantity) VALUES(:itemName, :price, :quantity)")
+                .filter(statement -> statement.returnGeneratedValues("id"));
+        return bind(spec, item.getItemName(), item.getPrice(), item.getQuantity())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .map(id -> {
+                    item.setId(id);
+                    item.setVersion(0L);        // 컬럼 기본값 (V4__add_item_version.sql)
+                    return item;
+                });
+    }
+
+    // 조건부 UPDATE 한 문장 (JdbcTemplateItemRepositoryV1.update 참고). 실패는 예외 대신 Mono.error 로
+    @Override
+    public Mono<Void> update(Long itemId, ItemUpdateDto updateParam) {
+        String sql = "UPDATE item SET item_name=:itemName, price=:price, quantity=:quantity, version=version+1 WHERE id=:id";
+        if (null != updateParam.getVersion()) sql += " AND version=:version";
+
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql).bind("id", itemId);
+        if (null != updateParam.getVersion()) spec = spec.bind("version", updateParam.getVersion());
+        return bind(spec, updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty() : checkFailure(itemId, updateParam));
+    }
+
+    // 0 행이면 없는 상품인지 충돌인지 한 번 더 조회해서 구분 (성공 경로는 UPDATE 한 번)
+    private Mono<Void> checkFailure(Long itemId, ItemUpdateDto updateParam) {
+        return findById(itemId).hasElement()
+                .flatMap(exists -> Mono.fromRunnable(() -> ItemUpdates.check(0, itemId, updateParam, () -> exists)));
+    }
+
+    @Override
+    public Mono<Item> findById(Long id) {
+        return client.sql("SELECT id, item_name, price, quantity, version FROM item WHERE id = :id")
+                .bind("id", id)
+                .map(R2dbcItemRepository::toItem)
+                .one();
+    }
+
+    @Override
+    public Flux<Item> findAll(ItemSearchCond cond) {
+        int mask = ItemQueryVariants.mask(cond);
+        DatabaseClient.GenericExecuteSpec spec = client.sql(FIND_ALL_SQL.get(cond.getNameMatch(), mask));
+        // 조합에 들어간 조건 값만 바인딩 (쿼리에 없는 이름을 바인딩하면 오류)
+        if ((mask & ItemQueryVariants.NAME) != 0) spec = spec.bind("itemName", cond.getItemName());
+        if ((mask & ItemQueryVariants.MAX_PRICE) != 0) spec = spec.bind("maxPrice", cond.getMaxPrice());
+        if ((mask & ItemQueryVariants.AFTER_ID) != 0) spec = spec.bind("afterId", cond.getAfterId());
+        if ((mask & ItemQueryVariants.BEFORE_ID) != 0) spec = spec.bind("beforeId", cond.getBeforeId());
+        if ((mask & ItemQueryVariants.SIZE) != 0) spec = spec.bind("size", cond.getSize());
+        Flux<Item> rows = spec.map(R2dbcItemRepository::toItem).all();
+        // 이전 페이지(id 내림차순) 는 size 개뿐이므로 모아서 뒤집음
+        if (ItemQueryVariants.reversed(mask)) return rows.collectList().flatMapIterable(items -> ItemQueryVariants.inIdOrder(mask, items));
+        return rows;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String itemName, Integer price, Integer quantity) {
+        spec = itemName == null ? spec.bindNull("itemName", String.class) : spec.bind("itemName", itemName);
+        spec = price == null ? spec.bindNull("price", Integer.class) : spec.bind("price", price);
+        return quantity == null ? spec.bindNull("quantity", Integer.class) : spec.bind("quantity", quantity);
+    }
+
+    // 컬럼 순서는 SELECT 절과 같음 (ItemRowMappers 처럼 인덱스로 읽음)
+    private static Item toItem(Readable row) {
+        Item item = new Item(row.get(1, String.class), row.get(2, Integer.class), row.get(3, Integer.class));
+        item.setId(row.get(0, Long.class));
+        item.setVersion(row.get(4, Long.class));
+        return item;
+    }
+}
@@ -0,0 +1,53 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+
+import java.sql.*;
+import java.util.List;
+
+/**
+ * 여러 상품을 JDBC batch INSERT 하고, DB 가 만든 id 를 각 Item 에 채워줌
+ *
+ * save 를 여러 번 부르면 한 건마다 DB 왕복 1번 (+ 자동 커밋이면 커밋도 1번)
+ * batch 는 addBatch 로 모아서 executeBatch 한 번에 보냄 => 왕복 횟수가 BATCH_SIZE 분의 1
+ *
+ * 이걸 따로 만든 이유
+ *  - JdbcTemplate.batchUpdate 는 생성된 키를 돌려주는 버전이 없음 (KeyHolder 는 단건 update 만 지원, 스프링 6.0 기준)
+ *  - SimpleJdbcInsert.executeBatch 도 영향받은 행 수만 돌려줌
+ *  - JPA 는 IDENTITY 전략이면 persist 할 때마다 바로 INSERT 해서 id 를 받아와야 하므로 하이버네이트가 INSERT batch 를 꺼버림
+ *  => 커넥션을 직접 받아서 (ConnectionCallback, Session.doReturningWork) 여기서 batch + getGeneratedKeys
+ */
+public final class ItemBatchInserter {
+
+    public static final int BATCH_SIZE = 1000;      // 한 번에 보내는 행 수 (너무 크면 드라이버/DB 쪽 메모리 부담)
+
+    private static final String SQL = "INSERT INTO item(item_name, price, quantity) VALUES(?, ?, ?)";
+
+    private ItemBatchInserter() {
+    }
+
+    public static List<Item> insert(Connection con, List<Item> items) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement(SQL, new String[]{"id"})) {
+            for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+                List<Item> chunk = items.subList(from, Math.min(from + BATCH_SIZE, items.size()));
+                for (Item item : chunk) {
+                    pstmt.setString(1, item.getItemName());
+                    pstmt.setObject(2, item.getPrice(), Types.INTEGER);
+                    pstmt.setObject(3, item.getQuantity(), Types.INTEGER);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                // 생성된 키는 addBatch 한 순서대로 돌아옴
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    for (Item item : chunk) {
+                        if (!keys.next()) throw new SQLException("generated key count does not match batch size " + chunk.size());
+                        item.setId(keys.getLong(1));
+                        item.setVersion(0L);        // 컬럼 기본값 (V4__add_item_version.sql)
+                    }
+                }
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * item.item_name 전문 검색 (ItemNameMatch.TOKEN)
+ *
+ * H2 내장 전문 검색(org.h2.fulltext.FullText) 사용
+ *  - FT_CREATE_INDEX 로 인덱스를 만들면 item 테이블에 트리거가 붙어서 INSERT/UPDATE/DELETE 때 단어 인덱스(FT 스키마)도 같이 갱신
+ *    같은 트랜잭션 안에서 갱신되므로 롤백하면 인덱스도 같이 롤백됨
+ *  - FT_SEARCH_DATA(검색어, limit, offset): 검색어의 모든 단어를 가진 행의 키 목록 (KEYS = 기본키 값 배열)
+ *
+ * DB 마다 한 번 실행해야 함 => Flyway 마이그레이션 V3__add_item_name_fulltext.sql 이 만들고,
+ * 컬럼이 바뀌면 트리거가 안 맞으므로 V4__add_item_version.sql 처럼 다시 만듦 (앱/테스트 공통. 벤치마크처럼 직접 다시 만들 때는 createIndex)
+ *   CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init';
+ *   CALL FT_INIT();
+ *   CALL FT_CREATE_INDEX('PUBLIC', 'ITEM', 'ITEM_NAME');
+ */
+public final class ItemFullText {
+
+    private static final String MATCH_IDS = "SELECT CAST(KEYS[1] AS BIGINT) FROM FT_SEARCH_DATA(%s, 0, 0) WHERE \"TABLE\" = 'ITEM'";
+
+    // JDBC 용 검색 조건. 인덱스가 찾아준 id 로 item 을 거름 (LIKE 처럼 전체 행을 훑지 않음)
+    public static final String ID_IN_POSITIONAL = "id IN (" + MATCH_IDS.formatted("?") + ")";
+    public static final String ID_IN_NAMED = "id IN (" + MATCH_IDS.formatted(":itemName") + ")";
+
+    private ItemFullText() {
+    }
+
+    // JPA 용 findAll 네이티브 쿼리 조합 (JDBC 구현들과 같은 SQL)
+    private static final ItemQueryVariants FIND_ALL_NATIVE = new ItemQueryVariants(
+            "SELECT id, item_name, price, quantity, version FROM item",
+            ID_IN_NAMED,
+            "price <= :maxPrice",
+            "id > :afterId",
+            "id < :beforeId",
+            "ORDER BY id",
+            "ORDER BY id LIMIT :size",
+            "ORDER BY id DESC LIMIT :size");
+
+    public static boolean isTokenSearch(ItemSearchCond cond) {
+        return StringUtils.hasText(cond.getItemName()) && cond.getNameMatch() == ItemNameMatch.TOKEN;
+    }
+
+    /**
+     * JPA 의 전문 검색(isTokenSearch) 조회
+     * JPQL 은 FT_SEARCH_DATA 같은 테이블 함수를 못 쓰므로 나머지 조건까지 전부 네이티브 쿼리 하나로 보내고, 결과는 Item 엔티티로 받음
+     *  - id 목록을 먼저 받아서 i.id IN (...) 로 넘기면 매칭된 수만큼 파라미터가 늘어남 (DB 파라미터 수 제한, 매번 다른 SQL 이라 계획 캐시도 못 씀)
+     *    페이징(size) 도 그 목록을 다 받은 뒤에야 적용됨 => 서브쿼리로 DB 안에서 거르고 LIMIT 까지 DB 에서
+     *  - 이전 페이지(beforeId + size) 는 id 내림차순 => 받는 쪽에서 ItemQueryVariants.inIdOrder 로 뒤집어야 함
+     */
+    public static NativeQuery<Item> findAllQuery(EntityManager em, ItemSearchCond cond) {
+        int mask = ItemQueryVariants.mask(cond);
+        NativeQuery<Item> query = em.unwrap(Session.class).createNativeQuery(FIND_ALL_NATIVE.get(mask), Item.class);
+        query.setParameter("itemName", cond.getItemName());
+        if ((mask & ItemQueryVariants.MAX_PRICE) != 0) query.setParameter("maxPrice", cond.getMaxPrice());
+        if ((mask & ItemQueryVariants.AFTER_ID) != 0) query.setParameter("afterId", cond.getAfterId());
+        if ((mask & ItemQueryVariants.BEFORE_ID) != 0) query.setParameter("beforeId", cond.getBeforeId());
+        if ((mask & ItemQueryVariants.SIZE) != 0) query.setParameter("size", cond.getSize());
+        return query;
+    }
+
+    public static List<Item> findAll(EntityManager em, ItemSearchCond cond) {
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), findAllQuery(em, cond).getResultList());
+    }
+
+    // 인덱스를 다시 만듦 (이미 있으면 지우고. 기존 행도 다 인덱싱하므로 행이 많으면 오래 걸림)
+    public static void createIndex(JdbcTemplate template) {
+        template.execute("CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init'");
+        template.execute("CALL FT_INIT()");
+        template.execute("CALL FT_DROP_INDEX('PUBLIC', 'ITEM')");
+        template.execute("CALL FT_CREATE_INDEX('PUBLIC', 'ITEM', 'ITEM_NAME')");
+    }
+}
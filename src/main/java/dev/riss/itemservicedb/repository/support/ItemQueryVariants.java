@@ -0,0 +1,124 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * findAll 동적 쿼리의 모든 조합을 미리 만들어두는 레지스트리
+ *
+ * 조건은 상품명 / 최대 가격 / afterId / beforeId / size 5개뿐 => 있다/없다 조합이 2^5 = 32 가지
+ * 매 호출마다 문자열을 += 로 이어 붙이는 대신, 생성 시점에 32 개를 다 만들어 두고 조건 비트(mask) 로 배열에서 꺼냄
+ *  - JDBC: 같은 SQL 문자열 => NamedParameterJdbcTemplate 파싱 캐시, DB 쪽 쿼리 캐시도 그대로 재사용
+ *  - JPA: 조합마다 이름을 붙여서 named query 로 등록해두면 JPQL 문자열 없이 이름으로 바로 꺼냄 (JpaItemRepositoryV1)
+ *
+ * 조각(fragment) 순서는 항상 상품명, 가격, afterId, beforeId, size => 위치 기반(?) 파라미터도 args() 순서대로 바인딩하면 됨
+ * 상품명 조각은 검색 방식(ItemNameMatch) 마다 다를 수 있음 => 방식별로 32 개씩
+ * beforeId + size (이전 페이지) 는 id 내림차순으로 size 개 => 결과를 뒤집어야 함 (reversed)
+ * afterId / beforeId 만 있고 size 가 없어도 id 순 정렬은 붙임 (ORDER BY 가 없으면 DB 는 순서를 보장하지 않음 => keyset 커서가 의미 없어짐)
+ */
+public final class ItemQueryVariants {
+
+    public static final int NAME = 1;
+    public static final int MAX_PRICE = 1 << 1;
+    public static final int AFTER_ID = 1 << 2;
+    public static final int SIZE = 1 << 3;
+    public static final int BEFORE_ID = 1 << 4;
+    public static final int COUNT = 1 << 5;
+
+    private final String[][] queries = new String[ItemNameMatch.values().length][COUNT];
+
+    /**
+     * @param select   WHERE 앞부분
+     * @param name     상품명 조건 (검색 방식과 상관없이 같은 조각)
+     * @param maxPrice 가격 조건
+     * @param afterId  keyset 조건 (다음 페이지)
+     * @param beforeId 거꾸로 가는 keyset 조건 (이전 페이지)
+     * @param order    size 없이 afterId / beforeId 만 있을 때 맨 뒤에 붙는 부분 (ORDER BY ...)
+     * @param size     size 가 있을 때 맨 뒤에 붙는 부분 (ORDER BY ... LIMIT ...)
+     * @param sizeBefore beforeId 와 size 가 같이 있을 때 맨 뒤에 붙는 부분 (ORDER BY ... DESC)
+     */
+    public ItemQueryVariants(String select, String name, String maxPrice, String afterId, String beforeId,
+                             String order, String size, String sizeBefore) {
+        this(select, Map.of(ItemNameMatch.CONTAINS, name, ItemNameMatch.PREFIX, name, ItemNameMatch.TOKEN, name),
+                maxPrice, afterId, beforeId, order, size, sizeBefore);
+    }
+
+    /**
+     * @param names 검색 방식별 상품명 조건 (빠진 방식은 조합을 만들지 않음 => get 하면 예외)
+     */
+    public ItemQueryVariants(String select, Map<ItemNameMatch, String> names, String maxPrice, String afterId,
+                             String beforeId, String order, String size, String sizeBefore) {
+        for (ItemNameMatch nameMatch : ItemNameMatch.values()) {
+            String name = names.get(nameMatch);
+            if (name == null) continue;
+            for (int mask = 0; mask < COUNT; mask++) {
+                List<String> predicates = new ArrayList<>();
+                if ((mask & NAME) != 0) predicates.add(name);
+                if ((mask & MAX_PRICE) != 0) predicates.add(maxPrice);
+                if ((mask & AFTER_ID) != 0) predicates.add(afterId);
+                if ((mask & BEFORE_ID) != 0) predicates.add(beforeId);
+
+                StringBuilder query = new StringBuilder(select);
+                if (!predicates.isEmpty()) query.append(" WHERE ").append(String.join(" AND ", predicates));
+                if ((mask & SIZE) != 0) query.append(' ').append(reversed(mask) ? sizeBefore : size);
+                else if ((mask & (AFTER_ID | BEFORE_ID)) != 0) query.append(' ').append(order);
+                queries[nameMatch.ordinal()][mask] = query.toString();
+            }
+        }
+    }
+
+    // 레포지토리들이 조건을 쓰는 기준과 같음 (상품명은 글자가 있을 때만)
+    public static int mask(ItemSearchCond cond) {
+        int mask = 0;
+        if (StringUtils.hasText(cond.getItemName())) mask |= NAME;
+        if (null != cond.getMaxPrice()) mask |= MAX_PRICE;
+        if (null != cond.getAfterId()) mask |= AFTER_ID;
+        if (null != cond.getBeforeId()) mask |= BEFORE_ID;
+        if (null != cond.getSize()) mask |= SIZE;
+        return mask;
+    }
+
+    // id 내림차순으로 조회하는 조합 (이전 페이지) => 호출하는 쪽에서 결과를 뒤집어서 id 오름차순으로
+    public static boolean reversed(int mask) {
+        return (mask & (BEFORE_ID | SIZE)) == (BEFORE_ID | SIZE);
+    }
+
+    // 조회 결과를 id 오름차순으로 (reversed 조합이면 뒤집음, 받은 리스트를 그대로 고침)
+    public static <T> List<T> inIdOrder(int mask, List<T> rows) {
+        if (reversed(mask)) Collections.reverse(rows);
+        return rows;
+    }
+
+    // mask 에 들어있는 조건 값만 조각 순서대로 (위치 기반 파라미터용)
+    public static Object[] args(ItemSearchCond cond, int mask) {
+        Object[] args = new Object[Integer.bitCount(mask)];
+        int i = 0;
+        if ((mask & NAME) != 0) args[i++] = cond.getItemName();
+        if ((mask & MAX_PRICE) != 0) args[i++] = cond.getMaxPrice();
+        if ((mask & AFTER_ID) != 0) args[i++] = cond.getAfterId();
+        if ((mask & BEFORE_ID) != 0) args[i++] = cond.getBeforeId();
+        if ((mask & SIZE) != 0) args[i] = cond.getSize();
+        return args;
+    }
+
+    // 상품명 검색 방식 기본값(CONTAINS)
+    public String get(int mask) {
+        return get(ItemNameMatch.CONTAINS, mask);
+    }
+
+    public String get(ItemNameMatch nameMatch, int mask) {
+        String query = queries[nameMatch.ordinal()][mask];
+        if (query == null) throw new IllegalArgumentException("no name fragment for " + nameMatch);
+        return query;
+    }
+
+    public String get(ItemSearchCond cond) {
+        return get(cond.getNameMatch(), mask(cond));
+    }
+}
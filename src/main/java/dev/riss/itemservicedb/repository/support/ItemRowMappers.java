@@ -0,0 +1,69 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 컬럼 순서(레이아웃) 별로 한 번만 만들어서 재사용하는 Item RowMapper
+ *
+ * BeanPropertyRowMapper 는 매 쿼리마다 newInstance 로 새로 만들고,
+ * 행마다 컬럼명 -> 프로퍼티 이름 매칭 + 리플렉션으로 setter 를 호출함 => 결과가 많으면 CPU 를 꽤 씀
+ * 여기서는
+ *  - 컬럼명 -> setter 매칭은 레이아웃을 처음 볼 때 한 번만 (컬럼마다 setter 를 호출하는 람다를 골라둠)
+ *  - 행마다는 인덱스(1, 2, ...) 로 읽고 람다로 바로 set => 이름 검색도, 리플렉션도 없음
+ *  - 숫자 컬럼은 getObject(i, Integer.class) 로 읽어서 NULL 이 0 으로 바뀌지 않음 (rs.getInt 는 NULL 이면 0)
+ */
+public final class ItemRowMappers {
+
+    private static final Map<String, ColumnMapper> COLUMNS = Map.of(
+            "id", (rs, i, item) -> item.setId(rs.getObject(i, Long.class)),
+            "itemname", (rs, i, item) -> item.setItemName(rs.getString(i)),
+            "price", (rs, i, item) -> item.setPrice(rs.getObject(i, Integer.class)),
+            "quantity", (rs, i, item) -> item.setQuantity(rs.getObject(i, Integer.class)),
+            "version", (rs, i, item) -> item.setVersion(rs.getObject(i, Long.class)));
+
+    private static final Map<List<String>, RowMapper<Item>> CACHE = new ConcurrentHashMap<>();
+
+    // SELECT id, item_name, price, quantity, version ... 용 (static 초기화 순서상 COLUMNS, CACHE 보다 뒤에 있어야 함)
+    public static final RowMapper<Item> ITEM = of("id", "item_name", "price", "quantity", "version");
+
+    private ItemRowMappers() {
+    }
+
+    /**
+     * columns: SELECT 절 컬럼 순서 그대로 (item_name / itemName 둘 다 가능)
+     * 같은 레이아웃이면 같은 인스턴스를 돌려줌
+     */
+    public static RowMapper<Item> of(String... columns) {
+        return CACHE.computeIfAbsent(List.of(columns), ItemRowMappers::create);
+    }
+
+    private static RowMapper<Item> create(List<String> columns) {
+        ColumnMapper[] mappers = new ColumnMapper[columns.size()];
+        for (int i = 0; i < mappers.length; i++) {
+            String key = columns.get(i).replace("_", "").toLowerCase(Locale.ROOT);
+            mappers[i] = COLUMNS.get(key);
+            if (mappers[i] == null) throw new IllegalArgumentException("unknown item column: " + columns.get(i));
+        }
+
+        return (rs, rowNum) -> {
+            Item item = new Item();
+            for (int i = 0; i < mappers.length; i++) {
+                mappers[i].map(rs, i + 1, item);     // JDBC 컬럼 인덱스는 1 부터
+            }
+            return item;
+        };
+    }
+
+    @FunctionalInterface
+    private interface ColumnMapper {
+        void map(ResultSet rs, int index, Item item) throws SQLException;
+    }
+}
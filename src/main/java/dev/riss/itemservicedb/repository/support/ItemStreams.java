@@ -0,0 +1,47 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * streamAll 구현들이 같이 쓰는 값/도우미
+ *
+ * JPA 구현은 스트림으로 읽은 엔티티도 영속성 컨텍스트(1차 캐시)에 쌓이므로 다 쓴 엔티티를 detach 함
+ * 그런데 호출하는 쪽 트랜잭션에 참여한 경우, 같은 id 의 엔티티를 이미 들고 있으면 스트림도 그 인스턴스를 돌려줌
+ *  => 그대로 detach 하면 호출한 쪽 엔티티의 변경 감지가 꺼져버림
+ *  => 스트림을 열기 전에 이미 영속 상태였던 엔티티는 빼고, 이 스트림이 새로 올린 엔티티만 detach
+ */
+public final class ItemStreams {
+
+    public static final int FETCH_SIZE = 1000;      // 드라이버가 DB 에서 한 번에 가져오는 행 수 (ItemMapper.xml 의 fetchSize 도 같은 값)
+
+    private ItemStreams() {
+    }
+
+    // 스트림을 열기 전에 불러야 함 (그 시점에 영속 상태인 엔티티를 기억해둠)
+    public static Consumer<Item> detachingLoaded(EntityManager em, Consumer<Item> action) {
+        PersistenceContext context = em.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        if (context.getNumberOfManagedEntities() == 0) {
+            return item -> {
+                action.accept(item);
+                em.detach(item);
+            };
+        }
+
+        Set<Object> managed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) managed.add(entry.getKey());
+        return item -> {
+            action.accept(item);
+            if (!managed.contains(item)) em.detach(item);
+        };
+    }
+}
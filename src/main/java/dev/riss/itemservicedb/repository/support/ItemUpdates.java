@@ -0,0 +1,80 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 조건부 UPDATE 한 문장(UPDATE ... SET ..., version = version + 1 WHERE id = ? [AND version = ?]) 의 결과 해석
+ *
+ * 예전에는 조회 -> 수정(변경 감지) 으로 DB 왕복이 2번이고, 그 사이에 다른 수정이 들어오면 조용히 덮어씀(lost update)
+ * 지금은 UPDATE 한 번으로 끝내고 영향받은 행 수만 봄
+ *  - 1: 성공
+ *  - 0: 없는 상품 => EmptyResultDataAccessException
+ *       또는 version 을 줬는데 그 사이 누가 먼저 고침 => OptimisticLockingFailureException
+ *  둘을 구분하는 조회(exists) 는 0 일 때만 => 성공 경로는 항상 UPDATE 한 번
+ *
+ * 두 예외 모두 스프링 데이터 접근 예외라서 DB 기술(JDBC, JPA, MyBatis, 메모리) 과 상관없이 컨트롤러에서 똑같이 처리
+ *
+ * JPA 는 벌크 UPDATE 가 영속성 컨텍스트를 건너뛰므로, 바꾼 상품의 엔티티가 올라와 있으면 그것만 detach
+ *  => em.clear() 는 호출한 쪽 트랜잭션이 들고 있는 다른 엔티티까지 준영속으로 만들어 변경 감지가 꺼짐
+ */
+public final class ItemUpdates {
+
+    private ItemUpdates() {
+    }
+
+    public static void check(int updated, Long itemId, ItemUpdateDto updateParam, BooleanSupplier exists) {
+        if (updated > 0) return;
+        if (updateParam.getVersion() != null && exists.getAsBoolean()) {
+            throw new OptimisticLockingFailureException("item " + itemId + " was modified by another request (expected version " + updateParam.getVersion() + ")");
+        }
+        throw notFound(itemId);
+    }
+
+    // 재고 차감(UPDATE ... WHERE id = ? AND quantity >= ?) 결과. 0 이면 재고 부족(false) 인지 없는 상품인지 구분
+    public static boolean reserved(int updated, Long itemId, BooleanSupplier exists) {
+        if (updated > 0) return true;
+        if (exists.getAsBoolean()) return false;
+        throw notFound(itemId);
+    }
+
+    public static void released(int updated, Long itemId) {
+        if (updated == 0) throw notFound(itemId);
+    }
+
+    /**
+     * 되돌린 뒤 재고 (null 은 0 으로). int 범위를 넘으면 DataIntegrityViolationException
+     * SQL 구현은 COALESCE(quantity, 0) + ? 가 INTEGER 컬럼 범위를 넘으면 DB 가 같은 예외를 냄 (스프링 예외 변환) => 메모리/컬럼 저장소도 똑같이
+     */
+    public static int releasedQuantity(Long itemId, Integer current, int quantity) {
+        try {
+            return Math.addExact(current == null ? 0 : current, quantity);
+        } catch (ArithmeticException e) {
+            throw new DataIntegrityViolationException("stock quantity of item " + itemId + " would overflow (" + current + " + " + quantity + ")", e);
+        }
+    }
+
+    public static void checkStockQuantity(int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("stock quantity must be positive: " + quantity);
+    }
+
+    // 벌크 UPDATE 뒤에 부름. 그 id 의 엔티티가 영속 상태면 detach => 다음 조회는 DB 에서 새 값으로 (없으면 아무것도 안 함, 조회 x)
+    public static void detach(EntityManager em, Long itemId) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(Item.class);
+        Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(itemId, persister));
+        if (managed != null) em.detach(managed);
+    }
+
+    private static EmptyResultDataAccessException notFound(Long itemId) {
+        return new EmptyResultDataAccessException("item not found: " + itemId, 1);
+    }
+}
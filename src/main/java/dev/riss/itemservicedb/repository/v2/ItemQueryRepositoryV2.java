@@ -2,45 +2,173 @@ package dev.riss.itemservicedb.repository.v2;
 
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import dev.riss.itemservicedb.domain.Item;
 import dev.riss.itemservicedb.domain.QItem;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemFullText;
+import dev.riss.itemservicedb.repository.support.ItemQueryVariants;
+import dev.riss.itemservicedb.repository.support.ItemStreams;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static dev.riss.itemservicedb.domain.QItem.item;
 
 @Repository
 public class ItemQueryRepositoryV2 {
 
+    private final EntityManager em;
     private final JPAQueryFactory query;
 
     public ItemQueryRepositoryV2(EntityManager em) {
+        this.em = em;
         this.query = new JPAQueryFactory(em);
     }
 
     public List<Item> findAll (ItemSearchCond cond) {
-        return query.select(item)
+        if (ItemFullText.isTokenSearch(cond)) return ItemFullText.findAll(em, cond);
+        return ItemQueryVariants.inIdOrder(ItemQueryVariants.mask(cond), findAllQuery(cond).fetch());
+    }
+
+    // 대용량 조회 - List 로 모으지 않고 한 건씩 넘기고, 다 쓴 엔티티는 영속성 컨텍스트에서 뺌
+    public void stream (ItemSearchCond cond, Consumer<Item> action) {
+        Consumer<Item> detaching = ItemStreams.detachingLoaded(em, action);
+        try (Stream<Item> items = ItemFullText.isTokenSearch(cond) ? tokenStream(cond) : findAllQuery(cond)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream()) {
+            items.forEach(detaching);
+        }
+    }
+
+    // 가격 일괄 변경 - id 구간 하나를 벌크 UPDATE 한 문장으로 (구간마다 트랜잭션 하나)
+    // 벌크 연산은 영속성 컨텍스트를 건너뛰므로 실행 전 flush, 실행 후 clear
+    @Transactional
+    public int reprice (ItemRepriceParam param, long fromId, long toId) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.price, Expressions.numberTemplate(Integer.class,
+                        "cast(cast({0} as Long) * {1} / 100 as Integer)", item.price, param.getFactor()))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.goe(fromId), item.id.lt(toId), item.price.isNotNull(), maxPrice(param.getMaxPrice()))
+                .execute();
+        em.clear();
+        return (int) updated;
+    }
+
+    // 상품 수정 - 조회 + 변경 감지 대신 조건부 벌크 UPDATE 한 문장 (version 이 다르면 0 행 => 충돌, ItemUpdates)
+    // 벌크 연산이므로 reprice 처럼 실행 전 flush. 실행 후엔 clear 대신 그 상품 엔티티만 detach (ItemUpdates.detach, 호출한 쪽 엔티티는 그대로)
+    @Transactional
+    public void update (Long itemId, ItemUpdateDto updateParam) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.itemName, updateParam.getItemName())
+                .set(item.price, updateParam.getPrice())
+                .set(item.quantity, updateParam.getQuantity())
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId), versionEq(updateParam.getVersion()))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.check((int) updated, itemId, updateParam, () -> em.find(Item.class, itemId) != null);
+    }
+
+    // 재고 차감 - 조건부 벌크 UPDATE 한 문장 (quantity >= 수량인 행만, 모자라면 0 행 => false)
+    @Transactional
+    public boolean reserveStock (Long itemId, int quantity) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.quantity, item.quantity.subtract(quantity))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId), item.quantity.goe(quantity))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        return ItemUpdates.reserved((int) updated, itemId, () -> em.find(Item.class, itemId) != null);
+    }
+
+    @Transactional
+    public void releaseStock (Long itemId, int quantity) {
+        em.flush();
+        long updated = query.update(item)
+                .set(item.quantity, item.quantity.coalesce(0).add(quantity))
+                .set(item.version, item.version.add(1L))
+                .where(item.id.eq(itemId))
+                .execute();
+        ItemUpdates.detach(em, itemId);
+        ItemUpdates.released((int) updated, itemId);
+    }
+
+    public long findMaxId () {
+        Long maxId = query.select(item.id.max()).from(item).fetchOne();
+        return maxId == null ? 0 : maxId;
+    }
+
+    private JPAQuery<Item> findAllQuery (ItemSearchCond cond) {
+        JPAQuery<Item> jpaQuery = query.select(item)
                 .from(item)
                 .where(
-                        likeItemName(cond.getItemName()),
-                        maxPrice(cond.getMaxPrice())
-                )
-                .fetch();
+                        itemName(cond),
+                        maxPrice(cond.getMaxPrice()),
+                        afterId(cond.getAfterId()),
+                        beforeId(cond.getBeforeId())
+                );
+
+        // keyset 페이징 (이전 페이지는 id 내림차순 => findAll 에서 뒤집음). size 없이 afterId / beforeId 만 있어도 id 순
+        if (null != cond.getSize()) {
+            jpaQuery.orderBy(ItemQueryVariants.reversed(ItemQueryVariants.mask(cond)) ? item.id.desc() : item.id.asc()).limit(cond.getSize());
+        } else if (null != cond.getAfterId() || null != cond.getBeforeId()) {
+            jpaQuery.orderBy(item.id.asc());
+        }
+        return jpaQuery;
+    }
+
+    // TOKEN: JPQL(QueryDsl) 로는 전문 검색 함수를 못 부르므로 조건 전체를 네이티브 쿼리 하나로 (ItemFullText.findAllQuery)
+    private Stream<Item> tokenStream (ItemSearchCond cond) {
+        return ItemFullText.findAllQuery(em, cond)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, ItemStreams.FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
     }
 
-    private BooleanExpression likeItemName (String itemName) {
-        if (StringUtils.hasText(itemName))
-            return item.itemName.like("%" + itemName + "%");
-        return null;        // return null 이면 where 문에서 무시됨 (where() 안에 null 이 들어가면 무시됨)
+    // 상품명 검색 방식(ItemNameMatch) 별 조건 (TOKEN 은 위 tokenStream / ItemFullText.findAll 로 가므로 여기 안 옴)
+    private BooleanExpression itemName (ItemSearchCond cond) {
+        String itemName = cond.getItemName();
+        if (!StringUtils.hasText(itemName)) return null;        // return null 이면 where 문에서 무시됨 (where() 안에 null 이 들어가면 무시됨)
+        return switch (cond.getNameMatch()) {
+            case CONTAINS -> item.itemName.like("%" + itemName + "%");
+            case PREFIX -> item.itemName.startsWith(itemName);
+            case TOKEN -> throw new IllegalStateException("token search runs as a native query (ItemFullText.findAllQuery)");
+        };
     }
 
     private Predicate maxPrice (Integer maxPrice) {
         if (null != maxPrice) return item.price.loe(maxPrice);
         return null;
     }
+
+    private Predicate afterId (Long afterId) {
+        if (null != afterId) return item.id.gt(afterId);
+        return null;
+    }
+
+    private Predicate beforeId (Long beforeId) {
+        if (null != beforeId) return item.id.lt(beforeId);
+        return null;
+    }
+
+    private Predicate versionEq (Long version) {
+        if (null != version) return item.version.eq(version);
+        return null;
+    }
 }
@@ -0,0 +1,94 @@
+package dev.riss.itemservicedb.service;
+
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 가격 일괄 변경 실행기
+ *
+ * 상품마다 조회 + 변경감지(update) 를 하면 100만 건이면 쿼리 200만 번 + 영속성 컨텍스트에 100만 개
+ * => id 를 [1, maxId] 까지 chunkSize 개씩 구간으로 나누고, 구간마다 UPDATE 문 하나 (set 기반)
+ *  - 구간 하나가 트랜잭션 하나 => 거대한 트랜잭션 (긴 락, 큰 undo 로그) 없음
+ *  - parallelism > 1 이면 구간들을 여러 스레드로 나눠 실행 (구간끼리 id 가 안 겹치므로 서로 락 충돌 없음)
+ *  - 구간이 끝날 때마다 listener 로 진행 상황 전달 (호출한 스레드에서 호출됨)
+ *
+ * 주의: 중간에 실패하면 이미 끝난 구간은 커밋된 상태. 같은 조건으로 다시 돌리면 그 구간은 두 번 바뀜
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ItemRepriceJob {
+
+    /**
+     * id 가 [fromId, toId) 인 상품 중 조건에 맞는 상품의 가격을 바꾸고 바뀐 수를 반환 (한 번 = 트랜잭션 하나)
+     */
+    public interface ChunkRepricer {
+        int reprice(ItemRepriceParam param, long fromId, long toId);
+    }
+
+    private final ChunkRepricer repricer;
+    private final LongSupplier maxId;
+
+    public long run(ItemRepriceParam param, Consumer<RepriceProgress> listener) {
+        int chunkSize = param.getChunkSize();
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+
+        // 시작할 때의 최대 id 까지만 (실행 중에 새로 들어오는 상품은 대상 아님)
+        long lastId = maxId.getAsLong();
+        long totalChunks = (lastId + chunkSize - 1) / chunkSize;
+        log.info("reprice start param={}, maxId={}, chunks={}", param, lastId, totalChunks);
+
+        long updated = param.getParallelism() > 1
+                ? runParallel(param, totalChunks, listener)
+                : runSequential(param, totalChunks, listener);
+
+        log.info("reprice done updatedRows={}", updated);
+        return updated;
+    }
+
+    private long runSequential(ItemRepriceParam param, long totalChunks, Consumer<RepriceProgress> listener) {
+        long updated = 0;
+        for (long chunk = 0; chunk < totalChunks; chunk++) {
+            updated += repriceChunk(param, chunk);
+            listener.accept(new RepriceProgress(chunk + 1, totalChunks, updated));
+        }
+        return updated;
+    }
+
+    private long runParallel(ItemRepriceParam param, long totalChunks, Consumer<RepriceProgress> listener) {
+        ExecutorService executor = Executors.newFixedThreadPool(param.getParallelism());
+        try {
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+            for (long chunk = 0; chunk < totalChunks; chunk++) {
+                long current = chunk;
+                completion.submit(() -> repriceChunk(param, current));
+            }
+
+            // 끝난 순서대로 받아서 진행 상황 전달 => listener 는 이 스레드에서만 호출됨
+            long updated = 0;
+            for (long done = 1; done <= totalChunks; done++) {
+                updated += completion.take().get();
+                listener.accept(new RepriceProgress(done, totalChunks, updated));
+            }
+            return updated;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("reprice interrupted", e);
+        } catch (ExecutionException e) {
+            // 하나라도 실패하면 남은 구간은 실행하지 않음 (finally 의 shutdownNow)
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int repriceChunk(ItemRepriceParam param, long chunk) {
+        long fromId = chunk * param.getChunkSize() + 1;
+        return repricer.reprice(param, fromId, fromId + param.getChunkSize());
+    }
+}
@@ -1,11 +1,13 @@
 package dev.riss.itemservicedb.service;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
@@ -16,4 +18,14 @@ public interface ItemService {
     Optional<Item> findById(Long id);
 
     List<Item> findItems(ItemSearchCond itemSearch);
+
+    void streamItems(ItemSearchCond itemSearch, Consumer<Item> action);
+
+    // 가격 일괄 변경. id 구간별 UPDATE (구간마다 따로 커밋), 구간이 끝날 때마다 listener 로 진행 상황 전달. 바뀐 상품 수 반환
+    long reprice(ItemRepriceParam param, Consumer<RepriceProgress> listener);
+
+    // 재고 차감/되돌리기 (ItemRepository.reserveStock/releaseStock). 수량은 1 이상
+    boolean reserveStock(Long itemId, int quantity);
+
+    void releaseStock(Long itemId, int quantity);
 }
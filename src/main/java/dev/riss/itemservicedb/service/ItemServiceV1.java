@@ -2,13 +2,16 @@ package dev.riss.itemservicedb.service;
 
 import dev.riss.itemservicedb.domain.Item;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +29,7 @@ public class ItemServiceV1 implements ItemService {
         itemRepository.update(itemId, updateParam);
     }
 
+    // 읽기 전용 트랜잭션은 JDBC 를 쓰는 레포지토리 쪽에 (메모리/컬럼 저장소 설정에선 트랜잭션 비용만 듦)
     @Override
     public Optional<Item> findById(Long id) {
         return itemRepository.findById(id);
@@ -35,4 +39,26 @@ public class ItemServiceV1 implements ItemService {
     public List<Item> findItems(ItemSearchCond cond) {
         return itemRepository.findAll(cond);
     }
+
+    @Override
+    public void streamItems(ItemSearchCond cond, Consumer<Item> action) {
+        itemRepository.streamAll(cond, action);
+    }
+
+    @Override
+    public long reprice(ItemRepriceParam param, Consumer<RepriceProgress> listener) {
+        return new ItemRepriceJob(itemRepository::reprice, itemRepository::findMaxId).run(param, listener);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        return itemRepository.reserveStock(itemId, quantity);
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        itemRepository.releaseStock(itemId, quantity);
+    }
 }
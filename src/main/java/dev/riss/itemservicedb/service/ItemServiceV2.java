@@ -1,16 +1,20 @@
 package dev.riss.itemservicedb.service;
 
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
 import dev.riss.itemservicedb.repository.v2.ItemQueryRepositoryV2;
 import dev.riss.itemservicedb.repository.v2.ItemRepositoryV2;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -20,20 +24,15 @@ public class ItemServiceV2 implements ItemService {
     private final ItemRepositoryV2 itemRepositoryV2;
     private final ItemQueryRepositoryV2 itemQueryRepositoryV2;
 
-    @Transactional(readOnly = true)
     @Override
     public Item save(Item item) {
         return itemRepositoryV2.save(item);
     }
 
+    // 조회 후 변경 감지(Item.updateItem) 대신 조건부 UPDATE 한 문장 (DB 왕복 1번, 충돌은 예외로)
     @Override
     public void update(Long itemId, ItemUpdateDto updateParam) {
-        Item findItem = itemRepositoryV2.findById(itemId).orElseThrow();
-
-        // setter 계속 쓰기 귀찮아서 update 비즈니스 로직 생성
-        findItem.updateItem(updateParam.getItemName(),
-                updateParam.getPrice(),
-                updateParam.getQuantity());
+        itemQueryRepositoryV2.update(itemId, updateParam);
     }
 
     @Transactional(readOnly = true)
@@ -47,4 +46,29 @@ public class ItemServiceV2 implements ItemService {
     public List<Item> findItems(ItemSearchCond itemSearch) {
         return itemQueryRepositoryV2.findAll(itemSearch);
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamItems(ItemSearchCond itemSearch, Consumer<Item> action) {
+        itemQueryRepositoryV2.stream(itemSearch, action);
+    }
+
+    // 클래스의 @Transactional 을 따르면 전체가 트랜잭션 하나가 됨 => 여기선 트랜잭션 없이, 구간(reprice 호출)마다 트랜잭션
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Override
+    public long reprice(ItemRepriceParam param, Consumer<RepriceProgress> listener) {
+        return new ItemRepriceJob(itemQueryRepositoryV2::reprice, itemQueryRepositoryV2::findMaxId).run(param, listener);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        return itemQueryRepositoryV2.reserveStock(itemId, quantity);
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        itemQueryRepositoryV2.releaseStock(itemId, quantity);
+    }
 }
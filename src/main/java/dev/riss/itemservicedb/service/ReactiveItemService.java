@@ -0,0 +1,18 @@
+package dev.riss.itemservicedb.service;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveItemService {
+
+    Mono<Item> save(Item item);
+
+    Mono<Void> update(Long itemId, ItemUpdateDto updateParam);
+
+    Mono<Item> findById(Long id);
+
+    Flux<Item> findItems(ItemSearchCond itemSearch);
+}
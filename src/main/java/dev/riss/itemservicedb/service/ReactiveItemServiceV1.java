@@ -0,0 +1,43 @@
+package dev.riss.itemservicedb.service;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.ReactiveItemRepository;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+
+/**
+ * ItemServiceV1 처럼 레포지토리에 그대로 위임
+ *  - 같은 DB 를 ItemService(캐시) 를 거치지 않고 바꾸므로, 쓰기가 성공하면 itemWritten 으로 그 상품 id 를 알림
+ *    (R2dbcConfig 에서 CachingItemService.invalidate 로 연결 => 캐시/다른 노드 무효화)
+ */
+@RequiredArgsConstructor
+public class ReactiveItemServiceV1 implements ReactiveItemService {
+
+    private final ReactiveItemRepository itemRepository;
+    private final Consumer<Long> itemWritten;
+
+    @Override
+    public Mono<Item> save(Item item) {
+        return itemRepository.save(item).doOnNext(saved -> itemWritten.accept(saved.getId()));
+    }
+
+    @Override
+    public Mono<Void> update(Long itemId, ItemUpdateDto updateParam) {
+        return itemRepository.update(itemId, updateParam).doOnSuccess(done -> itemWritten.accept(itemId));
+    }
+
+    @Override
+    public Mono<Item> findById(Long id) {
+        return itemRepository.findById(id);
+    }
+
+    @Override
+    public Flux<Item> findItems(ItemSearchCond cond) {
+        return itemRepository.findAll(cond);
+    }
+}
@@ -0,0 +1,11 @@
+package dev.riss.itemservicedb.service;
+
+/**
+ * 가격 일괄 변경 진행 상황 (id 구간 하나가 끝날 때마다 전달)
+ *
+ * @param completedChunks 끝난 구간 수 (병렬이면 끝난 순서는 id 순서와 다를 수 있음)
+ * @param totalChunks     전체 구간 수
+ * @param updatedRows     지금까지 바뀐 상품 수
+ */
+public record RepriceProgress(long completedChunks, long totalChunks, long updatedRows) {
+}
@@ -0,0 +1,23 @@
+package dev.riss.itemservicedb.stock;
+
+import dev.riss.itemservicedb.service.ItemService;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 요청마다 조건부 UPDATE 한 문장 (ItemService.reserveStock). DB 의 quantity 가 항상 정확함
+ */
+@RequiredArgsConstructor
+public class DirectStockReservations implements StockReservations {
+
+    private final ItemService itemService;
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        return itemService.reserveStock(itemId, quantity);
+    }
+
+    @Override
+    public void release(Long itemId, int quantity) {
+        itemService.releaseStock(itemId, quantity);
+    }
+}
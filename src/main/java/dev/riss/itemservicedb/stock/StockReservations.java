@@ -0,0 +1,14 @@
+package dev.riss.itemservicedb.stock;
+
+/**
+ * 재고 차감/되돌리기 (StockApiController)
+ *  - DirectStockReservations: 요청마다 ItemService 로 바로 (기본)
+ *  - StripedStockReservations: 인기 상품 재고를 노드 메모리에 미리 떼어 와서 나눠줌 (item.stock.striped.enabled=true)
+ */
+public interface StockReservations {
+
+    // 재고가 모자라면 false, 없는 상품이면 EmptyResultDataAccessException
+    boolean reserve(Long itemId, int quantity);
+
+    void release(Long itemId, int quantity);
+}
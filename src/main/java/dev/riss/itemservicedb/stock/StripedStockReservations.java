@@ -0,0 +1,289 @@
+package dev.riss.itemservicedb.stock;
+
+import dev.riss.itemservicedb.repository.support.ItemUpdates;
+import dev.riss.itemservicedb.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 인기 상품 재고 차감을 노드 메모리에서 받아내는 층 (item.stock.striped.enabled=true, StockConfig)
+ *
+ * 구매마다 UPDATE ... WHERE quantity >= ? 를 보내면 한 상품에 몰린 요청이 전부 그 행 락에 줄을 섬 (DB 왕복 + 락 대기)
+ * 여기서는 DB 에서 재고를 leaseSize 개씩 미리 떼어 와서(lease) 메모리에서 나눠줌
+ *  - 떼어 오는 것 자체가 조건부 차감 한 번(ItemService.reserveStock) => 이미 DB 에서 빠진 재고만 나눠주므로 과판매 없음
+ *    (차감만 모아뒀다가 나중에 한꺼번에 DB 에 쓰면, 그 사이 DB 재고 확인 없이 팔게 되어 과판매가 생김)
+ *  - 남은 재고는 flushInterval 마다 DB 로 돌려줌 (releaseStock)
+ *    => DB 의 quantity 는 상품마다 최대 leaseSize(+ 취소분) 만큼, 최대 flushInterval 동안 실제보다 적게 보임 (bounded staleness)
+ *    => DB 쓰기는 구매 한 건마다가 아니라 상품마다 flushInterval 당 두어 번 (떼어 오기 + 돌려주기)
+ *  - 메모리 재고는 칸(stripe) 여러 개로 나눠서 스레드마다 다른 칸에서 CAS (LongAdder 와 같은 생각)
+ *    칸 하나가 캐시 라인 하나를 쓰도록 띄워둠 => 수백 스레드가 한 상품에 몰려도 같은 캐시 라인을 두고 다투지 않음
+ *    모든 칸이 모자라면 상품별 락 안에서 칸을 모아 보고, 그래도 모자라면 DB 에서 더 떼어 옴 (그 사이 온 스레드는 락에서 기다렸다가 새로 채운 재고를 씀)
+ *  - release(취소) 는 메모리 칸에 넣음 => 다음 구매가 바로 쓰고, 남으면 flush 때 DB 로
+ *  - idleTimeout 동안 DB 에서 떼어 온 적이 없는 상품은 남은 재고를 돌려주고 맵에서 뺌
+ *
+ * 정상 종료(close) 때는 남은 재고를 전부 돌려줌. 못 돌려주면 몇 번 더 해보고, 그래도 안 되면 상품별 수량을 담아 예외로 알림
+ * 노드가 죽으면 떼어 온 재고는 DB 로 안 돌아감
+ * => 잃을 수 있는 양이 상품마다 leaseSize 정도로 묶임. 재고가 딱 맞아야 하면 leaseSize 를 줄이거나 이 층을 끔 (DirectStockReservations)
+ */
+@Slf4j
+public class StripedStockReservations implements StockReservations, AutoCloseable {
+
+    private static final int CLOSE_ATTEMPTS = 3;
+    private static final long CLOSE_RETRY_MILLIS = 200;
+
+    private final ItemService itemService;
+    private final int leaseSize;
+    private final int stripes;
+    private final long idleTimeoutNanos;
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public StripedStockReservations(ItemService itemService, int leaseSize, int stripes, Duration flushInterval, Duration idleTimeout) {
+        if (leaseSize < 0) throw new IllegalArgumentException("leaseSize must not be negative: " + leaseSize);
+        this.itemService = itemService;
+        this.leaseSize = leaseSize;
+        // 칸 수는 2의 거듭제곱 (& mask 로 고름). 0 이면 CPU 수만큼
+        int requested = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        int rounded = 1;
+        while (rounded < requested) rounded <<= 1;
+        this.stripes = rounded;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean reserve(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        int probe = probe();
+        while (true) {
+            Lease lease = leases.computeIfAbsent(itemId, id -> new Lease(stripes));
+            if (lease.tryTake(quantity, probe)) return true;
+            Boolean reserved = refill(itemId, lease, quantity);
+            if (reserved != null) return reserved;
+            // 그 사이 flush 가 이 lease 를 정리함 => 새 lease 로 다시
+        }
+    }
+
+    @Override
+    public void release(Long itemId, int quantity) {
+        ItemUpdates.checkStockQuantity(quantity);
+        Lease lease = leases.get(itemId);
+        if (lease == null) {
+            itemService.releaseStock(itemId, quantity);
+            return;
+        }
+        lease.put(quantity, probe());
+        // 넣는 사이 flush 가 정리한 lease 면 아무도 다시 안 보므로 직접 돌려줌
+        if (lease.retired) giveBack(itemId, lease.drain());
+    }
+
+    /**
+     * 모든 칸이 모자랄 때 (상품별 락 안에서)
+     * 칸을 모아서 되면 그걸로, 아니면 DB 에서 (모자란 만큼 + leaseSize) 를 떼어 옴. 그만큼 없으면 모자란 만큼만
+     * @return 정리된(retired) lease 면 null
+     */
+    private Boolean refill(Long itemId, Lease lease, int quantity) {
+        lease.lock.lock();
+        try {
+            if (lease.retired) return null;
+            long pooled = lease.drain();
+            if (pooled >= quantity) {
+                lease.fill(pooled - quantity);
+                return true;
+            }
+
+            int missing = (int) (quantity - pooled);
+            try {
+                lease.leasedAt = System.nanoTime();
+                int withLease = (int) Math.min(Integer.MAX_VALUE, (long) missing + leaseSize);
+                if (leaseSize > 0 && itemService.reserveStock(itemId, withLease)) {
+                    lease.fill(withLease - missing);
+                    return true;
+                }
+                if (itemService.reserveStock(itemId, missing)) return true;
+            } catch (RuntimeException e) {
+                lease.fill(pooled);
+                throw e;
+            }
+            lease.fill(pooled);        // 모아본 재고는 다음 요청이 쓰도록 그대로
+            return false;
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * 남은 재고를 DB 로 돌려줌 (flushInterval 마다). idleTimeout 동안 떼어 온 적이 없는 상품은 맵에서도 뺌
+     */
+    public void flush() {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, Lease> entry : leases.entrySet()) {
+            Long itemId = entry.getKey();
+            Lease lease = entry.getValue();
+            if (now - lease.leasedAt > idleTimeoutNanos) retire(itemId, lease);
+            giveBack(itemId, lease.drain());
+        }
+    }
+
+    /**
+     * 남은 재고를 전부 돌려주고 멈춤
+     * 이제 다음 flush 가 없으므로 못 돌려준 재고는 그 자리에서 CLOSE_ATTEMPTS 번까지 다시 해봄
+     * 그래도 남으면 IllegalStateException (상품별 못 돌려준 수량) => 로그/종료 훅에서 보고 손으로 맞출 수 있게 (조용히 버리지 않음)
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<Long, Long> unreturned = new TreeMap<>();
+        leases.forEach((itemId, lease) -> {
+            retire(itemId, lease);
+            long remaining = lease.drain();
+            for (int attempt = 1; remaining > 0 && attempt <= CLOSE_ATTEMPTS; attempt++) {
+                if (attempt > 1) pause(CLOSE_RETRY_MILLIS * (attempt - 1));
+                remaining = returnStock(itemId, remaining);
+            }
+            if (remaining > 0) unreturned.put(itemId, remaining);
+        });
+        if (!unreturned.isEmpty()) {
+            log.error("stock not returned to the database on close (itemId=units): {}", unreturned);
+            throw new IllegalStateException("stock not returned to the database on close (itemId=units): " + unreturned);
+        }
+    }
+
+    // 이 노드가 들고 있는 재고 (아직 DB 로 안 돌려준 것)
+    public long pooled(Long itemId) {
+        Lease lease = leases.get(itemId);
+        return lease == null ? 0 : lease.sum();
+    }
+
+    private void retire(Long itemId, Lease lease) {
+        lease.lock.lock();
+        try {
+            lease.retired = true;
+            leases.remove(itemId, lease);
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    // DB 에 못 돌려주면(장애 등) 재고를 버리지 않고 다시 들고 있다가 다음 flush 때 다시
+    private void giveBack(Long itemId, long quantity) {
+        long remaining = returnStock(itemId, quantity);
+        if (remaining > 0) leases.computeIfAbsent(itemId, id -> new Lease(stripes)).fill(remaining);
+    }
+
+    /**
+     * int 범위씩 나눠서 DB 로 돌려줌
+     * @return 못 돌려준 수량 (0 이면 다 돌려줌). 재고가 int 범위를 넘는 경우(DataIntegrityViolationException) 는 다시 해도 안 되므로 0 (로그만)
+     */
+    private long returnStock(Long itemId, long quantity) {
+        while (quantity > 0) {
+            int chunk = (int) Math.min(Integer.MAX_VALUE, quantity);
+            try {
+                itemService.releaseStock(itemId, chunk);
+            } catch (DataIntegrityViolationException e) {
+                log.error("dropped {} units of item {}: stock quantity would overflow", quantity, itemId, e);
+                return 0;
+            } catch (RuntimeException e) {
+                log.warn("failed to return {} units of item {} to the database", quantity, itemId, e);
+                return quantity;
+            }
+            quantity -= chunk;
+        }
+        return 0;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 스레드마다 고정된 칸 (스레드 id 를 섞어서)
+    private static int probe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    }
+
+    /**
+     * 상품 하나의 메모리 재고. 칸 i 의 값은 cells[i * PAD] (사이 7칸은 비워둬서 칸마다 캐시 라인 하나)
+     */
+    private static final class Lease {
+
+        private static final int PAD = 8;       // long 8개 = 64바이트
+
+        private final AtomicLongArray cells;
+        private final int mask;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean retired;
+        private volatile long leasedAt = System.nanoTime();
+
+        Lease(int stripes) {
+            this.cells = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+        }
+
+        // 내 칸부터 돌아가며 quantity 만큼 있는 칸에서 CAS 로 뺌
+        boolean tryTake(int quantity, int probe) {
+            for (int i = 0; i <= mask; i++) {
+                int index = ((probe + i) & mask) * PAD;
+                long available;
+                while ((available = cells.get(index)) >= quantity) {
+                    if (cells.compareAndSet(index, available, available - quantity)) return true;
+                }
+            }
+            return false;
+        }
+
+        void put(long quantity, int probe) {
+            cells.addAndGet((probe & mask) * PAD, quantity);
+        }
+
+        // 여러 칸에 고르게 (한 칸에만 몰아넣으면 다시 그 칸을 두고 다툼)
+        void fill(long quantity) {
+            if (quantity <= 0) return;
+            int stripes = mask + 1;
+            long share = quantity / stripes;
+            long remainder = quantity % stripes;
+            for (int i = 0; i < stripes; i++) {
+                long amount = share + (i < remainder ? 1 : 0);
+                if (amount > 0) cells.addAndGet(i * PAD, amount);
+            }
+        }
+
+        long drain() {
+            long drained = 0;
+            for (int i = 0; i <= mask; i++) drained += cells.getAndSet(i * PAD, 0);
+            return drained;
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i <= mask; i++) sum += cells.get(i * PAD);
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 상품 JSON API (연동용). 화면(ItemController) 과 같은 ItemService 를 씀
+ *
+ * 조건부 요청 (ETag: 상품 상태로 계산, ItemETags)
+ *  - GET 에 If-None-Match 가 지금 ETag 와 같으면 304 + 빈 본문 => JSON 직렬화/전송을 안 함
+ *    WebRequest.checkNotModified 가 비교하고 304 상태/ETag 헤더까지 세팅해줌 => 컨트롤러는 null 반환
+ *    상세는 findById 캐시(ItemCacheConfig) 에서 꺼내므로 대부분 DB 도 안 감
+ *  - PUT 에 If-Match 가 지금 ETag 와 다르면 412 (그 사이 다른 클라이언트가 바꿈)
+ *    같으면 그 ETag 를 만든 상품의 version 으로 조건부 UPDATE (Item.version, ItemUpdates)
+ *    => 비교 후 UPDATE 전에 누가 끼어들어도 UPDATE 가 0 행이 되어 412 (비교와 UPDATE 가 원자적)
+ *  - If-Match 가 없으면 조회 없이 바로 UPDATE 한 번 (본문의 version 이 있으면 그 버전일 때만, 다르면 412)
+ *
+ * GET  /api/items?itemName=..&maxPrice=..&afterId=..&size=..   (keyset 한 페이지, 다음 페이지는 마지막 id 를 afterId 로)
+ * GET  /api/items/{itemId}
+ * POST /api/items            (201 + Location + ETag. 본문의 id / version 은 무시 => 항상 새 상품)
+ * PUT  /api/items/{itemId}   (200 + 바뀐 상품 + 새 ETag, 없는 상품 404)
+ */
+@RestController
+@RequestMapping("/api/items")
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ItemService itemService;
+
+    @GetMapping
+    public ResponseEntity<List<Item>> items(@ModelAttribute ItemSearchCond itemSearch, WebRequest request) {
+        int size = itemSearch.getSize() == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(itemSearch.getSize(), 1), MAX_PAGE_SIZE);
+        itemSearch.setSize(size);
+
+        List<Item> items = itemService.findItems(itemSearch);
+        String etag = ItemETags.of(items);
+        if (request.checkNotModified(etag)) return null;        // 304 (본문 x)
+        return ResponseEntity.ok().eTag(etag).body(items);
+    }
+
+    @GetMapping("/{itemId}")
+    public ResponseEntity<Item> item(@PathVariable long itemId, WebRequest request) {
+        Optional<Item> item = itemService.findById(itemId);
+        if (item.isEmpty()) return ResponseEntity.notFound().build();
+
+        String etag = ItemETags.of(item.get());
+        if (request.checkNotModified(etag)) return null;        // 304 (본문 x)
+        return ResponseEntity.ok().eTag(etag).body(item.get());
+    }
+
+    @PostMapping
+    public ResponseEntity<Item> addItem(@RequestBody Item item) {
+        // 본문을 그대로 저장하면 클라이언트가 넣은 id / version 까지 넘어감
+        // => 스프링 데이터 JPA 는 id 가 있으면 merge(남의 상품을 덮어씀), 아니어도 응답/ETag 에 클라이언트가 넣은 version 이 나감 => 생성 값만 골라서 새로
+        Item savedItem = itemService.save(new Item(item.getItemName(), item.getPrice(), item.getQuantity()));
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{itemId}").buildAndExpand(savedItem.getId()).toUri();
+        return ResponseEntity.created(location).eTag(ItemETags.of(savedItem)).body(savedItem);
+    }
+
+    @PutMapping("/{itemId}")
+    public ResponseEntity<Item> edit(@PathVariable Long itemId, @RequestBody ItemUpdateDto updateParam, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+            Optional<Item> item = itemService.findById(itemId);     // 보통 캐시에서 (ETag 비교용)
+            if (item.isEmpty()) return ResponseEntity.notFound().build();
+            if (request.checkNotModified(ItemETags.of(item.get()))) return null;     // If-Match 불일치 => 412
+            updateParam.setVersion(item.get().getVersion());
+        }
+
+        try {
+            itemService.update(itemId, updateParam);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (EmptyResultDataAccessException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        // 버전을 알고 수정했으면 새 버전은 +1. 모르고 덮어썼으면 새 버전을 알 수 없으므로 다시 읽음
+        Item updatedItem;
+        if (updateParam.getVersion() != null) {
+            updatedItem = new Item(updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+            updatedItem.setId(itemId);
+            updatedItem.setVersion(updateParam.getVersion() + 1);
+        } else {
+            updatedItem = itemService.findById(itemId).orElse(null);
+            if (updatedItem == null) return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(ItemETags.of(updatedItem)).body(updatedItem);
+    }
+}
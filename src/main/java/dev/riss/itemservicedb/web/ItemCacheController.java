@@ -0,0 +1,54 @@
+package dev.riss.itemservicedb.web;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.cache.ItemFragmentCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 상품 캐시 통계 (JSON). 캐시를 끈 상태(item.cache.enabled=false) 면 404
+ */
+@RestController
+@RequiredArgsConstructor
+public class ItemCacheController {
+
+    private final ObjectProvider<CachingItemService> cachingItemService;
+    private final ObjectProvider<ItemFragmentCache> itemFragmentCache;
+
+    @GetMapping("/cache/items")
+    public ResponseEntity<Map<String, Object>> stats() {
+        CachingItemService cache = cachingItemService.getIfAvailable();
+        if (cache == null) return ResponseEntity.notFound().build();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("findById", toMap(cache.estimatedSize(), cache.stats()));
+
+        // executed: DB 로 보낸 검색, coalesced: 같은 검색이 실행 중이라 그 결과를 같이 받은 수
+        Map<String, Object> search = toMap(null, cache.searchStats());
+        search.put("executed", cache.executedSearchCount());
+        search.put("coalesced", cache.coalescedSearchCount());
+        body.put("search", search);
+
+        ItemFragmentCache fragmentCache = itemFragmentCache.getIfAvailable();
+        if (fragmentCache != null) body.put("fragment", toMap(fragmentCache.estimatedSize(), fragmentCache.stats()));
+        return ResponseEntity.ok(body);
+    }
+
+    private static Map<String, Object> toMap(Long size, CacheStats stats) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (size != null) map.put("size", size);
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("loadFailureCount", stats.loadFailureCount());
+        return map;
+    }
+}
@@ -1,28 +1,88 @@
 package dev.riss.itemservicedb.web;
 
+import dev.riss.itemservicedb.cache.ItemFragmentCache;
 import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
 import dev.riss.itemservicedb.service.ItemService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.IWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Controller
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ItemService itemService;
+    private final ObjectProvider<ItemFragmentCache> itemFragmentCache;
+    private final ITemplateEngine templateEngine;
 
+    /**
+     * keyset 페이징 목록
+     *  - 다음: 이 페이지 마지막 id 를 afterId 로 (id > afterId ORDER BY id LIMIT n)
+     *  - 이전: 이 페이지 첫 id 를 beforeId 로 (id < beforeId ORDER BY id DESC LIMIT n 을 뒤집음) => URL 에 지나온 이력을 쌓을 필요 없음
+     *  - 표 부분은 렌더링한 HTML 을 캐시 (ItemFragmentCache). 캐시에 있으면 조회/표 렌더링 없이 그 HTML 을 그대로 끼워 넣음
+     *    캐시를 끈 상태(item.cache.enabled=false) 면 매번 조회해서 템플릿이 직접 그림
+     */
     @GetMapping
-    public String items(@ModelAttribute("itemSearch") ItemSearchCond itemSearch, Model model) {
-        List<Item> items = itemService.findItems(itemSearch);
-        model.addAttribute("items", items);
+    public String items(@ModelAttribute("itemSearch") ItemSearchCond itemSearch, Model model,
+                        HttpServletRequest request, HttpServletResponse response) {
+        int size = itemSearch.getSize() == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(itemSearch.getSize(), 1), MAX_PAGE_SIZE);
+        itemSearch.setSize(size);
+        Long beforeId = itemSearch.getBeforeId();
+        Long afterId = beforeId == null ? itemSearch.getAfterId() : null;
+
+        // 조회 방향으로 더 있는지 알기 위해 하나 더 조회 (count 쿼리 없이)
+        ItemSearchCond pageCond = new ItemSearchCond(itemSearch.getItemName(), itemSearch.getMaxPrice(), afterId, size + 1);
+        pageCond.setBeforeId(beforeId);
+        pageCond.setNameMatch(itemSearch.getNameMatch());
+        ItemFragmentCache fragmentCache = itemFragmentCache.getIfAvailable();
+        boolean hasMore;
+        Long firstId;
+        Long lastId;
+        if (fragmentCache == null) {
+            ItemPage page = findPage(pageCond, size);
+            model.addAttribute("items", page.items());
+            hasMore = page.hasMore();
+            firstId = page.firstId();
+            lastId = page.lastId();
+        } else {
+            ItemFragmentCache.Fragment table = fragmentCache.get(pageCond, () -> renderTable(findPage(pageCond, size), request, response));
+            model.addAttribute("itemTable", table.html());
+            hasMore = table.hasMore();
+            firstId = table.firstId();
+            lastId = table.lastId();
+        }
+
+        if (beforeId != null) {
+            // 뒤로 온 페이지 => 다음은 항상 있음, 이전은 더 남았을 때만
+            model.addAttribute("nextUrl", pageUrl(itemSearch, lastId == null ? beforeId - 1 : lastId, null));
+            if (hasMore) model.addAttribute("prevUrl", pageUrl(itemSearch, null, firstId));
+        } else {
+            if (hasMore) model.addAttribute("nextUrl", pageUrl(itemSearch, lastId, null));
+            if (afterId != null && afterId > 0) model.addAttribute("prevUrl", pageUrl(itemSearch, null, firstId == null ? afterId + 1 : firstId));
+        }
         return "items";
     }
 
@@ -53,10 +113,53 @@ public class ItemController {
         return "editForm";
     }
 
+    // 폼을 연 시점의 version 으로 조건부 UPDATE 한 번 (조회 x). 그 사이 누가 먼저 고쳤으면 최신 값으로 폼을 다시 보여줌
     @PostMapping("/{itemId}/edit")
-    public String edit(@PathVariable Long itemId, @ModelAttribute ItemUpdateDto updateParam) {
-        itemService.update(itemId, updateParam);
+    public String edit(@PathVariable Long itemId, @ModelAttribute ItemUpdateDto updateParam, RedirectAttributes redirectAttributes) {
+        try {
+            itemService.update(itemId, updateParam);
+        } catch (OptimisticLockingFailureException e) {
+            redirectAttributes.addAttribute("conflict", true);
+            return "redirect:/items/{itemId}/edit";
+        }
         return "redirect:/items/{itemId}";
     }
 
+    private record ItemPage(List<Item> items, boolean hasMore) {
+        Long firstId() {
+            return items.isEmpty() ? null : items.get(0).getId();
+        }
+
+        Long lastId() {
+            return items.isEmpty() ? null : items.get(items.size() - 1).getId();
+        }
+    }
+
+    // pageCond 는 size + 1 개 조회 => 넘치면 그 방향으로 더 있음. 결과는 항상 id 순이라 이전 페이지면 앞쪽(가장 오래된) 하나를 버림
+    private ItemPage findPage(ItemSearchCond pageCond, int size) {
+        List<Item> items = itemService.findItems(pageCond);
+        if (items.size() <= size) return new ItemPage(items, false);
+        return new ItemPage(pageCond.getBeforeId() != null ? items.subList(items.size() - size, items.size()) : items.subList(0, size), true);
+    }
+
+    // items.html 의 itemTable 조각만 렌더링 (링크(@{..}) 에 컨텍스트 경로가 붙도록 요청 정보가 있는 WebContext 로)
+    private ItemFragmentCache.Fragment renderTable(ItemPage page, HttpServletRequest request, HttpServletResponse response) {
+        IWebExchange exchange = JakartaServletWebApplication.buildApplication(request.getServletContext()).buildExchange(request, response);
+        WebContext context = new WebContext(exchange, request.getLocale());
+        context.setVariable("items", page.items());
+        String html = templateEngine.process("items", Set.of("itemTable"), context);
+        return new ItemFragmentCache.Fragment(html, page.hasMore(), page.firstId(), page.lastId());
+    }
+
+    private String pageUrl(ItemSearchCond itemSearch, Long afterId, Long beforeId) {
+        return UriComponentsBuilder.fromPath("/items")
+                .queryParamIfPresent("itemName", Optional.ofNullable(itemSearch.getItemName()).filter(StringUtils::hasText))
+                .queryParamIfPresent("nameMatch", Optional.of(itemSearch.getNameMatch()).filter(match -> match != ItemNameMatch.CONTAINS))
+                .queryParamIfPresent("maxPrice", Optional.ofNullable(itemSearch.getMaxPrice()))
+                .queryParam("size", itemSearch.getSize())
+                .queryParamIfPresent("afterId", Optional.ofNullable(afterId))
+                .queryParamIfPresent("beforeId", Optional.ofNullable(beforeId))
+                .toUriString();
+    }
+
 }
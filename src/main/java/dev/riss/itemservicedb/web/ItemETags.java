@@ -0,0 +1,67 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.domain.Item;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 상품 상태로 만드는 strong ETag ("..." 따옴표 포함)
+ *
+ * 응답 JSON 이 아니라 상품 필드(id, 상품명, 가격, 수량, 버전) 로 계산 => 값이 같으면 항상 같은 ETag, 하나라도 바뀌면 다른 ETag
+ *  - JSON 을 만들고 나서 해시하는 ShallowEtagHeaderFilter 와 달리, 304 로 끝나면 직렬화 자체를 안 함
+ *  - MD5 (ShallowEtagHeaderFilter 와 같음). 보안용이 아니라 바뀜 감지용
+ */
+final class ItemETags {
+
+    private static final byte FIELD_SEPARATOR = 0x1f;
+    private static final byte ITEM_SEPARATOR = 0x1e;
+
+    private ItemETags() {
+    }
+
+    static String of(Item item) {
+        MessageDigest digest = md5();
+        update(digest, item);
+        return toETag(digest);
+    }
+
+    // 목록: 순서까지 같아야 같은 ETag
+    static String of(List<Item> items) {
+        MessageDigest digest = md5();
+        for (Item item : items) {
+            update(digest, item);
+            digest.update(ITEM_SEPARATOR);
+        }
+        return toETag(digest);
+    }
+
+    private static void update(MessageDigest digest, Item item) {
+        update(digest, item.getId());
+        update(digest, item.getItemName());
+        update(digest, item.getPrice());
+        update(digest, item.getQuantity());
+        update(digest, item.getVersion());
+    }
+
+    // null 과 "null" 이 같은 값이 되지 않도록 null 은 구분자만
+    private static void update(MessageDigest digest, Object value) {
+        if (value != null) digest.update(("=" + value).getBytes(StandardCharsets.UTF_8));
+        digest.update(FIELD_SEPARATOR);
+    }
+
+    private static String toETag(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
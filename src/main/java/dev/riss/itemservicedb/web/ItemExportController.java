@@ -0,0 +1,81 @@
+package dev.riss.itemservicedb.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.service.ItemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 상품 export (CSV / NDJSON)
+ *
+ * StreamingResponseBody: 컨트롤러는 "어떻게 쓸지" 만 돌려주고, 실제 쓰기는 응답 OutputStream 에 비동기로 진행
+ *  - ItemService.streamItems 로 한 건씩 받아서 바로 씀 => List 로 전체를 모으지 않음 (건수가 늘어도 메모리 일정)
+ *  - BufferedWriter 버퍼가 차면 그때그때 클라이언트로 내려감
+ *  - 비동기 요청이므로 spring.mvc.async.request-timeout 이 짧으면 큰 export 가 중간에 끊김 (application.properties)
+ *
+ * GET /items/export?format=csv&itemName=..&maxPrice=..
+ * GET /items/export?format=ndjson     (한 줄에 JSON 하나)
+ */
+@Slf4j
+@Controller
+public class ItemExportController {
+
+    private final ItemService itemService;
+    private final ObjectWriter itemWriter;
+
+    public ItemExportController(ItemService itemService, ObjectMapper objectMapper) {
+        this.itemService = itemService;
+        this.itemWriter = objectMapper.writerFor(Item.class);
+    }
+
+    @GetMapping("/items/export")
+    public ResponseEntity<StreamingResponseBody> export(@ModelAttribute ItemSearchCond itemSearch,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        boolean csv = "csv".equals(format);
+        if (!csv && !"ndjson".equals(format)) return ResponseEntity.badRequest().build();
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            if (csv) writer.write("id,item_name,price,quantity\n");
+            itemService.streamItems(itemSearch, item -> {
+                try {
+                    writer.write(csv ? csvLine(item) : itemWriter.writeValueAsString(item));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);      // 보통 클라이언트가 다운로드를 끊은 경우 => 스트림(커서)도 같이 정리됨
+                }
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"items." + format + "\"")
+                .body(body);
+    }
+
+    private static String csvLine(Item item) {
+        return item.getId() + "," + csvValue(item.getItemName()) + "," + csvValue(item.getPrice()) + "," + csvValue(item.getQuantity());
+    }
+
+    // 쉼표, 따옴표, 줄바꿈이 들어간 값은 따옴표로 감싸고 안의 따옴표는 두 번 씀 (RFC 4180)
+    private static String csvValue(Object value) {
+        if (value == null) return "";
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) return text;
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
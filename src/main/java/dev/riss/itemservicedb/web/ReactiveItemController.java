@@ -0,0 +1,75 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.service.ReactiveItemService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 리액티브 상품 API (JSON). 기존 타임리프 ItemController 옆에 같이 띄움
+ *
+ * 앱은 서블릿(톰캣) 기반 스프링 MVC 그대로. MVC 도 Mono / Flux 반환을 지원함
+ *  - Mono: 비동기 요청으로 처리 => 결과가 나올 때까지 톰캣 스레드를 붙잡고 있지 않음
+ *  - Flux + application/x-ndjson: 한 건씩 바로 씀 (한 줄에 JSON 하나). 한 건을 다 쓰고 나서 다음 한 건을 요청 => DB 에서 클라이언트까지 backpressure
+ *    (Accept 가 application/json 이면 MVC 가 List 로 모아서 배열 하나로 내려줌)
+ * WebFlux(네티) 로 바꾸지 않은 이유: 같은 포트/보안/필터(SqlStatementFilter, ReadYourWritesFilter) 를 그대로 쓰기 위해
+ *
+ * R2dbcConfig 를 안 쓰면(item.r2dbc.enabled=true 가 아니면, 기본은 false) 404
+ *
+ * GET  /reactive/items?itemName=..&maxPrice=..&afterId=..&size=..
+ * GET  /reactive/items/{itemId}
+ * POST /reactive/items            (body: Item JSON)
+ * PUT  /reactive/items/{itemId}   (body: ItemUpdateDto JSON. version 을 넣으면 그 버전일 때만 수정 => 다르면 409, 없는 상품 404)
+ */
+@RestController
+@RequestMapping("/reactive/items")
+public class ReactiveItemController {
+
+    private final ObjectProvider<ReactiveItemService> reactiveItemService;
+
+    public ReactiveItemController(ObjectProvider<ReactiveItemService> reactiveItemService) {
+        this.reactiveItemService = reactiveItemService;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Item> items(@ModelAttribute ItemSearchCond itemSearch) {
+        return service().findItems(itemSearch);
+    }
+
+    @GetMapping("/{itemId}")
+    public Mono<ResponseEntity<Item>> item(@PathVariable long itemId) {
+        return service().findById(itemId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Item>> addItem(@RequestBody Item item) {
+        return service().save(item)
+                .map(savedItem -> ResponseEntity.status(HttpStatus.CREATED).body(savedItem));
+    }
+
+    @PutMapping("/{itemId}")
+    public Mono<ResponseEntity<Void>> edit(@PathVariable Long itemId, @RequestBody ItemUpdateDto updateParam) {
+        return service().update(itemId, updateParam)
+                .thenReturn(ResponseEntity.noContent().<Void>build())
+                .onErrorReturn(OptimisticLockingFailureException.class, ResponseEntity.status(HttpStatus.CONFLICT).build())
+                .onErrorReturn(EmptyResultDataAccessException.class, ResponseEntity.notFound().build());
+    }
+
+    private ReactiveItemService service() {
+        ReactiveItemService service = reactiveItemService.getIfAvailable();
+        if (service == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        return service;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.stock.StockReservations;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 재고 차감/되돌리기 API (주문, 장바구니 연동용). 조회 후 차감이 아니라 조건부 UPDATE 한 문장이라 동시에 몰려도 과판매 없음
+ * 인기 상품에 요청이 몰리면 item.stock.striped.enabled=true 로 메모리에서 나눠줄 수 있음 (StockConfig)
+ *
+ * POST /api/items/{itemId}/stock/reserve?quantity=n   (204, 재고 부족 409, 없는 상품 404)
+ * POST /api/items/{itemId}/stock/release?quantity=n   (204, 재고가 int 범위를 넘으면 409, 없는 상품 404)
+ * quantity 가 1 보다 작으면 400
+ *
+ * release 는 주문 취소/반품으로 재고를 되돌리는 용도. 앞서 reserve 한 만큼인지는 확인하지 않음 (예약 기록이 없음)
+ * => 호출하는 쪽(주문 서비스) 만 부르도록 내부망/게이트웨이에서 막아야 함. 열어두면 누구나 재고를 늘릴 수 있음
+ */
+@RestController
+@RequestMapping("/api/items/{itemId}/stock")
+@RequiredArgsConstructor
+public class StockApiController {
+
+    private final StockReservations stockReservations;
+
+    @PostMapping("/reserve")
+    public ResponseEntity<Void> reserve(@PathVariable Long itemId, @RequestParam(defaultValue = "1") int quantity) {
+        if (quantity < 1) return ResponseEntity.badRequest().build();
+        try {
+            if (!stockReservations.reserve(itemId, quantity)) return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (EmptyResultDataAccessException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/release")
+    public ResponseEntity<Void> release(@PathVariable Long itemId, @RequestParam(defaultValue = "1") int quantity) {
+        if (quantity < 1) return ResponseEntity.badRequest().build();
+        try {
+            stockReservations.release(itemId, quantity);
+        } catch (EmptyResultDataAccessException e) {
+            return ResponseEntity.notFound().build();
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,317 @@
+package dev.riss.itemservicedb.writebehind;
+
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 상품 수정(write-behind) 로그. 디렉터리 안에 세그먼트 파일(00000000000000000001.wal ...) 을 이어서 씀
+ *
+ *  - 기록 하나 = [길이 int][CRC32C int][내용]. 내용은 상품 id + 수정값 (수정은 값을 통째로 덮으므로 같은 상품은 마지막 기록만 의미 있음)
+ *  - append: 파일에 쓰고 fsync 가 끝나야 반환 (=> 반환 후 프로세스가 죽어도 남음)
+ *    fsync 는 group commit: 먼저 force 한 스레드가 그때까지 쓰인 기록을 전부 내려보내고, 그 사이 쓴 스레드는 기다렸다가 그냥 반환
+ *    => 동시 요청이 많을수록 fsync 한 번에 여러 기록
+ *    fsync 가 끝난 기록만 published 로 알림 (읽는 쪽에 보임) => fsync 가 실패하면 예외만 나가고 아무도 그 값을 못 봄
+ *    (파일에는 써졌을 수 있으므로 디스크가 살아나서 재시작하면 반영될 수 있음. 응답은 실패였으니 at-least-once)
+ *  - rotate: 지금 세그먼트를 닫고(sealed) 새 세그먼트로. DB 에 다 반영된 sealed 세그먼트는 deleteSealed 로 지움
+ *    파일을 만들고/지운 것은 디렉터리 항목이라 파일 fsync 로는 안 내려감 => 디렉터리도 fsync (안 하면 죽은 뒤 새 세그먼트 파일째 없어질 수 있음)
+ *  - replay: 재시작 때 남아있는 세그먼트를 순서대로 읽어서 상품별 마지막 기록. 끝이 잘린 기록(쓰다가 죽음) 은 CRC/길이로 걸러서 버림
+ */
+@Slf4j
+public class ItemWriteAheadLog implements Closeable {
+
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    // 윈도우는 디렉터리를 FileChannel 로 열 수 없음 (NTFS 는 디렉터리 항목을 메타데이터 저널로 지켜줌)
+    private static final boolean SYNC_DIRECTORY = !System.getProperty("os.name").startsWith("Windows");
+
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    // append(쓰기 ~ fsync ~ published) 끼리는 같이, rotate 는 그 사이에 끼어들지 않게 (published 가 바뀌기 전 대기 목록에 들어가도록)
+    private final ReentrantReadWriteLock appendLock = new ReentrantReadWriteLock();
+    private final List<Path> sealed = new ArrayList<>();
+    private long nextSegment;
+    private Segment current;
+
+    public ItemWriteAheadLog(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().forEach(sealed::add);
+            }
+            nextSegment = sealed.isEmpty() ? 1 : segmentNumber(sealed.get(sealed.size() - 1)) + 1;
+            current = openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 남아있던 기록 (생성자에서 열기 전에 있던 세그먼트 전부). 상품별 마지막 기록만, 처음 기록된 순서대로
+     */
+    public Map<Long, Entry> replay() {
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (Path file : sealed) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int length = buffer.getInt();
+                    int crc = buffer.getInt();
+                    if (length < 0 || length > buffer.remaining() || crc != crc(buffer, buffer.position(), length)) {
+                        log.warn("ignoring torn record at {} of {}", buffer.position() - HEADER_BYTES, file);
+                        break;
+                    }
+                    Entry entry = Entry.read(buffer);
+                    entries.put(entry.itemId(), entry);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+        return entries;
+    }
+
+    /**
+     * 기록하고 fsync 까지 (반환되면 디스크에 있음). published 는 fsync 가 끝난 다음에 실행 (실패하면 실행 안 함)
+     * rotate 는 진행 중인 append 가 published 까지 끝나길 기다림 => 기록이 들어간 세그먼트와 published 가 넣는 대기 목록이 같음
+     * 같은 상품의 기록끼리 순서는 부르는 쪽이 지킴 (WriteBehindItemService.update)
+     */
+    public void append(Entry entry, Runnable published) {
+        ByteBuffer record = entry.encode();
+        appendLock.readLock().lock();
+        try {
+            Segment segment;
+            long position;
+            lock.lock();
+            try {
+                segment = current;
+                position = segment.write(record);
+            } finally {
+                lock.unlock();
+            }
+            segment.sync(position);
+            published.run();
+        } finally {
+            appendLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 지금 세그먼트를 닫고 새 세그먼트로. swap 은 같은 락 안에서 실행 (이후 기록은 새 세그먼트에)
+     * @return 지금까지 sealed 된 세그먼트 전부 (이번에 닫은 것 포함). DB 에 다 반영되면 deleteSealed 로 넘김
+     */
+    public List<Path> rotate(Runnable swap) {
+        appendLock.writeLock().lock();
+        lock.lock();
+        try {
+            Segment previous = current;
+            current = openSegment();
+            swap.run();
+            previous.close();
+            sealed.add(previous.file);
+            return List.copyOf(sealed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+            appendLock.writeLock().unlock();
+        }
+    }
+
+    public void deleteSealed(List<Path> files) {
+        lock.lock();
+        try {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+                sealed.remove(file);
+            }
+            syncDirectory();        // 지운 것도 디스크에 남겨야 재시작 때 이미 반영한 기록을 다시 반영하지 않음
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 지울 수 없는(아직 DB 에 다 반영 안 된) 세그먼트가 있는지
+    public boolean hasSealed() {
+        lock.lock();
+        try {
+            return !sealed.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 비어있는 지금 세그먼트는 지움 (다음 시작 때 읽을 게 없음)
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            current.close();
+            if (current.written == 0) Files.deleteIfExists(current.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path file = directory.resolve(String.format("%020d", nextSegment++) + SUFFIX);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            syncDirectory();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Segment(file, channel);
+    }
+
+    private void syncDirectory() throws IOException {
+        if (!SYNC_DIRECTORY) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * 상품 수정 기록 하나 (ItemUpdateDto 의 값, 버전은 없음 - write-behind 는 버전 확인 없는 수정만)
+     */
+    public record Entry(Long itemId, String itemName, Integer price, Integer quantity) {
+
+        public static Entry of(Long itemId, ItemUpdateDto updateParam) {
+            return new Entry(itemId, updateParam.getItemName(), updateParam.getPrice(), updateParam.getQuantity());
+        }
+
+        public ItemUpdateDto toUpdateDto() {
+            return new ItemUpdateDto(itemName, price, quantity);
+        }
+
+        ByteBuffer encode() {
+            byte[] name = itemName == null ? null : itemName.getBytes(StandardCharsets.UTF_8);
+            int length = Long.BYTES + Integer.BYTES + (name == null ? 0 : name.length) + 2 * (1 + Integer.BYTES);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+            buffer.position(HEADER_BYTES);
+            buffer.putLong(itemId);
+            buffer.putInt(name == null ? -1 : name.length);
+            if (name != null) buffer.put(name);
+            putNullable(buffer, price);
+            putNullable(buffer, quantity);
+            buffer.putInt(0, length);
+            buffer.putInt(Integer.BYTES, crc(buffer, HEADER_BYTES, length));
+            return buffer.flip();
+        }
+
+        static Entry read(ByteBuffer buffer) {
+            long itemId = buffer.getLong();
+            int nameLength = buffer.getInt();
+            String itemName = null;
+            if (nameLength >= 0) {
+                byte[] name = new byte[nameLength];
+                buffer.get(name);
+                itemName = new String(name, StandardCharsets.UTF_8);
+            }
+            return new Entry(itemId, itemName, getNullable(buffer), getNullable(buffer));
+        }
+
+        private static void putNullable(ByteBuffer buffer, Integer value) {
+            buffer.put((byte) (value == null ? 0 : 1));
+            buffer.putInt(value == null ? 0 : value);
+        }
+
+        private static Integer getNullable(ByteBuffer buffer) {
+            boolean present = buffer.get() != 0;
+            int value = buffer.getInt();
+            return present ? value : null;
+        }
+    }
+
+    /**
+     * 세그먼트 파일 하나. written 까지 쓰였고 synced 까지 디스크에 내려감
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private volatile long written;
+        private volatile long synced;
+
+        Segment(Path file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+        }
+
+        // ItemWriteAheadLog.lock 안에서만 부름
+        long write(ByteBuffer record) {
+            try {
+                while (record.hasRemaining()) channel.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written += record.limit();
+            return written;
+        }
+
+        void sync(long position) {
+            if (synced >= position) return;
+            syncLock.lock();
+            try {
+                if (synced >= position) return;     // 기다리는 사이 다른 스레드의 force 가 내 기록까지 내려보냄
+                long target = written;
+                channel.force(false);
+                synced = target;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                syncLock.unlock();
+            }
+        }
+
+        void close() throws IOException {
+            syncLock.lock();
+            try {
+                if (!channel.isOpen()) return;
+                channel.force(false);
+                synced = Long.MAX_VALUE;
+                channel.close();
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+}
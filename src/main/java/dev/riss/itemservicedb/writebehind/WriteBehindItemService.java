@@ -0,0 +1,279 @@
+package dev.riss.itemservicedb.writebehind;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.RepriceProgress;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * write-behind 모드 (item.write-behind.enabled=true, WriteBehindConfig)
+ *
+ * 대상은 버전 확인 없는 수정(update, version == null) 만 => 마지막에 쓴 값이 이기는 쓰기
+ *  ex. PUT /api/items/{itemId} 에 If-Match / version 없이 보내는 연동(일괄 동기화 등)
+ *  수정 폼(ItemController) 과 If-Match 수정은 항상 version 을 보내므로 write-behind 를 안 타고 지금처럼 조건부 UPDATE (동기)
+ *  => 버전 확인은 DB 가 답해야 함. 미뤄두면 충돌을 응답이 나간 뒤에야 알게 되므로 미루지 않음
+ *
+ * 버전 없는 수정은 DB 트랜잭션 대신 로컬 로그(ItemWriteAheadLog) 에 fsync 하고 바로 응답
+ *  - 요청 스레드는 DB 를 안 감 (없는 상품인지도 확인하지 않음) => 수정이 몰려도 커넥션 풀이 바닥나지 않음
+ *    없는 상품의 수정은 반영할 때 버리고 로그만 남김 (findById 는 DB 에 없으므로 계속 빈 값)
+ *  - 대기 중인 수정은 상품별로 마지막 값만 남김 (같은 상품을 여러 번 고치면 DB 에는 UPDATE 한 번)
+ *  - 백그라운드 flusher 가 flushInterval 마다 batchSize 개씩 트랜잭션 하나로 target 에 반영
+ *    반영하기 전에 로그 세그먼트를 바꾸고(rotate), 다 반영되면 그 전 세그먼트들을 지움 => 로그는 반영 안 된 수정만큼만 남음
+ *    반영에 실패하면(DB 장애 등) 대기 목록으로 되돌리고 세그먼트도 남겨둠 => 다음 flush 때 다시
+ *    다 반영하면 applied 로 상품 id 를 알림 (캐시(CachingItemService) 무효화 => 대기 중에 캐시에 들어간 값을 DB 값으로)
+ *  - 재시작하면 남은 세그먼트를 읽어서(replay) 대기 목록을 다시 만듦
+ *
+ * 읽기: DB 에서 읽은 행 중 대기 중인 상품은 대기 중인 값으로 덮어서 (findById, findItems, streamItems 모두 같은 방식, overlay)
+ *  - version 은 DB 버전 + 1 (반영하면 그 버전이 됨) => 그 값으로 연 수정 폼(version 있음) 은 반영된 뒤의 DB 버전과 맞음
+ *  - 검색 조건은 DB 가 옛 값으로 판단함 => 대기 중인 값으로 새로 조건에 맞게 된 상품은 반영될 때까지(최대 flushInterval) 안 나오고,
+ *    조건에서 벗어난 상품은 대기 중인 값으로 나옴. 조건(상품명 검색 방식 등) 을 메모리에서 DB 와 똑같이 맞출 수 없고,
+ *    읽을 때마다 밀린 수정을 요청 스레드에서 반영하면 write-behind 의 의미가 없으므로 거기까지는 맞추지 않음
+ *  - 행을 읽은 다음에 대기 목록을 봄 => 그 사이 반영이 끝났으면 읽은 DB 값 그대로 (버전을 두 번 올려 보이지 않음)
+ *
+ * 그대로 DB 로 가는 것 (대기 중인 같은 상품 수정을 먼저 반영해서 순서를 지킴)
+ *  - save: id 를 DB(IDENTITY) 가 만들어주므로 저장 전에는 응답할 수 없음
+ *  - version 을 준 수정: 조건부 UPDATE (버전을 DB 에서 확인)
+ *  - 재고 차감/되돌리기: 재고가 있는지 DB 가 답해야 함
+ *  - 가격 일괄 변경(배치 작업): 대기 중인 수정을 전부 반영한 다음 (나중에 반영되는 대기 수정이 바뀐 가격을 덮어쓰지 않도록)
+ *
+ * 이 노드만 DB 에 쓴다고 가정 (다른 노드의 수정 사이에 끼어든 대기 수정은 나중에 그대로 덮어씀)
+ */
+@Slf4j
+public class WriteBehindItemService implements ItemService, AutoCloseable {
+
+    private static final Map<Long, ItemWriteAheadLog.Entry> NONE = Map.of();
+
+    private static final int UPDATE_LOCKS = 64;     // 2의 거듭제곱
+
+    private final ItemService target;
+    private final ItemWriteAheadLog writeAheadLog;
+    private final TransactionOperations transactions;
+    private final int batchSize;
+    private final Consumer<Long> applied;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // 같은 상품의 수정은 로그에 쓰는 순서 = 대기 목록에 넣는 순서 (fsync 를 기다리는 동안 앞지르지 않도록). 다른 상품끼리는 같이 fsync
+    private final ReentrantLock[] updateLocks = new ReentrantLock[UPDATE_LOCKS];
+    private final ScheduledExecutorService flusher;
+
+    // 대기 중인 수정 (로그의 지금 세그먼트에 있는 것). flush 가 시작되면 inFlight 로 넘어가고 새 맵으로
+    private volatile Map<Long, ItemWriteAheadLog.Entry> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, ItemWriteAheadLog.Entry> inFlight = NONE;
+
+    public WriteBehindItemService(ItemService target, Path logDirectory, TransactionOperations transactions,
+                                  Duration flushInterval, int batchSize) {
+        this(target, logDirectory, transactions, flushInterval, batchSize, itemId -> {});
+    }
+
+    public WriteBehindItemService(ItemService target, Path logDirectory, TransactionOperations transactions,
+                                  Duration flushInterval, int batchSize, Consumer<Long> applied) {
+        // 0 이하면 apply 가 묶음을 못 나누고 제자리를 돎
+        if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        this.target = target;
+        this.writeAheadLog = new ItemWriteAheadLog(logDirectory);
+        this.transactions = transactions;
+        this.batchSize = batchSize;
+        this.applied = applied;
+        for (int i = 0; i < UPDATE_LOCKS; i++) updateLocks[i] = new ReentrantLock();
+
+        Map<Long, ItemWriteAheadLog.Entry> replayed = writeAheadLog.replay();
+        if (!replayed.isEmpty()) log.info("replaying {} pending item updates from {}", replayed.size(), logDirectory);
+        pending.putAll(replayed);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Item save(Item item) {
+        if (item.getId() != null) awaitFlushed(item.getId());
+        return target.save(item);
+    }
+
+    @Override
+    public void update(Long itemId, ItemUpdateDto updateParam) {
+        if (updateParam.getVersion() != null) {
+            // 대기 중인 수정을 먼저 반영하면 DB 버전 = findById 가 보여준 버전 => 그 다음은 보통의 조건부 UPDATE
+            awaitFlushed(itemId);
+            target.update(itemId, updateParam);
+            return;
+        }
+
+        ItemWriteAheadLog.Entry entry = ItemWriteAheadLog.Entry.of(itemId, updateParam);
+        ReentrantLock lock = updateLocks[Long.hashCode(itemId) & (UPDATE_LOCKS - 1)];
+        lock.lock();
+        try {
+            writeAheadLog.append(entry, () -> pending.put(itemId, entry));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Item> findById(Long id) {
+        return target.findById(id).map(this::overlay);
+    }
+
+    @Override
+    public List<Item> findItems(ItemSearchCond itemSearch) {
+        List<Item> items = target.findItems(itemSearch);
+        if (pendingCount() == 0) return items;
+        return items.stream().map(this::overlay).toList();
+    }
+
+    @Override
+    public void streamItems(ItemSearchCond itemSearch, Consumer<Item> action) {
+        target.streamItems(itemSearch, item -> action.accept(overlay(item)));
+    }
+
+    @Override
+    public long reprice(ItemRepriceParam param, Consumer<RepriceProgress> listener) {
+        flushIfPending();
+        return target.reprice(param, listener);
+    }
+
+    @Override
+    public boolean reserveStock(Long itemId, int quantity) {
+        awaitFlushed(itemId);
+        return target.reserveStock(itemId, quantity);
+    }
+
+    @Override
+    public void releaseStock(Long itemId, int quantity) {
+        awaitFlushed(itemId);
+        target.releaseStock(itemId, quantity);
+    }
+
+    /**
+     * 대기 중인 수정을 전부 target 에 반영 (flusher 가 부름, 한 번에 하나씩)
+     * 실패하면 반영 못 한 수정을 대기 목록으로 되돌리고 예외를 그대로 던짐
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty() && !writeAheadLog.hasSealed()) return;
+
+            Map<Long, ItemWriteAheadLog.Entry> batch = pending;
+            List<Path> sealed = writeAheadLog.rotate(() -> {
+                inFlight = batch;       // 읽는 쪽이 pending 에서 못 찾으면 inFlight 를 보므로 순서 중요
+                pending = new ConcurrentHashMap<>();
+            });
+            try {
+                apply(new ArrayList<>(batch.values()));
+                // 세그먼트를 지운 다음에 inFlight 를 비움 => 그 전에 같은 상품을 DB 에 직접 쓰면(awaitFlushed), 재시작 때 옛 기록이 그 위를 덮을 수 있음
+                writeAheadLog.deleteSealed(sealed);
+            } catch (RuntimeException e) {
+                // 그 사이 들어온 수정이 더 새것 => 없는 상품만 되돌림. 세그먼트는 안 지웠으므로 재시작해도 남아있음
+                batch.forEach(pending::putIfAbsent);
+                throw e;
+            } finally {
+                inFlight = NONE;
+            }
+            // inFlight 를 비운 다음에 알림 => 반영하는 동안 (DB 버전 + 1 로) 읽혀서 캐시에 들어간 값도 지워짐
+            batch.keySet().forEach(applied);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // 대기 중인 수정 수 (inFlight 포함)
+    public int pendingCount() {
+        return pending.size() + inFlight.size();
+    }
+
+    // 남은 수정을 반영하고 멈춤. 반영에 실패해도 로그에 남아있으므로 다음 시작 때 다시
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        writeAheadLog.close();
+    }
+
+    private void apply(List<ItemWriteAheadLog.Entry> entries) {
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<ItemWriteAheadLog.Entry> chunk = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            try {
+                transactions.executeWithoutResult(status ->
+                        chunk.forEach(entry -> target.update(entry.itemId(), entry.toUpdateDto())));
+            } catch (EmptyResultDataAccessException e) {
+                // 없는 상품이 섞여서 묶음 전체가 롤백됨 => 한 건씩 다시, 없는 상품은 버림 (요청할 때 확인하지 않았으므로)
+                chunk.forEach(this::applyOne);
+            }
+        }
+    }
+
+    private void applyOne(ItemWriteAheadLog.Entry entry) {
+        try {
+            transactions.executeWithoutResult(status -> target.update(entry.itemId(), entry.toUpdateDto()));
+        } catch (EmptyResultDataAccessException e) {
+            log.warn("dropped pending update of missing item {}", entry.itemId());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("write-behind flush failed, {} item updates stay pending", pendingCount(), e);
+        }
+    }
+
+    private void flushIfPending() {
+        if (!pending.isEmpty() || !inFlight.isEmpty()) flush();
+    }
+
+    // 이 상품의 대기 중인(반영 중 포함) 수정이 DB 에 들어간 다음에 진행
+    private void awaitFlushed(Long itemId) {
+        if (isPending(itemId)) flush();
+    }
+
+    private boolean isPending(Long itemId) {
+        return pendingEntry(itemId) != null;
+    }
+
+    private ItemWriteAheadLog.Entry pendingEntry(Long itemId) {
+        ItemWriteAheadLog.Entry entry = pending.get(itemId);
+        return entry != null ? entry : inFlight.get(itemId);
+    }
+
+    // DB 에서 읽은 행. 대기 중인 수정이 있으면 그 값으로
+    private Item overlay(Item current) {
+        ItemWriteAheadLog.Entry entry = pendingEntry(current.getId());
+        return entry == null ? current : toItem(entry, current.getVersion());
+    }
+
+    // 대기 중인 값 + 반영되면 갖게 될 버전 (수정은 몇 번을 모았든 UPDATE 한 번 => DB 버전 + 1)
+    private static Item toItem(ItemWriteAheadLog.Entry entry, Long baseVersion) {
+        Item item = new Item(entry.itemName(), entry.price(), entry.quantity());
+        item.setId(entry.itemId());
+        item.setVersion(baseVersion == null ? null : baseVersion + 1);
+        return item;
+    }
+}
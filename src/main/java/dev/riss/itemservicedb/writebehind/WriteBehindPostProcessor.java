@@ -0,0 +1,79 @@
+package dev.riss.itemservicedb.writebehind;
+
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.service.ItemService;
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * DB 기술 Config 가 만든 "itemService" 빈을 WriteBehindItemService 로 감쌈
+ * 빈 자체를 바꿔치기하므로 @Qualifier("itemService") 로 받는 쪽(CachingItemService 등) 도 그대로 write-behind 위에 얹힘
+ * 컨텍스트가 닫힐 때 "itemService" 빈이 정리되는 차례에 close (남은 수정 반영)
+ *  - @Bean 의 destroy 메서드 추론은 원래 빈 기준이라 감싼 객체의 close 를 못 찾음 => 만든 것을 들고 있다가 직접
+ *  - 빈 정리 순서를 따르므로 DataSource 등 itemService 가 쓰는 빈보다 먼저 닫힘
+ * 대기 중인 수정이 DB 에 반영되면 캐시(CachingItemService) 가 있을 때 그 상품을 무효화
+ */
+public class WriteBehindPostProcessor implements DestructionAwareBeanPostProcessor {
+
+    private static final String ITEM_SERVICE = "itemService";
+
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final ObjectProvider<CachingItemService> cachingItemService;
+    private final Path logDirectory;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private volatile WriteBehindItemService created;
+
+    public WriteBehindPostProcessor(ObjectProvider<PlatformTransactionManager> transactionManager,
+                                    ObjectProvider<CachingItemService> cachingItemService,
+                                    Path logDirectory, Duration flushInterval, int batchSize) {
+        this.transactionManager = transactionManager;
+        this.cachingItemService = cachingItemService;
+        this.logDirectory = logDirectory;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!ITEM_SERVICE.equals(beanName) || !(bean instanceof ItemService itemService)) return bean;
+        // 빈 후처리기는 먼저 만들어지므로 트랜잭션 매니저, 캐시는 처음 flush 할 때 꺼냄 (캐시는 이 빈을 감싸므로 나중에 생김)
+        created = new WriteBehindItemService(itemService, logDirectory, new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return new TransactionTemplate(transactionManager.getObject()).execute(action);
+            }
+        }, flushInterval, batchSize, this::invalidateCache);
+        return created;
+    }
+
+    // 종료 중(close 의 마지막 flush) 에는 캐시 빈이 먼저 정리되어 꺼낼 수 없음 => 지울 캐시도 없으므로 넘어감
+    private void invalidateCache(Long itemId) {
+        try {
+            cachingItemService.ifAvailable(cache -> cache.invalidate(itemId));
+        } catch (BeanCreationNotAllowedException e) {
+            // 종료 중
+        }
+    }
+
+    @Override
+    public boolean requiresDestruction(Object bean) {
+        return bean instanceof ItemService;
+    }
+
+    @Override
+    public void postProcessBeforeDestruction(Object bean, String beanName) {
+        WriteBehindItemService service = created;
+        if (!ITEM_SERVICE.equals(beanName) || service == null) return;
+        created = null;
+        service.close();
+    }
+}
@@ -0,0 +1,8 @@
+-- 상품 테이블 (예전 test/resources/schema.sql 과 같음)
+CREATE TABLE IF NOT EXISTS item (
+  id        BIGINT  GENERATED BY DEFAULT AS IDENTITY,
+  item_name VARCHAR(10),
+  price     INTEGER,
+  quantity  INTEGER,
+  PRIMARY KEY (id)
+);
@@ -0,0 +1,7 @@
+-- 검색 조건용 인덱스
+--  - price: maxPrice (price <= ?) 범위 검색
+--  - item_name: PREFIX (item_name LIKE 'x%') 범위 검색. CONTAINS(LIKE '%x%') 는 앞이 고정이 아니라서 못 씀
+-- id(afterId, keyset 페이징) 는 PK 인덱스
+-- 쿼리가 실제로 인덱스를 타는지는 ItemQueryPlanTest 가 EXPLAIN 으로 확인
+CREATE INDEX IF NOT EXISTS idx_item_price ON item (price);
+CREATE INDEX IF NOT EXISTS idx_item_name ON item (item_name);
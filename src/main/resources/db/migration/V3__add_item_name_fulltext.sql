@@ -0,0 +1,7 @@
+-- 상품명 전문 검색 인덱스 (ItemNameMatch.TOKEN, ItemFullText 참고)
+-- item 테이블에 트리거가 붙어서 INSERT/UPDATE/DELETE 때 같이 갱신됨
+-- 직접 만들어 둔 인덱스가 있을 수도 있으므로 지우고 다시 (기존 행도 다시 인덱싱)
+CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init';
+CALL FT_INIT();
+CALL FT_DROP_INDEX('PUBLIC', 'ITEM');
+CALL FT_CREATE_INDEX('PUBLIC', 'ITEM', 'ITEM_NAME');
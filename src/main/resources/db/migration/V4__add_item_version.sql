@@ -0,0 +1,8 @@
+-- 낙관적 락용 버전 (Item.version). 수정할 때마다 +1
+-- 수정은 UPDATE ... WHERE id = ? AND version = ? 한 문장으로, 영향받은 행이 0 이면 없는 상품이거나 그 사이 누가 먼저 고친 것 (ItemUpdates)
+-- 기존 행은 0 부터
+ALTER TABLE item ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+-- 컬럼 구성이 바뀌면 H2 전문 검색 트리거/인덱스가 더 이상 맞지 않아서 TOKEN 검색 결과가 비어버림 => 인덱스를 다시 만듦 (V3 와 같은 방법)
+CALL FT_DROP_INDEX('PUBLIC', 'ITEM');
+CALL FT_CREATE_INDEX('PUBLIC', 'ITEM', 'ITEM_NAME');
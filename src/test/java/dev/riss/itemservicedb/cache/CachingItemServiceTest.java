@@ -0,0 +1,234 @@
+package dev.riss.itemservicedb.cache;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.ItemServiceV1;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingItemServiceTest {
+
+    static final CachingItemService.CacheSpec SPEC = new CachingItemService.CacheSpec(100, Duration.ofMinutes(10));
+
+    // 같은 저장소(DB)를 보는 노드 2대
+    ItemService db;
+    ItemCacheInvalidationChannel channel;
+    CachingItemService node1;
+    CachingItemService node2;
+
+    @BeforeEach
+    void beforeEach() {
+        db = new ItemServiceV1(new MemoryItemRepository());
+        channel = new LoopbackItemCacheInvalidationChannel();
+        node1 = new CachingItemService(db, channel, SPEC, SPEC);
+        node2 = new CachingItemService(db, channel, SPEC, SPEC);
+    }
+
+    @Test
+    void findByIdIsCached() {
+        Item item = db.save(new Item("itemA", 10000, 10));
+
+        node1.findById(item.getId());
+        node1.findById(item.getId());
+        node1.findById(-1L);        // 없는 상품은 캐시하지 않음
+        node1.findById(-1L);
+
+        assertThat(node1.stats().hitCount()).isEqualTo(1);
+        assertThat(node1.stats().missCount()).isEqualTo(3);
+    }
+
+    @Test
+    void updateInvalidatesOtherNodes() {
+        //given - 두 노드 모두 캐시에 들고 있음
+        Item item = db.save(new Item("itemA", 10000, 10));
+        node1.findById(item.getId());
+        node2.findById(item.getId());
+
+        //when
+        node1.update(item.getId(), new ItemUpdateDto("itemB", 20000, 20));
+
+        //then
+        assertThat(node1.findById(item.getId()).get().getItemName()).isEqualTo("itemB");
+        assertThat(node2.findById(item.getId()).get().getItemName()).isEqualTo("itemB");
+    }
+
+    @Test
+    void stockChangeInvalidatesDetailAndListings() {
+        Item item = db.save(new Item("itemA", 10000, 10));
+        ItemSearchCond cond = new ItemSearchCond("itemA", null);
+        node1.findById(item.getId());
+        node2.findById(item.getId());
+        node1.findItems(cond);
+        node2.findItems(cond);
+
+        node1.reserveStock(item.getId(), 3);
+
+        //두 노드 모두 상세/검색 결과 둘 다 새 수량 (목록에도 수량이 나오므로)
+        assertThat(node1.findById(item.getId()).get().getQuantity()).isEqualTo(7);
+        assertThat(node2.findById(item.getId()).get().getQuantity()).isEqualTo(7);
+        assertThat(node1.findItems(cond)).extracting(Item::getQuantity).containsExactly(7);
+        assertThat(node2.findItems(cond)).extracting(Item::getQuantity).containsExactly(7);
+
+        node2.releaseStock(item.getId(), 3);
+
+        assertThat(node1.findItems(cond)).extracting(Item::getQuantity).containsExactly(10);
+    }
+
+    @Test
+    void repriceInvalidatesAll() {
+        Item item = db.save(new Item("itemA", 10000, 10));
+        node2.findById(item.getId());
+
+        node1.reprice(new ItemRepriceParam(null, 10), progress -> {});
+
+        assertThat(node2.findById(item.getId()).get().getPrice()).isEqualTo(11000);
+    }
+
+    @Test
+    void returnedItemIsCopy() {
+        Item item = db.save(new Item("itemA", 10000, 10));
+
+        node1.findById(item.getId()).get().setPrice(0);
+
+        assertThat(node1.findById(item.getId()).get().getPrice()).isEqualTo(10000);
+    }
+
+    @Test
+    void searchIsCachedUntilAnyWrite() {
+        //given
+        db.save(new Item("itemA", 10000, 10));
+        node1.findItems(new ItemSearchCond("itemA", null));
+        node1.findItems(new ItemSearchCond("itemA", null));
+        node1.findItems(new ItemSearchCond(null, null));
+        node1.findItems(new ItemSearchCond("", null));     // 조건 없음과 같은 키
+        assertThat(node1.executedSearchCount()).isEqualTo(2);
+
+        //when - 다른 노드의 쓰기
+        node2.save(new Item("itemA-2", 20000, 20));
+
+        //then
+        assertThat(node1.findItems(new ItemSearchCond("itemA", null))).hasSize(2);
+        assertThat(node1.executedSearchCount()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentIdenticalSearchesRunOnce() throws Exception {
+        //given - DB 검색이 끝나지 않고 기다리도록
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dbSearches = new AtomicInteger();
+        ItemService slowDb = new ItemServiceV1(new MemoryItemRepository()) {
+            @Override
+            public List<Item> findItems(ItemSearchCond cond) {
+                dbSearches.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findItems(cond);
+            }
+        };
+        slowDb.save(new Item("itemA", 10000, 10));
+        CachingItemService node = new CachingItemService(slowDb, channel, SPEC, SPEC);
+
+        //when - 같은 검색 8개 동시에
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<Future<List<Item>>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(() -> node.findItems(new ItemSearchCond("item", null))));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (node.coalescedSearchCount() < requests - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        //then - DB 검색은 한 번, 나머지는 그 결과를 같이 받음
+        for (Future<List<Item>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).extracting(Item::getItemName).containsExactly("itemA");
+        }
+        executor.shutdown();
+        assertThat(dbSearches.get()).isEqualTo(1);
+        assertThat(node.executedSearchCount()).isEqualTo(1);
+        assertThat(node.coalescedSearchCount()).isEqualTo(requests - 1);
+    }
+
+    @Test
+    void waitingSearchesAreBounded() throws Exception {
+        //given - 첫 DB 검색만 멈춤
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dbSearches = new AtomicInteger();
+        ItemService stuckDb = new ItemServiceV1(new MemoryItemRepository()) {
+            @Override
+            public List<Item> findItems(ItemSearchCond cond) {
+                if (dbSearches.incrementAndGet() == 1) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.findItems(cond);
+            }
+        };
+        stuckDb.save(new Item("itemA", 10000, 10));
+        CachingItemService node = new CachingItemService(stuckDb, channel, SPEC, SPEC, Duration.ofMillis(100));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<List<Item>> first = executor.submit(() -> node.findItems(new ItemSearchCond("item", null)));
+        while (dbSearches.get() == 0) Thread.sleep(10);
+
+        //then - 뒤에 온 검색은 searchWait 만큼만 기다리고 직접 조회
+        assertThat(node.findItems(new ItemSearchCond("item", null))).extracting(Item::getItemName).containsExactly("itemA");
+        assertThat(dbSearches.get()).isEqualTo(2);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).hasSize(1);
+        executor.shutdown();
+    }
+
+    @Test
+    void errorInSearchReachesWaitingSearches() throws Exception {
+        //given - 먼저 간 검색이 Error 로 끝남
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger dbSearches = new AtomicInteger();
+        ItemService failingDb = new ItemServiceV1(new MemoryItemRepository()) {
+            @Override
+            public List<Item> findItems(ItemSearchCond cond) {
+                dbSearches.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new OutOfMemoryError("search failed");
+            }
+        };
+        CachingItemService node = new CachingItemService(failingDb, channel, SPEC, SPEC, Duration.ofSeconds(5));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<List<Item>> first = executor.submit(() -> node.findItems(new ItemSearchCond("item", null)));
+        while (dbSearches.get() == 0) Thread.sleep(10);
+        Future<List<Item>> waiting = executor.submit(() -> node.findItems(new ItemSearchCond("item", null)));
+        Thread.sleep(100);
+        release.countDown();
+
+        //then - 기다리던 검색도 같은 Error 로 바로 끝남 (searchWait 까지 매달리지 않음)
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+        assertThatThrownBy(() -> waiting.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+        assertThat(dbSearches.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+}
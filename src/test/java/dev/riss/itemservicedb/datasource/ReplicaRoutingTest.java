@@ -0,0 +1,147 @@
+package dev.riss.itemservicedb.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.riss.itemservicedb.config.*;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.service.ItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 임베디드 H2 3개(primary 1 + replica 2) 로 읽기/쓰기 분리 확인
+ * 복제는 없으므로, replica 마다 다른 행을 넣어두고 어디서 읽었는지 결과로 구분
+ */
+class ReplicaRoutingTest {
+
+    ConfigurableApplicationContext context;
+
+    @AfterEach
+    void afterEach() {
+        ReadYourWrites.clear();
+        if (context != null) context.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = {JdbcTemplateV2Config.class, MyBatisConfig.class, JpaConfig.class, QuerydslConfig.class, V2Config.class})
+    void readOnlyTransactionsGoToReplicas(Class<?> config) throws SQLException {
+        String prefix = "jdbc:h2:mem:routing-" + config.getSimpleName() + "-";
+        String replica1 = replica(prefix + "replica1", 100, "replica1");
+        String replica2 = replica(prefix + "replica2", 200, "replica2");
+
+        context = new SpringApplicationBuilder(RoutingTestApplication.class, config, ReplicaRoutingConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + prefix + "primary;DB_CLOSE_DELAY=-1",
+                        "--item.datasource.replica-urls=" + replica1 + "," + replica2,
+                        "--item.datasource.read-your-writes=1m",
+                        "--logging.level.root=warn");
+        ItemService itemService = context.getBean(ItemService.class);
+
+        //when - 쓰기는 primary
+        Item saved = itemService.save(new Item("primary", 1000, 1));
+
+        //then - 방금 쓴 스레드(사용자) 는 window 동안 primary 에서 읽음
+        assertThat(itemService.findById(saved.getId())).isPresent();
+
+        //다른 사용자 => replica 를 번갈아가며
+        ReadYourWrites.clear();
+        assertThat(itemService.findById(saved.getId())).isEmpty();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            List<Item> items = itemService.findItems(new ItemSearchCond());
+            assertThat(items).hasSize(1);
+            names.add(items.get(0).getItemName());
+        }
+        assertThat(names).containsExactlyInAnyOrder("replica1", "replica2");
+
+        //readOnly 가 아닌 트랜잭션이라도 읽기만 했으면 primary 에 묶지 않음
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> itemService.findItems(new ItemSearchCond()));
+        assertThat(itemService.findById(saved.getId())).isEmpty();
+
+        //쿠키를 고쳐서 미래 시각을 넣어도 primary 에 묶이지 않음
+        ReadYourWrites.bind(System.currentTimeMillis() + Duration.ofDays(1).toMillis(), null);
+        assertThat(itemService.findById(saved.getId())).isEmpty();
+
+        //replica2 가 죽으면 replica1 만
+        execute(replica2, "SHUTDOWN");
+        context.getBean(ReplicaDataSources.class).checkHealth();
+        for (int i = 0; i < 2; i++) {
+            assertThat(itemService.findItems(new ItemSearchCond())).extracting(Item::getItemName).containsExactly("replica1");
+        }
+    }
+
+    @Test
+    void poolsUseHikariPropertiesAndReportMetrics() throws SQLException {
+        String prefix = "jdbc:h2:mem:routing-pools-";
+        String replica1 = replica(prefix + "replica1", 100, "replica1");
+
+        context = new SpringApplicationBuilder(RoutingTestApplication.class, JdbcTemplateV2Config.class, ReplicaRoutingConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + prefix + "primary;DB_CLOSE_DELAY=-1",
+                        "--item.datasource.replica-urls=" + replica1,
+                        "--spring.datasource.hikari.maximum-pool-size=3",
+                        "--spring.datasource.hikari.connection-timeout=5000",
+                        "--logging.level.root=warn");
+        context.getBean(ItemService.class).findItems(new ItemSearchCond());
+
+        //spring.datasource.hikari.* 는 모든 풀에, replica 전용 설정(connection-timeout 1s) 은 replica 에만
+        List<HikariDataSource> pools = VirtualThreadConfig.connectionPools(context.getBean(DataSource.class), context.getBean(ReplicaDataSources.class));
+        assertThat(pools).extracting(HikariDataSource::getPoolName).containsExactly("primary", "replica-1");
+        assertThat(pools).extracting(HikariDataSource::getMaximumPoolSize).containsOnly(3);
+        assertThat(pools).extracting(HikariDataSource::getConnectionTimeout).containsExactly(5000L, 1000L);
+
+        //hikaricp.* 지표가 풀마다
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        for (String pool : List.of("primary", "replica-1")) {
+            assertThat(registry.find("hikaricp.connections.max").tag("pool", pool).gauge()).isNotNull();
+        }
+    }
+
+    /**
+     * Flyway 로 스키마를 만들고 구분용 상품 하나를 넣은 replica. 이미 만든 DB 만 열리도록 IFEXISTS (SHUTDOWN 후에는 연결 실패)
+     */
+    private static String replica(String url, long id, String itemName) throws SQLException {
+        Flyway.configure().dataSource(url + ";DB_CLOSE_DELAY=-1", "sa", "").load().migrate();
+        execute(url + ";DB_CLOSE_DELAY=-1", "INSERT INTO item(id, item_name, price, quantity) VALUES (" + id + ", '" + itemName + "', 1000, 1)");
+        return url + ";DB_CLOSE_DELAY=-1;IFEXISTS=TRUE";
+    }
+
+    private static void execute(String url, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    // 스프링 데이터 JPA 레포지토리, MyBatis 매퍼, 엔티티는 루트 패키지 기준으로 찾음
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackages = "dev.riss.itemservicedb")
+    static class RoutingTestApplication {
+    }
+}
@@ -1,15 +1,22 @@
 package dev.riss.itemservicedb.domain;
 
+import dev.riss.itemservicedb.repository.ItemNameMatch;
 import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
 import dev.riss.itemservicedb.repository.ItemSearchCond;
 import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.columnar.ColumnarItemRepository;
 import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.annotation.Commit;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -17,9 +24,12 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 // 테스트 원칙 -> 테스트는 다른 테스트와 격리돼있어야함, 테스트는 반복해서 실행할 수 있어야 함
 @Slf4j
@@ -32,6 +42,9 @@ class ItemRepositoryTest {
     @Autowired
     ItemRepository itemRepository;
 
+    @Autowired
+    EntityManager em;
+
 /*    @Autowired
     PlatformTransactionManager transactionManager;
     TransactionStatus status;
@@ -48,6 +61,9 @@ class ItemRepositoryTest {
         if (itemRepository instanceof MemoryItemRepository) {
             ((MemoryItemRepository) itemRepository).clearStore();
         }
+        if (itemRepository instanceof ColumnarItemRepository) {
+            ((ColumnarItemRepository) itemRepository).clearStore();
+        }
         // transaction rollback
 //        transactionManager.rollback(status);
     }
@@ -91,6 +107,56 @@ class ItemRepositoryTest {
         assertThat(findItem.getQuantity()).isEqualTo(updateParam.getQuantity());
     }
 
+    @Test
+    void updateWithVersion() {
+        //given
+        Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+        long version = itemRepository.findById(itemId).get().getVersion();
+
+        //when - 읽은 버전으로 수정 => 성공하고 버전 +1
+        ItemUpdateDto updateParam = new ItemUpdateDto("item2", 20000, 20);
+        updateParam.setVersion(version);
+        itemRepository.update(itemId, updateParam);
+
+        //then
+        assertThat(itemRepository.findById(itemId).get().getVersion()).isEqualTo(version + 1);
+
+        //같은 (이제는 낡은) 버전으로 또 수정 => 충돌, 값은 그대로
+        ItemUpdateDto staleParam = new ItemUpdateDto("item3", 30000, 30);
+        staleParam.setVersion(version);
+        assertThatThrownBy(() -> itemRepository.update(itemId, staleParam)).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(itemRepository.findById(itemId).get().getItemName()).isEqualTo("item2");
+
+        //없는 상품
+        assertThatThrownBy(() -> itemRepository.update(Long.MAX_VALUE, staleParam)).isInstanceOf(EmptyResultDataAccessException.class);
+    }
+
+    @Test
+    void reserveAndReleaseStock() {
+        //given
+        Long itemId = itemRepository.save(new Item("item1", 10000, 10)).getId();
+
+        //when - 있는 만큼만 차감, 모자라면 false (재고는 그대로)
+        assertThat(itemRepository.reserveStock(itemId, 7)).isTrue();
+        assertThat(itemRepository.reserveStock(itemId, 4)).isFalse();
+        assertThat(itemRepository.reserveStock(itemId, 3)).isTrue();
+        assertThat(itemRepository.findById(itemId).get().getQuantity()).isZero();
+
+        //되돌리기
+        itemRepository.releaseStock(itemId, 5);
+        Item findItem = itemRepository.findById(itemId).get();
+        assertThat(findItem.getQuantity()).isEqualTo(5);
+        assertThat(findItem.getVersion()).isEqualTo(3);
+
+        //없는 상품
+        assertThatThrownBy(() -> itemRepository.reserveStock(Long.MAX_VALUE, 1)).isInstanceOf(EmptyResultDataAccessException.class);
+        assertThatThrownBy(() -> itemRepository.releaseStock(Long.MAX_VALUE, 1)).isInstanceOf(EmptyResultDataAccessException.class);
+
+        //int 범위를 넘는 되돌리기는 거부 (재고는 그대로)
+        assertThatThrownBy(() -> itemRepository.releaseStock(itemId, Integer.MAX_VALUE)).isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(itemRepository.findById(itemId).get().getQuantity()).isEqualTo(5);
+    }
+
     @Test
     void findItems() {
         //given
@@ -123,6 +189,186 @@ class ItemRepositoryTest {
         test("itemA", 10000, item1);
     }
 
+    @Test
+    void findItemsPage() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+        Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+        Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+        Item item4 = itemRepository.save(new Item("itemA-3", 10000, 40));
+
+        //첫 페이지 -> 마지막 id 다음 페이지
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, null, null, 2))).containsExactly(item1, item2);
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, null, item2.getId(), 2))).containsExactly(item3, item4);
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, null, item4.getId(), 2))).isEmpty();
+
+        //조건 + 페이징
+        assertThat(itemRepository.findAll(new ItemSearchCond("itemA", null, item1.getId(), 1))).containsExactly(item2);
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, 10000, item1.getId(), 5))).containsExactly(item4);
+        assertThat(itemRepository.findAll(new ItemSearchCond("itemA", 20000, null, 2))).containsExactly(item1, item2);
+
+        //이전 페이지 - beforeId 앞에서부터 거꾸로 size 개, 결과는 id 순
+        assertThat(itemRepository.findAll(beforeId(null, null, item4.getId(), 2))).containsExactly(item2, item3);
+        assertThat(itemRepository.findAll(beforeId(null, null, item2.getId(), 2))).containsExactly(item1);
+        assertThat(itemRepository.findAll(beforeId("itemA", null, item4.getId(), 1))).containsExactly(item2);
+        assertThat(itemRepository.findAll(beforeId(null, 10000, item4.getId() + 1, 5))).containsExactly(item1, item4);
+    }
+
+    private static ItemSearchCond beforeId(String itemName, Integer maxPrice, Long beforeId, Integer size) {
+        ItemSearchCond cond = new ItemSearchCond(itemName, maxPrice, null, size);
+        cond.setBeforeId(beforeId);
+        return cond;
+    }
+
+    @Test
+    void findItemsByNameMatch() {
+        //given
+        Item item1 = itemRepository.save(new Item("red hat", 10000, 10));
+        Item item2 = itemRepository.save(new Item("red cap", 20000, 20));
+        Item item3 = itemRepository.save(new Item("Blue hat", 30000, 30));
+        Item item4 = itemRepository.save(new Item("redhat 2", 10000, 40));
+
+        //포함(기본) / 시작
+        assertThat(findByName("hat", ItemNameMatch.CONTAINS)).containsExactly(item1, item3, item4);
+        assertThat(findByName("red", ItemNameMatch.PREFIX)).containsExactly(item1, item2, item4);
+        assertThat(findByName("hat", ItemNameMatch.PREFIX)).isEmpty();
+
+        //단어 - 단어 단위로만, 대소문자 무시, 검색어의 모든 단어가 있어야 함
+        assertThat(findByName("hat", ItemNameMatch.TOKEN)).containsExactly(item1, item3);
+        assertThat(findByName("HAT red", ItemNameMatch.TOKEN)).containsExactly(item1);
+        assertThat(findByName("blu", ItemNameMatch.TOKEN)).isEmpty();
+
+        //단어 + 가격 + 페이징
+        ItemSearchCond cond = new ItemSearchCond("red", 20000, item1.getId(), 1);
+        cond.setNameMatch(ItemNameMatch.TOKEN);
+        assertThat(itemRepository.findAll(cond)).containsExactly(item2);
+
+        //단어 + 이전 페이지, 스트림
+        cond = new ItemSearchCond("hat", null, null, 1);
+        cond.setNameMatch(ItemNameMatch.TOKEN);
+        cond.setBeforeId(item3.getId());
+        assertThat(itemRepository.findAll(cond)).containsExactly(item1);
+        List<Item> streamed = new ArrayList<>();
+        cond = new ItemSearchCond("hat", null);
+        cond.setNameMatch(ItemNameMatch.TOKEN);
+        itemRepository.streamAll(cond, streamed::add);
+        assertThat(streamed).containsExactlyInAnyOrder(item1, item3);
+
+        //수정하면 단어 인덱스도 같이 바뀜
+        itemRepository.update(item2.getId(), new ItemUpdateDto("green cap", 20000, 20));
+        assertThat(findByName("red", ItemNameMatch.TOKEN)).containsExactly(item1);
+        assertThat(findByName("green", ItemNameMatch.TOKEN)).extracting(Item::getId).containsExactly(item2.getId());
+    }
+
+    private List<Item> findByName(String itemName, ItemNameMatch nameMatch) {
+        ItemSearchCond cond = new ItemSearchCond(itemName, null, null, 10);
+        cond.setNameMatch(nameMatch);
+        return itemRepository.findAll(cond);
+    }
+
+    @Test
+    void saveAll() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+        Item item2 = new Item("itemA-2", 20000, 20);
+        Item item3 = new Item("itemB-1", 30000, 30);
+
+        //when
+        List<Item> savedItems = itemRepository.saveAll(List.of(item2, item3));
+
+        //then - 넘긴 순서대로 id 가 채워지고, 한 건씩 저장한 것과 섞여도 같은 트랜잭션에서 다 보임
+        assertThat(savedItems).containsExactly(item2, item3);
+        assertThat(item2.getId()).isGreaterThan(item1.getId());
+        assertThat(item3.getId()).isGreaterThan(item2.getId());
+        assertThat(itemRepository.findById(item3.getId())).contains(item3);
+        test(null, null, item1, item2, item3);
+    }
+
+    @Test
+    void nullPriceAndQuantity() {
+        //given - 가격/수량 미정 상품 (NULL 이 0 으로 바뀌어 조회되면 안 됨)
+        Item item = itemRepository.save(new Item("itemA", null, null));
+
+        //when
+        Item findItem = itemRepository.findById(item.getId()).get();
+
+        //then
+        assertThat(findItem.getPrice()).isNull();
+        assertThat(findItem.getQuantity()).isNull();
+        test(null, null, item);
+    }
+
+    @Test
+    void reprice() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+        Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+        Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+
+        //when - 20000 이하 +10%, item3 은 구간 밖
+        int updated = itemRepository.reprice(new ItemRepriceParam(20000, 10), item1.getId(), item3.getId());
+
+        //then - 저장할 때 들고 있던 상품(영속성 컨텍스트, 메모리) 말고 바뀐 가격이 보여야 함
+        assertThat(updated).isEqualTo(2);
+        assertThat(itemRepository.findById(item1.getId()).get().getPrice()).isEqualTo(11000);
+        assertThat(itemRepository.findById(item2.getId()).get().getPrice()).isEqualTo(22000);
+        assertThat(itemRepository.findById(item3.getId()).get().getPrice()).isEqualTo(30000);
+        assertThat(itemRepository.findMaxId()).isEqualTo(item3.getId());
+    }
+
+    @Test
+    void streamItems() {
+        //given
+        Item item1 = itemRepository.save(new Item("itemA-1", 10000, 10));
+        Item item2 = itemRepository.save(new Item("itemA-2", 20000, 20));
+        Item item3 = itemRepository.save(new Item("itemB-1", 30000, 30));
+
+        //then - findAll 과 같은 결과를 한 건씩
+        List<Item> streamed = new ArrayList<>();
+        itemRepository.streamAll(new ItemSearchCond("itemA", null), streamed::add);
+        assertThat(streamed).containsExactly(item1, item2);
+
+        streamed.clear();
+        itemRepository.streamAll(new ItemSearchCond(null, 20000, item1.getId(), 5), streamed::add);
+        assertThat(streamed).containsExactly(item2);
+
+        streamed.clear();
+        itemRepository.streamAll(new ItemSearchCond(null, null, null, 2), streamed::add);
+        assertThat(streamed).containsExactly(item1, item2);
+
+        streamed.clear();
+        itemRepository.streamAll(new ItemSearchCond(), streamed::add);
+        assertThat(streamed).containsExactly(item1, item2, item3);
+    }
+
+    @Test
+    void streamItemsKeepsEntitiesTheCallerHolds() {
+        Item item = itemRepository.save(new Item("itemA", 10000, 10));
+        Item held = itemRepository.findById(item.getId()).get();
+        assumeTrue(em.contains(held));      // JPA 구현만 (같은 트랜잭션에서 영속 상태로 들고 있는 엔티티)
+
+        itemRepository.streamAll(new ItemSearchCond(), streamed -> {});
+
+        //then - 스트림이 새로 올린 엔티티만 detach, 호출한 쪽이 들고 있던 건 그대로 변경 감지 대상
+        assertThat(em.contains(held)).isTrue();
+    }
+
+    @Test
+    void updateKeepsEntitiesTheCallerHolds() {
+        Item itemA = itemRepository.save(new Item("itemA", 10000, 10));
+        Item itemB = itemRepository.save(new Item("itemB", 20000, 20));
+        Item held = itemRepository.findById(itemA.getId()).get();
+        assumeTrue(em.contains(held));      // JPA 구현만
+
+        itemRepository.update(itemB.getId(), new ItemUpdateDto("itemB2", 21000, 21));
+        itemRepository.reserveStock(itemB.getId(), 1);
+
+        //then - 바꾼 상품만 DB 에서 새로 읽고, 호출한 쪽이 들고 있던 다른 엔티티는 그대로 영속 상태
+        assertThat(em.contains(held)).isTrue();
+        assertThat(itemRepository.findById(itemB.getId())).get()
+                .extracting(Item::getItemName, Item::getQuantity).containsExactly("itemB2", 20);
+    }
+
     void test(String itemName, Integer maxPrice, Item... items) {
         List<Item> result = itemRepository.findAll(new ItemSearchCond(itemName, maxPrice));
         assertThat(result).containsExactly(items);
@@ -0,0 +1,71 @@
+package dev.riss.itemservicedb.metrics;
+
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.config.ItemCacheConfig;
+import dev.riss.itemservicedb.config.ItemMetricsConfig;
+import dev.riss.itemservicedb.config.MemoryConfig;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.service.ItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemTimingPostProcessorTest {
+
+    // ItemCacheConfig 의 @Value Duration 변환은 스프링부트 ConversionService 가 해줌
+    final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(MemoryConfig.class, ItemCacheConfig.class, ItemMetricsConfig.class);
+
+    @Test
+    void timesServiceAndRepositoryByImplementation() {
+        contextRunner.run(context -> {
+            ItemService itemService = context.getBean(ItemService.class);       // @Primary cachingItemService
+            itemService.save(new Item("itemA", 10000, 10));
+
+            itemService.findItems(new ItemSearchCond("item", 20000));
+            itemService.findItems(new ItemSearchCond("item", 20000));       // 두 번째는 검색 캐시에서
+
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            assertThat(timer(registry, "item.service", "CachingItemService", "findItems", "name_price").count()).isEqualTo(2);
+            assertThat(timer(registry, "item.service", "ItemServiceV1", "findItems", "name_price").count()).isEqualTo(1);
+            assertThat(timer(registry, "item.repository", "MemoryItemRepository", "findAll", "name_price").count()).isEqualTo(1);
+            assertThat(timer(registry, "item.repository", "MemoryItemRepository", "save", "none").count()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void keepsImplementationTypeAndSkipsOtherMethods() {
+        contextRunner.run(context -> {
+            // 구현 클래스 타입으로도 주입 가능, 인터페이스에 없는 메서드는 측정하지 않음
+            CachingItemService cachingItemService = context.getBean(CachingItemService.class);
+            cachingItemService.estimatedSize();
+
+            assertThat(context.getBean(MeterRegistry.class).find("item.service").tag("operation", "estimatedSize").timer()).isNull();
+        });
+    }
+
+    @Test
+    void predicateTag() {
+        assertThat(ItemTimingPostProcessor.predicate(new Object[]{new ItemSearchCond()})).isEqualTo("none");
+        assertThat(ItemTimingPostProcessor.predicate(new Object[]{new ItemSearchCond("", 1000)})).isEqualTo("price");
+        assertThat(ItemTimingPostProcessor.predicate(new Object[]{new ItemSearchCond("a", null)})).isEqualTo("name");
+        assertThat(ItemTimingPostProcessor.predicate(new Object[]{1L})).isEqualTo("none");
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String implementation, String operation, String predicate) {
+        return registry.get(name)
+                .tag("implementation", implementation)
+                .tag("operation", operation)
+                .tag("predicate", predicate)
+                .tag("exception", "none")
+                .timer();
+    }
+}
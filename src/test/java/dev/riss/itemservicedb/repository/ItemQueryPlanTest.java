@@ -0,0 +1,220 @@
+package dev.riss.itemservicedb.repository;
+
+import dev.riss.itemservicedb.config.*;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.service.ItemService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쿼리 플랜 회귀 테스트
+ *
+ * DB 기술(Config) 마다 findItems / streamItems 를 모든 검색 조건 조합으로 실행하고, 그때 실제로 DB 에 나간 SQL 을 H2 EXPLAIN 으로 확인
+ * 인덱스를 탈 수 있는 조건(price / afterId / PREFIX / TOKEN) 이 있는데 item 테이블 전체 스캔(tableScan) 이면 실패
+ * => ORM 버전, 쿼리 작성 방식이 바뀌어서 플랜이 나빠지면 여기서 잡힘
+ *
+ * SQL 은 DataSource 를 프록시로 감싸서 PreparedStatement 에 들어온 SQL + 파라미터를 그대로 기록 (ORM 이 만든 SQL 도 그대로 보임)
+ * EXPLAIN 에도 같은 파라미터를 넣음 (H2 는 LIKE 패턴 같은 파라미터 값을 보고 인덱스 범위를 정함)
+ *
+ * 파라미터가 null 이면 조건을 무시하는 catch-all 조건((? IS NULL OR ...)) 은 SQL 문자열로 따로 확인
+ * H2 는 바인딩된 값으로 다시 최적화해서 EXPLAIN 으로는 안 잡히지만, 플랜을 SQL 하나당 한 번 짜는 DB 는 인덱스를 못 씀
+ */
+class ItemQueryPlanTest {
+
+    private static final Pattern CATCH_ALL = Pattern.compile("\\?\\s*\\)?\\s*IS\\s+NULL\\s+OR", Pattern.CASE_INSENSITIVE);
+
+    static Stream<Class<?>> backends() {
+        return Stream.of(JdbcTemplateV1Config.class, JdbcTemplateV2Config.class, JdbcTemplateV3Config.class, MyBatisConfig.class,
+                JpaConfig.class, SpringDataJpaConfig.class, QuerydslConfig.class, V2Config.class);
+    }
+
+    @ParameterizedTest
+    @MethodSource("backends")
+    void findItemsUsesIndex(Class<?> config) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PlanTestApplication.class, config)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:plan-" + config.getSimpleName() + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=warn")) {
+            ItemService itemService = context.getBean(ItemService.class);
+            SqlCapture capture = context.getBean(SqlCapture.class);
+
+            List<Item> items = new ArrayList<>();
+            for (int i = 1; i <= 20; i++) {
+                items.add(new Item("it" + i, 1000 + i * 100, i));
+            }
+            context.getBean(ItemRepository.class).saveAll(items);
+
+            for (ItemSearchCond cond : conditions()) {
+                capture.clear();
+                itemService.findItems(cond);
+                assertPlans(capture, config.getSimpleName() + " findItems", cond);
+
+                // 내보내기(export) 가 쓰는 스트림 조회도 findItems 와 따로 쿼리를 만드는 구현이 있음 (ex. JpaItemRepositoryV2)
+                capture.clear();
+                itemService.streamItems(cond, item -> {});
+                assertPlans(capture, config.getSimpleName() + " streamItems", cond);
+            }
+        }
+    }
+
+    private static void assertPlans(SqlCapture capture, String description, ItemSearchCond cond) throws Exception {
+        List<String> plans = new ArrayList<>();
+        for (CapturedQuery query : capture.queries()) {
+            plans.add(capture.explain(query));
+        }
+        List<String> itemPlans = plans.stream().filter(plan -> plan.contains("\"PUBLIC\".\"ITEM\"")).toList();
+
+        assertThat(itemPlans).as("%s %s: item 조회 SQL 이 기록되지 않음 %s", description, cond, plans).isNotEmpty();
+        assertThat(capture.queries()).extracting(CapturedQuery::sql).as("%s %s: catch-all 조건", description, cond)
+                .noneMatch(sql -> CATCH_ALL.matcher(sql).find());
+        if (expectsIndex(cond)) {
+            assertThat(itemPlans).as("%s %s", description, cond)
+                    .noneMatch(plan -> plan.contains("PUBLIC.ITEM.tableScan"));
+        }
+    }
+
+    // 상품명(없음/CONTAINS/PREFIX/TOKEN) x maxPrice x afterId x size
+    private static List<ItemSearchCond> conditions() {
+        List<ItemSearchCond> conditions = new ArrayList<>();
+        for (ItemNameMatch nameMatch : new ItemNameMatch[]{null, ItemNameMatch.CONTAINS, ItemNameMatch.PREFIX, ItemNameMatch.TOKEN}) {
+            for (Integer maxPrice : new Integer[]{null, 1500}) {
+                for (Long afterId : new Long[]{null, 5L}) {
+                    for (Integer size : new Integer[]{null, 10}) {
+                        ItemSearchCond cond = new ItemSearchCond(nameMatch == null ? null : "it1", maxPrice, afterId, size);
+                        cond.setNameMatch(nameMatch);
+                        conditions.add(cond);
+                    }
+                }
+            }
+        }
+        return conditions;
+    }
+
+    // CONTAINS(LIKE '%x%') 만 있거나 조건이 없으면 전체 스캔이 맞음
+    private static boolean expectsIndex(ItemSearchCond cond) {
+        boolean nameIndex = cond.getItemName() != null && cond.getNameMatch() != ItemNameMatch.CONTAINS;
+        return nameIndex || cond.getMaxPrice() != null || cond.getAfterId() != null;
+    }
+
+    // 레포지토리/매퍼/스프링 데이터 인터페이스는 이 패키지 하위, 엔티티는 domain
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Item.class)
+    static class PlanTestApplication {
+
+        @Bean
+        static SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    record CapturedQuery(String sql, List<Binding> bindings) {
+    }
+
+    // PreparedStatement.setXxx(index, value, ...) 호출 하나
+    record Binding(Method method, Object[] args) {
+    }
+
+    /**
+     * DataSource -> Connection -> PreparedStatement 를 차례로 JDK 프록시로 감싸서 실행된 SELECT 를 기록
+     */
+    static class SqlCapture implements BeanPostProcessor {
+
+        private final List<CapturedQuery> queries = Collections.synchronizedList(new ArrayList<>());
+        private DataSource target;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) return bean;
+            target = dataSource;
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection connection ? proxyConnection(connection) : result);
+        }
+
+        List<CapturedQuery> queries() {
+            synchronized (queries) {
+                return List.copyOf(queries);
+            }
+        }
+
+        void clear() {
+            queries.clear();
+        }
+
+        String explain(CapturedQuery query) throws SQLException, ReflectiveOperationException {
+            try (Connection con = target.getConnection();
+                 PreparedStatement pstmt = con.prepareStatement("EXPLAIN " + query.sql())) {
+                for (Binding binding : query.bindings()) {
+                    binding.method().invoke(pstmt, binding.args());
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        }
+
+        private Connection proxyConnection(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) -> {
+                if (method.getName().equals("prepareStatement") && args[0] instanceof String sql
+                        && sql.stripLeading().toUpperCase().startsWith("SELECT")) {
+                    return proxyStatement((PreparedStatement) result, sql);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement proxyStatement(PreparedStatement statement, String sql) {
+            List<Binding> bindings = new ArrayList<>();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bindings.add(new Binding(method, args.clone()));
+                } else if (name.startsWith("execute")) {
+                    queries.add(new CapturedQuery(sql, List.copyOf(bindings)));
+                }
+                return result;
+            });
+        }
+
+        @FunctionalInterface
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result) throws Throwable;
+        }
+
+        private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+            Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                try {
+                    return afterCall.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            return type.cast(proxy);
+        }
+    }
+}
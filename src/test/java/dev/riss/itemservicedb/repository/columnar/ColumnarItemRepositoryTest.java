@@ -0,0 +1,49 @@
+package dev.riss.itemservicedb.repository.columnar;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 스프링 없이 컬럼 저장소 자체만 검증 (null 컬럼, 이름 arena)
+class ColumnarItemRepositoryTest {
+
+    ColumnarItemRepository itemRepository = new ColumnarItemRepository();
+
+    @Test
+    void nullColumns() {
+        //given
+        Item item = itemRepository.save(new Item(null, null, null));
+
+        //then - null 은 null 로 돌아오고, 가격 조건에는 걸리지 않음
+        Item found = itemRepository.findById(item.getId()).orElseThrow();
+        assertThat(found.getItemName()).isNull();
+        assertThat(found.getPrice()).isNull();
+        assertThat(found.getQuantity()).isNull();
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, Integer.MAX_VALUE))).isEmpty();
+        assertThat(itemRepository.findAll(new ItemSearchCond("a", null))).isEmpty();
+        assertThat(itemRepository.findAll(new ItemSearchCond())).containsExactly(found);
+    }
+
+    @Test
+    void namesSurviveArenaCompaction() {
+        //given - 한글 이름 (UTF-8 멀티바이트) 을 계속 바꿔서 arena 를 여러 번 모으게 함
+        for (int i = 0; i < 5000; i++) {
+            itemRepository.save(new Item("상품" + i, i, 1));
+        }
+        for (int n = 0; n < 50000; n++) {
+            long itemId = n % 5000 + 1;
+            itemRepository.update(itemId, new ItemUpdateDto("새상품" + n, (int) itemId - 1, 2));
+        }
+
+        //then
+        assertThat(itemRepository.findById(1L).orElseThrow().getItemName()).isEqualTo("새상품45000");
+        List<Item> items = itemRepository.findAll(new ItemSearchCond("상품49999", 4999));
+        assertThat(items).extracting(Item::getItemName).containsExactly("새상품49999");
+        assertThat(itemRepository.findAll(new ItemSearchCond("새", 99))).hasSize(100);
+    }
+}
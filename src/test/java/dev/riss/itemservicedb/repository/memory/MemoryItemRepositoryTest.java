@@ -0,0 +1,198 @@
+package dev.riss.itemservicedb.repository.memory;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 스프링 없이 메모리 저장소 자체만 검증 (동시성, 스냅샷)
+class MemoryItemRepositoryTest {
+
+    MemoryItemRepository itemRepository = new MemoryItemRepository();
+
+    @Test
+    void concurrentSave() throws Exception {
+        //given
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    itemRepository.save(new Item("item", 1000, 1));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        //then - id 중복, 유실 없음
+        List<Item> items = itemRepository.findAll(new ItemSearchCond());
+        Set<Long> ids = items.stream().map(Item::getId).collect(Collectors.toSet());
+        assertThat(items).hasSize(threads * perThread);
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    void returnedItemIsCopy() {
+        //given
+        Item savedItem = itemRepository.save(new Item("itemA", 10000, 10));
+
+        //when - 꺼내간 객체를 바꿔도
+        Item findItem = itemRepository.findById(savedItem.getId()).get();
+        findItem.setPrice(1);
+        savedItem.setPrice(2);
+
+        //then - 저장소는 그대로
+        assertThat(itemRepository.findById(savedItem.getId()).get().getPrice()).isEqualTo(10000);
+    }
+
+    @Test
+    void findAllNeverSeesHalfAppliedUpdate() throws Exception {
+        //given - 이름과 가격을 항상 같이 바꿈 ("p" + price == itemName)
+        for (int i = 0; i < 100; i++) {
+            itemRepository.save(new Item("p0", 0, 0));
+        }
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> {
+            for (int n = 1; n <= 20000; n++) {
+                long itemId = n % 100 + 1;
+                int price = n % 1000;
+                itemRepository.update(itemId, new ItemUpdateDto("p" + price, price, 0));
+            }
+        });
+
+        //then
+        while (!writer.isDone()) {
+            for (Item item : itemRepository.findAll(new ItemSearchCond())) {
+                assertThat(item.getItemName()).isEqualTo("p" + item.getPrice());
+            }
+        }
+        writer.get();
+        executor.shutdown();
+        assertThat(itemRepository.findAll(new ItemSearchCond())).hasSize(100);
+    }
+
+    @Test
+    void priceIndexFollowsUpdates() throws Exception {
+        //given
+        for (int i = 0; i < 100; i++) {
+            itemRepository.save(new Item("item", 1000, 1));
+        }
+
+        //when - 가격을 계속 바꾸는 중에 maxPrice 검색
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int n = 1; n <= 20000; n++) {
+                itemRepository.update((long) (n % 100 + 1), new ItemUpdateDto("item", 1000 + n % 7 * 1000, 1));
+            }
+        });
+        while (!writer.isDone()) {
+            List<Item> items = itemRepository.findAll(new ItemSearchCond(null, 3000));
+            assertThat(items).allMatch(item -> item.getPrice() <= 3000);
+            assertThat(items).extracting(Item::getId).doesNotHaveDuplicates();
+        }
+        writer.get();
+        executor.shutdown();
+
+        //then - 인덱스 결과 == 전체 스캔 결과
+        List<Item> expected = itemRepository.findAll(new ItemSearchCond()).stream()
+                .filter(item -> item.getPrice() <= 3000)
+                .toList();
+        assertThat(itemRepository.findAll(new ItemSearchCond(null, 3000))).isEqualTo(expected);
+    }
+
+    @Test
+    void concurrentSamePriceUpdatesKeepIndexKey() throws Exception {
+        //given
+        for (int i = 0; i < 10; i++) {
+            itemRepository.save(new Item("item", 1000, 1));
+        }
+
+        //when - 여러 스레드가 같은 상품을 같은 순서의 같은 가격으로 동시에 바꿈 (같은 (price, id) 키를 두고 경쟁)
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int n = 1; n <= 5000; n++) {
+                    itemRepository.update((long) (n % 10 + 1), new ItemUpdateDto("item", 1000 + n / 10 % 3 * 1000, 1));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        //then - 어느 상품도 maxPrice 검색에서 빠지지 않음 (인덱스 결과 == 전체 스캔 결과)
+        List<Item> all = itemRepository.findAll(new ItemSearchCond());
+        for (int maxPrice = 1000; maxPrice <= 3000; maxPrice += 1000) {
+            int max = maxPrice;
+            assertThat(itemRepository.findAll(new ItemSearchCond(null, maxPrice)))
+                    .isEqualTo(all.stream().filter(item -> item.getPrice() <= max).toList());
+        }
+    }
+
+    @Test
+    void nameIndexFollowsUpdates() throws Exception {
+        //given
+        for (int i = 0; i < 100; i++) {
+            itemRepository.save(new Item("apple-" + i, 1000, 1));
+        }
+
+        //when - 이름을 apple/banana 로 계속 바꾸는 중에 상품명 검색
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> writer = executor.submit(() -> {
+            for (int n = 1; n <= 20000; n++) {
+                String name = (n % 3 == 0 ? "banana-" : "apple-") + n;
+                itemRepository.update((long) (n % 100 + 1), new ItemUpdateDto(name, 1000, 1));
+            }
+        });
+        while (!writer.isDone()) {
+            List<Item> items = itemRepository.findAll(new ItemSearchCond("nana", null));
+            assertThat(items).allMatch(item -> item.getItemName().contains("nana"));
+            assertThat(items).extracting(Item::getId).doesNotHaveDuplicates().isSorted();
+        }
+        writer.get();
+        executor.shutdown();
+
+        //then - 인덱스 결과 == 전체 스캔 결과 (짧은 검색어는 인덱스 없이 스캔)
+        List<Item> all = itemRepository.findAll(new ItemSearchCond());
+        assertThat(itemRepository.findAll(new ItemSearchCond("nana", null)))
+                .isEqualTo(all.stream().filter(item -> item.getItemName().contains("nana")).toList());
+        assertThat(itemRepository.findAll(new ItemSearchCond("le", null)))
+                .isEqualTo(all.stream().filter(item -> item.getItemName().contains("le")).toList());
+    }
+
+    @Test
+    void nameIndexDropsEmptyPostings() {
+        MemoryNameIndex nameIndex = new MemoryNameIndex();
+
+        //이름이 바뀌면서 안 쓰이게 된 gram 은 맵에서 빠짐
+        nameIndex.add("apple", 1);
+        nameIndex.add("banana", 1);
+        nameIndex.remove("apple", 1);
+        assertThat(nameIndex.candidates("app")).isEmpty();
+        assertThat(nameIndex.gramCount()).isEqualTo(3);     // ban, ana, nan
+
+        nameIndex.remove("banana", 1);
+        assertThat(nameIndex.gramCount()).isZero();
+    }
+}
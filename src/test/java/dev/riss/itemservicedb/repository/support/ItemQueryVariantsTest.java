@@ -0,0 +1,69 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.repository.ItemNameMatch;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItemQueryVariantsTest {
+
+    ItemQueryVariants variants = new ItemQueryVariants("SELECT * FROM item", "name = ?", "price <= ?", "id > ?", "id < ?", "ORDER BY id", "LIMIT ?", "ORDER BY id DESC LIMIT ?");
+
+    @Test
+    void everyCombination() {
+        assertThat(variants.get(new ItemSearchCond())).isEqualTo("SELECT * FROM item");
+        assertThat(variants.get(new ItemSearchCond("", null))).isEqualTo("SELECT * FROM item");
+        assertThat(variants.get(new ItemSearchCond(null, 1000))).isEqualTo("SELECT * FROM item WHERE price <= ?");
+        assertThat(variants.get(new ItemSearchCond("a", 1000, 5L, 10)))
+                .isEqualTo("SELECT * FROM item WHERE name = ? AND price <= ? AND id > ? LIMIT ?");
+        assertThat(variants.get(new ItemSearchCond("a", null, null, 10))).isEqualTo("SELECT * FROM item WHERE name = ? LIMIT ?");
+    }
+
+    @Test
+    void nameFragmentPerMatch() {
+        ItemQueryVariants byMatch = new ItemQueryVariants("SELECT * FROM item",
+                Map.of(ItemNameMatch.CONTAINS, "name like ?", ItemNameMatch.PREFIX, "name >= ?", ItemNameMatch.TOKEN, "id IN (?)"),
+                "price <= ?", "id > ?", "id < ?", "ORDER BY id", "LIMIT ?", "ORDER BY id DESC LIMIT ?");
+        ItemSearchCond cond = new ItemSearchCond("a", 1000);
+
+        assertThat(byMatch.get(cond)).isEqualTo("SELECT * FROM item WHERE name like ? AND price <= ?");
+        cond.setNameMatch(ItemNameMatch.TOKEN);
+        assertThat(byMatch.get(cond)).isEqualTo("SELECT * FROM item WHERE id IN (?) AND price <= ?");
+        cond.setItemName(null);
+        assertThat(byMatch.get(cond)).isEqualTo("SELECT * FROM item WHERE price <= ?");
+    }
+
+    @Test
+    void argsFollowFragmentOrder() {
+        ItemSearchCond cond = new ItemSearchCond("a", null, 5L, 10);
+
+        assertThat(ItemQueryVariants.args(cond, ItemQueryVariants.mask(cond))).containsExactly("a", 5L, 10);
+    }
+
+    @Test
+    void beforeIdReadsBackward() {
+        ItemSearchCond cond = new ItemSearchCond(null, 1000, null, 10);
+        cond.setBeforeId(50L);
+        int mask = ItemQueryVariants.mask(cond);
+
+        assertThat(variants.get(cond)).isEqualTo("SELECT * FROM item WHERE price <= ? AND id < ? ORDER BY id DESC LIMIT ?");
+        assertThat(ItemQueryVariants.args(cond, mask)).containsExactly(1000, 50L, 10);
+        assertThat(ItemQueryVariants.inIdOrder(mask, new ArrayList<>(List.of(3, 2, 1)))).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void keysetWithoutSizeStillOrdersById() {
+        ItemSearchCond after = new ItemSearchCond(null, null, 5L, null);
+        ItemSearchCond before = new ItemSearchCond();
+        before.setBeforeId(50L);
+
+        assertThat(variants.get(after)).isEqualTo("SELECT * FROM item WHERE id > ? ORDER BY id");
+        assertThat(variants.get(before)).isEqualTo("SELECT * FROM item WHERE id < ? ORDER BY id");
+        assertThat(ItemQueryVariants.reversed(ItemQueryVariants.mask(before))).isFalse();
+    }
+}
@@ -0,0 +1,37 @@
+package dev.riss.itemservicedb.repository.support;
+
+import dev.riss.itemservicedb.domain.Item;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemRowMappersTest {
+
+    @Test
+    void mapsByIndexAndKeepsNulls() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(1, Integer.class)).thenReturn(5);
+        when(rs.getString(2)).thenReturn("itemA");
+        when(rs.getObject(3, Long.class)).thenReturn(1L);
+        when(rs.getObject(4, Integer.class)).thenReturn(null);
+
+        Item item = ItemRowMappers.of("quantity", "itemName", "id", "price").mapRow(rs, 1);
+
+        assertThat(item.getId()).isEqualTo(1L);
+        assertThat(item.getItemName()).isEqualTo("itemA");
+        assertThat(item.getPrice()).isNull();
+        assertThat(item.getQuantity()).isEqualTo(5);
+    }
+
+    @Test
+    void sameLayoutSameInstance() {
+        assertThat(ItemRowMappers.of("id", "item_name", "price", "quantity", "version")).isSameAs(ItemRowMappers.ITEM);
+        assertThatThrownBy(() -> ItemRowMappers.of("id", "unknown")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
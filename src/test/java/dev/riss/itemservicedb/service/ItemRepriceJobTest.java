@@ -0,0 +1,85 @@
+package dev.riss.itemservicedb.service;
+
+import dev.riss.itemservicedb.repository.ItemRepriceParam;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ItemRepriceJobTest {
+
+    @Test
+    void chunksCoverAllIds() {
+        //given - id 1 ~ 25, 구간 10개씩 => [1,11) [11,21) [21,31)
+        Set<List<Long>> ranges = ConcurrentHashMap.newKeySet();
+        ItemRepriceJob job = new ItemRepriceJob((param, fromId, toId) -> {
+            ranges.add(List.of(fromId, toId));
+            return (int) (Math.min(toId, 26) - fromId);
+        }, () -> 25);
+        ItemRepriceParam param = new ItemRepriceParam(null, 5);
+        param.setChunkSize(10);
+
+        //when
+        List<RepriceProgress> progress = new ArrayList<>();
+        long updated = job.run(param, progress::add);
+
+        //then
+        assertThat(updated).isEqualTo(25);
+        assertThat(ranges).containsExactlyInAnyOrder(List.of(1L, 11L), List.of(11L, 21L), List.of(21L, 31L));
+        assertThat(progress).containsExactly(
+                new RepriceProgress(1, 3, 10), new RepriceProgress(2, 3, 20), new RepriceProgress(3, 3, 25));
+    }
+
+    @Test
+    void parallelChunks() {
+        //given
+        Set<Long> fromIds = ConcurrentHashMap.newKeySet();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        ItemRepriceJob job = new ItemRepriceJob((param, fromId, toId) -> {
+            fromIds.add(fromId);
+            threads.add(Thread.currentThread().getName());
+            return 1;
+        }, () -> 1000);
+        ItemRepriceParam param = new ItemRepriceParam(null, 5);
+        param.setChunkSize(10);
+        param.setParallelism(4);
+
+        //when
+        List<RepriceProgress> progress = new ArrayList<>();
+        long updated = job.run(param, progress::add);
+
+        //then - 구간 100개가 빠짐없이 한 번씩, 진행 상황은 끝난 수 순서대로
+        assertThat(updated).isEqualTo(100);
+        assertThat(fromIds).hasSize(100);
+        assertThat(threads).doesNotContain(Thread.currentThread().getName());
+        assertThat(progress).extracting(RepriceProgress::completedChunks).isSorted().hasSize(100);
+        assertThat(progress.get(99)).isEqualTo(new RepriceProgress(100, 100, 100));
+    }
+
+    @Test
+    void failedChunkStopsJob() {
+        ItemRepriceJob job = new ItemRepriceJob((param, fromId, toId) -> {
+            if (fromId == 11) throw new IllegalStateException("chunk failed");
+            return 1;
+        }, () -> 100);
+        ItemRepriceParam param = new ItemRepriceParam(null, 5);
+        param.setChunkSize(10);
+        param.setParallelism(2);
+
+        assertThatThrownBy(() -> job.run(param, progress -> {}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("chunk failed");
+    }
+
+    @Test
+    void percentBelowMinus100Rejected() {
+        assertThat(new ItemRepriceParam(null, -100).apply(10000)).isZero();
+        assertThatThrownBy(() -> new ItemRepriceParam(null, -101)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ItemRepriceParam().setPercent(-101)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
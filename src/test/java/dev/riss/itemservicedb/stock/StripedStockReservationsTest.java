@@ -0,0 +1,140 @@
+package dev.riss.itemservicedb.stock;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.ItemServiceV1;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedStockReservationsTest {
+
+    // flush 는 테스트에서 직접 부름
+    static final Duration NO_FLUSH = Duration.ofHours(1);
+
+    ItemService db;
+
+    @BeforeEach
+    void beforeEach() {
+        db = new ItemServiceV1(new MemoryItemRepository());
+    }
+
+    @Test
+    void leasesAndReturnsStock() {
+        Long itemId = db.save(new Item("hot", 1000, 100)).getId();
+        StripedStockReservations stock = new StripedStockReservations(db, 10, 4, NO_FLUSH, NO_FLUSH);
+
+        //1개 차감 => DB 에서는 1 + leaseSize 만큼 빠지고 남은 10개는 메모리에
+        assertThat(stock.reserve(itemId, 1)).isTrue();
+        assertThat(quantity(itemId)).isEqualTo(89);
+        assertThat(stock.pooled(itemId)).isEqualTo(10);
+
+        //메모리에 있는 동안은 DB 에 안 감
+        assertThat(stock.reserve(itemId, 4)).isTrue();
+        stock.release(itemId, 3);
+        assertThat(quantity(itemId)).isEqualTo(89);
+
+        //flush => 남은 재고를 DB 로 (100 - 1 - 4 + 3)
+        stock.flush();
+        assertThat(quantity(itemId)).isEqualTo(98);
+        assertThat(stock.pooled(itemId)).isZero();
+        stock.close();
+    }
+
+    @Test
+    void fallsBackToExactQuantity() {
+        Long itemId = db.save(new Item("hot", 1000, 5)).getId();
+        StripedStockReservations stock = new StripedStockReservations(db, 10, 4, NO_FLUSH, NO_FLUSH);
+
+        //leaseSize 만큼 없으면 필요한 만큼만 떼어 옴
+        assertThat(stock.reserve(itemId, 3)).isTrue();
+        assertThat(stock.reserve(itemId, 3)).isFalse();
+        assertThat(stock.reserve(itemId, 2)).isTrue();
+        assertThat(quantity(itemId)).isZero();
+        stock.close();
+    }
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        int initial = 1000;
+        Long itemId = db.save(new Item("hot", 1000, initial)).getId();
+        // 같은 DB 를 보는 노드 2대, flush 도 짧게 돌면서
+        List<StripedStockReservations> nodes = List.of(
+                new StripedStockReservations(db, 16, 4, Duration.ofMillis(1), Duration.ofMillis(5)),
+                new StripedStockReservations(db, 16, 4, Duration.ofMillis(1), Duration.ofMillis(5)));
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            StripedStockReservations node = nodes.get(t % nodes.size());
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (!node.reserve(itemId, 1)) continue;
+                    reserved.incrementAndGet();
+                    if (i % 10 == 0) {      // 가끔 취소
+                        node.release(itemId, 1);
+                        released.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+        nodes.forEach(StripedStockReservations::close);
+
+        //팔린 만큼만 빠지고(과판매 x) 떼어 갔다가 안 팔린 재고는 전부 돌아옴
+        int sold = reserved.get() - released.get();
+        assertThat(sold).isPositive().isLessThanOrEqualTo(initial);
+        assertThat(quantity(itemId)).isEqualTo(initial - sold);
+    }
+
+    @Test
+    void closeRetriesAndReportsStockItCouldNotReturn() {
+        Long itemId = db.save(new Item("hot", 1000, 100)).getId();
+        AtomicInteger failures = new AtomicInteger(1);      // 처음 한 번만 실패 (잠깐 DB 장애)
+        ItemService flakyDb = new ItemServiceV1(new MemoryItemRepository()) {
+            @Override
+            public void releaseStock(Long id, int quantity) {
+                if (failures.getAndDecrement() > 0) throw new IllegalStateException("db down");
+                db.releaseStock(id, quantity);
+            }
+
+            @Override
+            public boolean reserveStock(Long id, int quantity) {
+                return db.reserveStock(id, quantity);
+            }
+        };
+        StripedStockReservations stock = new StripedStockReservations(flakyDb, 10, 4, NO_FLUSH, NO_FLUSH);
+        assertThat(stock.reserve(itemId, 1)).isTrue();
+
+        //close 안에서 다시 해서 돌려줌
+        stock.close();
+        assertThat(quantity(itemId)).isEqualTo(99);
+
+        //계속 실패하면 못 돌려준 수량을 예외로 알림
+        StripedStockReservations broken = new StripedStockReservations(flakyDb, 10, 4, NO_FLUSH, NO_FLUSH);
+        assertThat(broken.reserve(itemId, 1)).isTrue();
+        failures.set(Integer.MAX_VALUE);
+        assertThatThrownBy(broken::close).isInstanceOf(IllegalStateException.class).hasMessageContaining(itemId + "=10");
+    }
+
+    private int quantity(Long itemId) {
+        return db.findById(itemId).get().getQuantity();
+    }
+}
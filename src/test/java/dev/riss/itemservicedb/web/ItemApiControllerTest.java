@@ -0,0 +1,97 @@
+package dev.riss.itemservicedb.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * /api/items 조건부 요청: 안 바뀌었으면 304 (본문 x), 바뀌면 새 ETag, 낡은 If-Match 로 수정하면 412
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemApiControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void conditionalRequests() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/items").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"api\",\"price\":1000,\"quantity\":1}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String location = created.getResponse().getHeader(HttpHeaders.LOCATION);
+        String etag = created.getResponse().getHeader(HttpHeaders.ETAG);
+
+        //상세: 같은 ETag => 304, 본문 없음
+        mockMvc.perform(get(location)).andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, etag));
+        MvcResult notModified = mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertThat(notModified.getResponse().getContentLength()).isZero();
+
+        //목록도 같은 방식
+        String listEtag = mockMvc.perform(get("/api/items").param("itemName", "api"))
+                .andExpect(jsonPath("$[0].itemName").value("api"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/items").param("itemName", "api").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isNotModified());
+
+        //수정 => ETag 가 바뀜, 이전 ETag 로는 304 가 아님
+        String newEtag = mockMvc.perform(put(location).header(HttpHeaders.IF_MATCH, etag).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"api\",\"price\":2000,\"quantity\":1}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, newEtag))
+                .andExpect(jsonPath("$.price").value(2000));
+        mockMvc.perform(get("/api/items").param("itemName", "api").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+                .andExpect(status().isOk());
+
+        //낡은 ETag 로 수정 => 412, 안 바뀜
+        mockMvc.perform(put(location).header(HttpHeaders.IF_MATCH, etag).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"api\",\"price\":3000,\"quantity\":1}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.price").value(2000));
+
+        //If-Match 없이 본문의 낡은 version 으로 수정 => 조회 없이 UPDATE 가 0 행 => 412
+        mockMvc.perform(put(location).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"api\",\"price\":3000,\"quantity\":1,\"version\":0}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.price").value(2000)).andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(get("/api/items/{itemId}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/items/{itemId}", Long.MAX_VALUE).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"api\",\"price\":3000,\"quantity\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createIgnoresIdAndVersionInBody() throws Exception {
+        String location = mockMvc.perform(post("/api/items").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemName\":\"first\",\"price\":1000,\"quantity\":1}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        String firstId = location.substring(location.lastIndexOf('/') + 1);
+
+        //다른 상품의 id / 임의의 version 을 넣어도 새 상품으로 생성, 기존 상품은 그대로
+        String secondLocation = mockMvc.perform(post("/api/items").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + firstId + ",\"version\":7,\"itemName\":\"second\",\"price\":2000,\"quantity\":2}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        assertThat(secondLocation).isNotEqualTo(location);
+        mockMvc.perform(get(secondLocation)).andExpect(jsonPath("$.itemName").value("second")).andExpect(jsonPath("$.version").value(0));
+        mockMvc.perform(get(location)).andExpect(jsonPath("$.itemName").value("first")).andExpect(jsonPath("$.price").value(1000));
+    }
+}
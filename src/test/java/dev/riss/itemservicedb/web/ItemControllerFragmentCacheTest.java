@@ -0,0 +1,57 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.cache.ItemFragmentCache;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 캐시에서 꺼낸 표 HTML 로 그린 화면이 처음 그린 화면과 같은지, 수정하면 새로 그리는지
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemControllerFragmentCacheTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemFragmentCache itemFragmentCache;
+
+    @Test
+    void cachedTableRendersTheSamePage() throws Exception {
+        Long itemId = itemRepository.saveAll(IntStream.rangeClosed(1, 3).mapToObj(i -> new Item("frag" + i, 1000 * i, i)).toList())
+                .get(0).getId();
+
+        String first = page();
+        long hits = itemFragmentCache.stats().hitCount();
+        String second = page();
+
+        assertThat(itemFragmentCache.stats().hitCount()).isEqualTo(hits + 1);
+        assertThat(second).isEqualTo(first);
+        assertThat(first).contains("frag1", "frag2").doesNotContain("frag3")      // size=2
+                .contains("/items/" + itemId)
+                .contains("afterId=");                                          // 다음 페이지 링크
+
+        mockMvc.perform(post("/items/{itemId}/edit", itemId).param("itemName", "fragEdit").param("price", "1000").param("quantity", "1"));
+        assertThat(page()).contains("fragEdit").doesNotContain(">frag1<");
+    }
+
+    private String page() throws Exception {
+        return mockMvc.perform(get("/items").param("itemName", "frag").param("size", "2"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,76 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.metrics.SqlStatementFilter;
+import dev.riss.itemservicedb.metrics.SqlStatementScope;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 엔드포인트별 SQL 문 수 (SqlStatementFilter)
+ * 전체 예산/N+1 검사는 테스트 application.properties 에서 켜져 있고(fail-over-budget), 여기서는 요청마다 상한을 고정
+ * => 구현을 바꿔서 쿼리가 상한보다 늘면 실패 (의도한 변경이면 숫자를 같이 고침). 캐시가 맞는 요청은 0
+ * 상품을 커밋해서 넣으므로(롤백 x) 끝나면 컨텍스트(내장 DB 포함) 를 버림 => 같은 컨텍스트를 쓰는 다른 테스트에 안 남음
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class ItemControllerSqlBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Test
+    void statementsPerRequest() throws Exception {
+        List<Item> items = itemRepository.saveAll(IntStream.rangeClosed(1, 30).mapToObj(i -> new Item("budget" + i, 1000 * i, i)).toList());
+        Long itemId = items.get(0).getId();
+
+        assertThat(statements(post("/items/add").param("itemName", "budgetNew").param("price", "1000").param("quantity", "1"))).isLessThanOrEqualTo(1);
+        // 목록: 한 페이지를 쿼리 하나로 (상품마다 따로 조회하지 않음)
+        assertThat(statements(get("/items").param("itemName", "budget").param("size", "20"))).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/items").param("itemName", "budget").param("size", "20"))).isZero();      // 표 HTML 캐시
+        assertThat(statements(get("/items/{itemId}", itemId))).isLessThanOrEqualTo(1);
+        assertThat(statements(get("/items/{itemId}", itemId))).isZero();       // findById 캐시
+        // ItemServiceV2.update: 조건부 UPDATE 한 문장 (조회 x)
+        assertThat(statements(post("/items/{itemId}/edit", itemId).param("itemName", "budgetEdit").param("price", "2000").param("quantity", "2").param("version", "0"))).isLessThanOrEqualTo(1);
+        // 낡은 version => UPDATE 0 행 + 충돌인지 확인하는 조회
+        assertThat(statements(post("/items/{itemId}/edit", itemId).param("itemName", "budgetStale").param("price", "3000").param("quantity", "3").param("version", "0"))).isLessThanOrEqualTo(2);
+        assertThat(statements(get("/items").param("itemName", "budget").param("size", "20"))).isLessThanOrEqualTo(1);  // 수정 => 캐시 무효화
+    }
+
+    @Test
+    void scopeCountsRepeatedStatements() {
+        Item item = itemRepository.save(new Item("repeat", 1000, 1));
+
+        try (SqlStatementScope scope = SqlStatementScope.open()) {
+            for (int i = 0; i < 3; i++) {
+                itemRepository.findById(item.getId());
+            }
+            assertThat(scope.statementCount()).isEqualTo(3);
+            assertThat(scope.maxRepeats()).isEqualTo(3);
+        }
+    }
+
+    private int statements(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andReturn();
+        SqlStatementScope scope = (SqlStatementScope) result.getRequest().getAttribute(SqlStatementFilter.ATTRIBUTE);
+        return scope.statementCount();
+    }
+}
@@ -0,0 +1,166 @@
+package dev.riss.itemservicedb.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemRepository;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.r2dbc.R2dbcItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /reactive/items (R2DBC) 와 JDBC/JPA 쪽이 같은 DB 를 보는지, NDJSON 이 한 줄에 한 건씩 나오는지
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ReactiveItemControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    DataSourceProperties dataSourceProperties;
+
+    @Test
+    void readsAndWritesTheSameDatabase() throws Exception {
+        itemRepository.saveAll(IntStream.rangeClosed(1, 5).mapToObj(i -> new Item("rx" + i, 1000 * i, i)).toList());
+
+        //NDJSON: 한 줄에 상품 하나
+        String body = async(get("/reactive/items").param("itemName", "rx").param("maxPrice", "3000")
+                .accept(MediaType.APPLICATION_NDJSON)).getResponse().getContentAsString();
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines.get(0), Item.class).getItemName()).isEqualTo("rx1");
+
+        //리액티브로 저장 => JDBC/JPA 쪽에서 보임
+        MvcResult created = async(post("/reactive/items").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemName\":\"rxNew\",\"price\":7000,\"quantity\":7}"));
+        assertThat(created.getResponse().getStatus()).isEqualTo(201);
+        Long itemId = objectMapper.readValue(created.getResponse().getContentAsString(), Item.class).getId();
+        assertThat(itemRepository.findById(itemId)).get().extracting(Item::getPrice).isEqualTo(7000);
+
+        //ItemService(캐시) 에 먼저 올려둔 뒤 리액티브로 수정 => 캐시도 무효화되어 새 값이 보여야 함
+        assertThat(itemService.findById(itemId)).get().extracting(Item::getItemName).isEqualTo("rxNew");
+        async(put("/reactive/items/{itemId}", itemId).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemName\":\"rxEdit\",\"price\":8000,\"quantity\":8}"));
+        Item found = objectMapper.readValue(async(get("/reactive/items/{itemId}", itemId)).getResponse().getContentAsString(), Item.class);
+        assertThat(found.getItemName()).isEqualTo("rxEdit");
+        assertThat(found.getPrice()).isEqualTo(8000);
+        assertThat(itemService.findById(itemId)).get().extracting(Item::getItemName, Item::getPrice).containsExactly("rxEdit", 8000);
+
+        assertThat(async(get("/reactive/items/{itemId}", Long.MAX_VALUE)).getResponse().getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void findAllEmitsOnlyRequestedRows() {
+        itemRepository.saveAll(IntStream.rangeClosed(1, 100).mapToObj(i -> new Item("bp" + i, 1000, i)).toList());
+
+        //드라이버가 넘겨준(매핑한) 행 수를 세는 DatabaseClient 로 같은 DB 를 봄
+        AtomicInteger fetchedRows = new AtomicInteger();
+        String url = dataSourceProperties.determineUrl();
+        H2ConnectionFactory connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring("jdbc:h2:".length()))
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build());
+        DatabaseClient client = DatabaseClient.builder()
+                .connectionFactory(connectionFactory)
+                .executeFunction(statement -> Flux.from(statement.execute()).map(result -> new CountingResult(result, fetchedRows)))
+                .build();
+        R2dbcItemRepository repository = new R2dbcItemRepository(client);
+
+        //요청한 만큼만 오고, 요청이 없으면 더 오지 않음. 2건 받고 취소하면 나머지 행은 읽지 않음
+        //(드라이버에서 꺼내는 건 DatabaseClient 안쪽 flatMap 의 prefetch 한 번 분량까지 => 100 건 중 최대 32 건)
+        StepVerifier.create(repository.findAll(new ItemSearchCond("bp", null)), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .expectNextMatches(item -> item.getItemName().equals("bp1"))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenRequest(1)
+                .expectNextMatches(item -> item.getItemName().equals("bp2"))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertThat(fetchedRows.get()).isBetween(2, R2dbcItemRepository.FETCH_WINDOW);
+    }
+
+    // 행을 매핑할 때마다 센다 (DatabaseClient 는 map 으로 행을 꺼냄)
+    private record CountingResult(Result delegate, AtomicInteger rows) implements Result {
+
+        @Override
+        public Publisher<Long> getRowsUpdated() {
+            return delegate.getRowsUpdated();
+        }
+
+        @Override
+        public <T> Publisher<T> map(BiFunction<Row, RowMetadata, ? extends T> mappingFunction) {
+            return delegate.map((row, metadata) -> {
+                rows.incrementAndGet();
+                return mappingFunction.apply(row, metadata);
+            });
+        }
+
+        @Override
+        public <T> Publisher<T> map(Function<? super Readable, ? extends T> mappingFunction) {
+            return delegate.map(row -> {
+                rows.incrementAndGet();
+                return mappingFunction.apply(row);
+            });
+        }
+
+        @Override
+        public Result filter(Predicate<Segment> filter) {
+            return new CountingResult(delegate.filter(filter), rows);
+        }
+
+        @Override
+        public <T> Publisher<T> flatMap(Function<Segment, ? extends Publisher<? extends T>> mappingFunction) {
+            return delegate.flatMap(mappingFunction);
+        }
+    }
+
+    private MvcResult async(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+}
@@ -0,0 +1,45 @@
+package dev.riss.itemservicedb.web;
+
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.service.ItemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 재고 차감 API: 있는 만큼만 차감 (모자라면 409), 되돌리면 다시 차감 가능, 캐시(findById) 에도 바로 반영
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class StockApiControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ItemService itemService;
+
+    @Test
+    void reserveAndRelease() throws Exception {
+        Long itemId = itemService.save(new Item("stock", 1000, 2)).getId();
+        itemService.findById(itemId);       // 캐시에 올려둠
+
+        mockMvc.perform(post("/api/items/{itemId}/stock/reserve", itemId).param("quantity", "2")).andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/items/{itemId}/stock/reserve", itemId)).andExpect(status().isConflict());
+        assertThat(itemService.findById(itemId).get().getQuantity()).isZero();
+
+        mockMvc.perform(post("/api/items/{itemId}/stock/release", itemId)).andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/items/{itemId}/stock/release", itemId).param("quantity", String.valueOf(Integer.MAX_VALUE)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/items/{itemId}/stock/reserve", itemId)).andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/items/{itemId}/stock/reserve", itemId).param("quantity", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/items/{itemId}/stock/reserve", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,194 @@
+package dev.riss.itemservicedb.writebehind;
+
+import dev.riss.itemservicedb.ItemserviceDbApplication;
+import dev.riss.itemservicedb.cache.CachingItemService;
+import dev.riss.itemservicedb.domain.Item;
+import dev.riss.itemservicedb.repository.ItemSearchCond;
+import dev.riss.itemservicedb.repository.ItemUpdateDto;
+import dev.riss.itemservicedb.repository.memory.MemoryItemRepository;
+import dev.riss.itemservicedb.service.ItemService;
+import dev.riss.itemservicedb.service.ItemServiceV1;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class WriteBehindItemServiceTest {
+
+    // flush 는 테스트에서 직접 부름
+    static final Duration NO_FLUSH = Duration.ofHours(1);
+
+    @TempDir
+    Path logDirectory;
+
+    ItemService db;
+    WriteBehindItemService writeBehind;
+
+    @BeforeEach
+    void beforeEach() {
+        db = new ItemServiceV1(new MemoryItemRepository());
+        writeBehind = open();
+    }
+
+    @AfterEach
+    void afterEach() {
+        writeBehind.close();
+    }
+
+    @Test
+    void coalescesPendingUpdates() {
+        Long itemId = db.save(new Item("itemA", 1000, 1)).getId();
+
+        //when - 같은 상품을 3번 수정
+        for (int i = 1; i <= 3; i++) {
+            writeBehind.update(itemId, new ItemUpdateDto("itemA", 1000 * i, i));
+        }
+
+        //then - 읽기는 마지막 값(과 반영되면 갖게 될 버전) 을 보지만 DB 는 아직 그대로
+        assertThat(writeBehind.findById(itemId).get()).extracting(Item::getPrice, Item::getVersion).containsExactly(3000, 1L);
+        assertThat(db.findById(itemId).get().getPrice()).isEqualTo(1000);
+
+        //flush => UPDATE 한 번 (버전 +1)
+        writeBehind.flush();
+        Item flushed = db.findById(itemId).get();
+        assertThat(flushed.getPrice()).isEqualTo(3000);
+        assertThat(flushed.getVersion()).isEqualTo(1);
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(segments()).hasSize(1);      // 반영된 세그먼트는 지워지고 지금 세그먼트만
+    }
+
+    @Test
+    void replaysLogAfterCrash() throws IOException {
+        Long itemId = db.save(new Item("itemA", 1000, 1)).getId();
+        writeBehind.update(itemId, new ItemUpdateDto("itemB", 2000, 2));
+
+        //close(flush) 없이 죽은 것처럼 - 로그만 남음. 마지막에 쓰다 만 기록도 하나
+        Files.write(segments().get(0), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        writeBehind = open();
+
+        //then - 다시 시작하면 대기 중인 수정으로 보이고, flush 하면 DB 에
+        assertThat(writeBehind.findById(itemId).get().getItemName()).isEqualTo("itemB");
+        writeBehind.flush();
+        assertThat(db.findById(itemId).get().getItemName()).isEqualTo("itemB");
+        assertThat(segments()).hasSize(1);
+    }
+
+    @Test
+    void synchronousWritesKeepOrder() {
+        Long itemId = db.save(new Item("itemA", 1000, 10)).getId();
+        writeBehind.update(itemId, new ItemUpdateDto("itemA", 1000, 5));
+
+        //대기 중인 상품에 버전을 준 수정 => 대기 중인 수정을 반영한 다음 조건부 UPDATE
+        //대기 전 버전(0) 은 낡은 것, findById 가 보여준 버전(1) 은 맞음
+        ItemUpdateDto stale = new ItemUpdateDto("itemB", 2000, 1);
+        stale.setVersion(0L);
+        assertThatThrownBy(() -> writeBehind.update(itemId, stale)).isInstanceOf(OptimisticLockingFailureException.class);
+        writeBehind.update(itemId, new ItemUpdateDto("itemA", 1000, 6));
+        ItemUpdateDto current = new ItemUpdateDto("itemA", 1000, 5);
+        current.setVersion(writeBehind.findById(itemId).get().getVersion());
+        writeBehind.update(itemId, current);
+        assertThat(db.findById(itemId).get()).extracting(Item::getQuantity, Item::getVersion).containsExactly(5, 3L);
+
+        //재고 차감 => 대기 중인 수정(수량 4) 을 먼저 반영한 다음
+        writeBehind.update(itemId, new ItemUpdateDto("itemA", 1000, 4));
+        assertThat(writeBehind.reserveStock(itemId, 3)).isTrue();
+        assertThat(db.findById(itemId).get().getQuantity()).isEqualTo(1);
+
+        //검색: DB 가 옛 값으로 고른 행에 대기 중인 값을 덮음 (findById 와 같은 값/버전)
+        writeBehind.update(itemId, new ItemUpdateDto("itemC", 1000, 2));
+        assertThat(writeBehind.findItems(new ItemSearchCond("itemA", null)))
+                .extracting(Item::getItemName, Item::getQuantity, Item::getVersion).containsExactly(tuple("itemC", 2, 6L));
+        List<Item> streamed = new ArrayList<>();
+        writeBehind.streamItems(new ItemSearchCond("itemA", null), streamed::add);
+        assertThat(streamed).extracting(Item::getItemName, Item::getQuantity, Item::getVersion).containsExactly(tuple("itemC", 2, 6L));
+        //새 이름으로는 반영된 다음에 찾아짐
+        assertThat(writeBehind.findItems(new ItemSearchCond("itemC", null))).isEmpty();
+        writeBehind.flush();
+        assertThat(writeBehind.findItems(new ItemSearchCond("itemC", null)))
+                .extracting(Item::getQuantity, Item::getVersion).containsExactly(tuple(2, 6L));
+    }
+
+    @Test
+    void rejectsNonPositiveBatchSize() {
+        assertThatThrownBy(() -> new WriteBehindItemService(db, logDirectory, TransactionOperations.withoutTransaction(), NO_FLUSH, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void dropsUpdatesOfMissingItemsWhenApplying() {
+        Long itemId = db.save(new Item("itemA", 1000, 1)).getId();
+        List<Long> applied = new CopyOnWriteArrayList<>();
+        writeBehind.close();
+        writeBehind = new WriteBehindItemService(db, logDirectory, TransactionOperations.withoutTransaction(), NO_FLUSH, 2, applied::add);
+
+        //요청할 때는 DB 를 안 가므로 없는 상품도 받아둠 (읽으면 DB 에 없으므로 빈 값)
+        writeBehind.update(Long.MAX_VALUE, new ItemUpdateDto("x", 1, 1));
+        writeBehind.update(itemId, new ItemUpdateDto("itemB", 2000, 2));
+        assertThat(writeBehind.findById(Long.MAX_VALUE)).isEmpty();
+
+        //반영할 때 없는 상품만 버리고 나머지는 반영, 반영한 상품은 알림 (캐시 무효화)
+        writeBehind.flush();
+        assertThat(db.findById(itemId).get().getItemName()).isEqualTo("itemB");
+        assertThat(writeBehind.pendingCount()).isZero();
+        assertThat(applied).containsExactlyInAnyOrder(itemId, Long.MAX_VALUE);
+    }
+
+    @Test
+    void wrapsItemServiceBean(@TempDir Path appLogDirectory) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ItemserviceDbApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--item.write-behind.enabled=true",
+                        "--item.write-behind.directory=" + appLogDirectory,
+                        "--item.write-behind.flush-interval=1h",
+                        "--spring.datasource.url=jdbc:h2:mem:write-behind;DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=warn");
+        ItemService itemService = context.getBean(ItemService.class);
+        assertThat(itemService).isInstanceOf(CachingItemService.class);     // 캐시가 write-behind 위에
+
+        Long itemId = itemService.save(new Item("itemA", 1000, 1)).getId();
+        itemService.update(itemId, new ItemUpdateDto("itemB", 2000, 2));
+        assertThat(itemService.findById(itemId).get().getItemName()).isEqualTo("itemB");
+        assertThat(context.getBean("itemService")).isInstanceOf(WriteBehindItemService.class);
+
+        //반영되면 캐시도 무효화 => 검색에도 보이고, 상세는 DB 의 값/버전
+        context.getBean("itemService", WriteBehindItemService.class).flush();
+        assertThat(itemService.findItems(new ItemSearchCond("itemB", null))).hasSize(1);
+        assertThat(itemService.findById(itemId).get()).extracting(Item::getItemName, Item::getVersion).containsExactly("itemB", 1L);
+        itemService.update(itemId, new ItemUpdateDto("itemC", 3000, 3));
+
+        //컨텍스트가 닫힐 때 남은 수정을 반영
+        context.close();
+        assertThat(new ItemWriteAheadLog(appLogDirectory).replay()).isEmpty();
+    }
+
+    private WriteBehindItemService open() {
+        return new WriteBehindItemService(db, logDirectory, TransactionOperations.withoutTransaction(), NO_FLUSH, 2);
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            return files.sorted().toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}